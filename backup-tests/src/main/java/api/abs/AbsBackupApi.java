@@ -6,8 +6,6 @@ import api.abs.generated.model.DtoRoutineState;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
 import org.assertj.core.api.Assertions;
-import org.awaitility.Awaitility;
-import org.hamcrest.Matchers;
 import org.jetbrains.annotations.NotNull;
 import utils.AerospikeLogger;
 import utils.AutoUtils;
@@ -19,10 +17,10 @@ import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static api.abs.API.backupApi;
+import static api.abs.BackupWaitCoordinator.backupWaits;
 
 @UtilityClass
 public class AbsBackupApi {
@@ -136,11 +134,19 @@ public class AbsBackupApi {
     }
 
     public DtoBackupDetails startFullBackupSync(String routineName, Duration timeout, int delay) {
+        return startFullBackupTracked(routineName, timeout, null, delay).backup();
+    }
+
+    /**
+     * Starts a full backup and waits for it, failing as soon as its progress does not move for {@code stallWindow}
+     * (not checked when null).
+     */
+    public TrackedBackup startFullBackupTracked(String routineName, Duration timeout, Duration stallWindow, int delay) {
         var currentBackup = AbsBackupApi.getCurrentBackup(routineName);
         long lastFullBackup = parseDate(currentBackup.getLastFull()) + 1;
 
         scheduleFullBackup(routineName, delay);
-        return waitForFullBackup(routineName, lastFullBackup, timeout);
+        return waitForFullBackupTracked(routineName, lastFullBackup, timeout, stallWindow);
     }
 
     public DtoBackupDetails startFullBackupSync(String routineName) {
@@ -156,38 +162,26 @@ public class AbsBackupApi {
     }
 
     public static DtoBackupDetails waitForFullBackup(String routineName, long backupTime, Duration timeout) {
-        CompletableFuture<DtoBackupDetails> resultFuture = new CompletableFuture<>();
-        AerospikeLogger.info("Wait for full backup for " + routineName + " after time " + Instant.ofEpochMilli(backupTime));
-        Awaitility.await()
-                .pollInterval(1, TimeUnit.SECONDS)
-                .atMost(timeout)
-                .until(() -> {
-                    Optional<DtoBackupDetails> backup = firstFullBackupAfter(routineName, backupTime);
-                    if (backup.isPresent()) {
-                        resultFuture.complete(backup.get());
-                        AutoUtils.sleepOnCloud(2000);
-                        return true;
-                    }
-
-                    AbsBackupApi.getCurrentBackup(routineName); // will print current state in log, for debugging
+        return waitForFullBackupTracked(routineName, backupTime, timeout, null).backup();
+    }
 
-                    return false;
-                });
-        return resultFuture.join();
+    public static TrackedBackup waitForFullBackupTracked(String routineName, long backupTime, Duration timeout,
+                                                         Duration stallWindow) {
+        AerospikeLogger.info("Wait for full backup for " + routineName + " after time " + Instant.ofEpochMilli(backupTime));
+        TrackedBackup backup = BackupPoller.waitFor(routineName, BackupType.FULL, backupTime, timeout, stallWindow,
+                b -> true);
+        AutoUtils.sleepOnCloud(2000);
+        return backup;
     }
 
     public DtoBackupDetails waitForFullBackup(String routineName, long timeBeforeBackup, String namespace) {
-        return Awaitility.await()
-                .pollInterval(5, TimeUnit.SECONDS)
-                .atMost(DEFAULT_WAIT_TIMEOUT)
-                .until(() -> firstFullBackupAfter(routineName, timeBeforeBackup, namespace), Matchers.notNullValue());
+        return BackupWaitCoordinator.join(
+                backupWaits.await(routineName, BackupType.FULL, namespace, timeBeforeBackup, DEFAULT_WAIT_TIMEOUT));
     }
 
     public void waitForFullBackups(String routineName, long timeBeforeBackup, String... namespaces) {
         AerospikeLogger.info("Starting waitForFullBackups for routine " + routineName + " with time " + timeBeforeBackup);
-        for (String namespace : namespaces) {
-            waitForFullBackup(routineName, timeBeforeBackup, namespace.trim());
-        }
+        awaitAll(routineName, BackupType.FULL, timeBeforeBackup, namespaces);
     }
 
     public void waitForAllFullBackups(String routineName, long timeBeforeBackup) {
@@ -206,33 +200,27 @@ public class AbsBackupApi {
     }
 
     public void waitForIncrementalBackup(String routineName, long timeBeforeBackup, String namespace) {
-        Awaitility.await("wait for routine %s, namespace %s, after %d".formatted(routineName, namespace, timeBeforeBackup))
-                .pollInterval(1, TimeUnit.SECONDS).atMost(DEFAULT_WAIT_TIMEOUT)
-                .until(() -> incrementalBackupAfter(routineName, timeBeforeBackup, namespace) != null);
+        BackupWaitCoordinator.join(
+                backupWaits.await(routineName, BackupType.INCREMENTAL, namespace, timeBeforeBackup, DEFAULT_WAIT_TIMEOUT));
     }
 
     public void waitForIncrementalBackups(String routineName, long timeBeforeBackup, String... namespaces) {
         AerospikeLogger.info("Starting waitForIncrementalBackups for routine " + routineName + " with time " + timeBeforeBackup);
-        for (String namespace : namespaces) {
-            waitForIncrementalBackup(routineName, timeBeforeBackup, namespace.trim());
-        }
+        awaitAll(routineName, BackupType.INCREMENTAL, timeBeforeBackup, namespaces);
+    }
+
+    private static void awaitAll(String routineName, BackupType type, long timeBeforeBackup, String... namespaces) {
+        List<CompletableFuture<DtoBackupDetails>> futures = Arrays.stream(namespaces)
+                .map(namespace -> backupWaits.await(routineName, type, namespace.trim(), timeBeforeBackup,
+                        DEFAULT_WAIT_TIMEOUT))
+                .toList();
+        futures.forEach(BackupWaitCoordinator::join);
     }
 
     public static DtoBackupDetails waitForIncrementalBackup(String routineName, long backupTime, Duration timeout) {
-        CompletableFuture<DtoBackupDetails> resultFuture = new CompletableFuture<>();
         AerospikeLogger.info("Wait for incremental backup for " + routineName + " after time " + Instant.ofEpochMilli(backupTime));
-        Awaitility.await()
-                .pollInterval(1, TimeUnit.SECONDS)
-                .atMost(timeout)
-                .until(() -> {
-                    Optional<DtoBackupDetails> modelBackupDetails = incrementalBackupAfter(routineName, backupTime);
-                    if (modelBackupDetails.isPresent()) {
-                        resultFuture.complete(modelBackupDetails.get());
-                        return true;
-                    }
-                    return false;
-                });
-        return resultFuture.join();
+        return BackupPoller.waitFor(routineName, BackupType.INCREMENTAL, backupTime, timeout,
+                null, b -> getCreated(b) >= backupTime).backup();
     }
 
     public static DtoBackupDetails waitForIncrementalBackup(String routineName, long backupTime) {
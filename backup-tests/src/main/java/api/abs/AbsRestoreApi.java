@@ -5,18 +5,15 @@ import api.abs.generated.model.*;
 import com.google.gson.reflect.TypeToken;
 import lombok.experimental.UtilityClass;
 import okhttp3.Call;
-import org.awaitility.Awaitility;
 import utils.AerospikeLogger;
 import utils.ConfigParametersHandler;
 
 import java.io.File;
 import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import static api.abs.API.restoreApi;
-import static api.abs.generated.model.DtoJobStatus.JobStatusDone;
-import static api.abs.generated.model.DtoJobStatus.JobStatusFailed;
+import static api.abs.RestoreJobTracker.restoreJobs;
 
 @UtilityClass
 public class AbsRestoreApi {
@@ -68,6 +65,14 @@ public class AbsRestoreApi {
         return waitForRestore(restoreFull(path, routineName, policy), timeout);
     }
 
+    /**
+     * Restores and waits like {@link #restoreFullSync}, returning the job's counters sampled over time.
+     */
+    public static RestoreJobTracker.RestoreRun restoreFullTracked(String path, String routineName, DtoRestorePolicy policy,
+                                                                   Duration timeout) {
+        return RestoreJobTracker.join(restoreJobs.track(restoreFull(path, routineName, policy), timeout));
+    }
+
     public static JobID restoreIncremental(DtoRestoreRequest restoreRequest) {
         return new JobID(restoreApi.restoreIncremental(restoreRequest));
     }
@@ -135,29 +140,11 @@ public class AbsRestoreApi {
     }
 
     public static DtoRestoreJobStatus waitForRestore(JobID jobId, Duration timeout) {
-        return Awaitility.await()
-                .pollInterval(1, TimeUnit.SECONDS)
-                .atMost(timeout)
-                .until(() -> {
-                    var restoreStatus = AbsRestoreApi.getRestoreStatus(jobId);
-                    if (restoreStatus.getStatus() == JobStatusFailed) {
-                        throw new RuntimeException("Failed to restore");
-                    }
-                    return restoreStatus;
-                }, restoreStatus -> restoreStatus.getStatus() == JobStatusDone);
+        return RestoreJobTracker.join(restoreJobs.track(jobId, timeout)).status();
     }
 
     public static void waitForRestoreFail(JobID jobId) {
-        Awaitility.await()
-                .pollInterval(2, TimeUnit.SECONDS)
-                .atMost(DEFAULT_WAIT_TIMEOUT)
-                .until(() -> {
-                    var restoreStatus = AbsRestoreApi.getRestoreStatus(jobId);
-                    if (restoreStatus.getStatus() == JobStatusDone) {
-                        throw new RuntimeException("Expected to fail");
-                    }
-                    return restoreStatus.getStatus() == JobStatusFailed;
-                });
+        RestoreJobTracker.join(restoreJobs.trackFailure(jobId, DEFAULT_WAIT_TIMEOUT));
     }
 
     public static DtoRestorePolicy defaultPolicy() {
@@ -0,0 +1,226 @@
+package api.abs;
+
+import api.abs.generated.model.DtoBackupDetails;
+import api.abs.generated.model.DtoRoutineState;
+import api.abs.generated.model.DtoRunningJob;
+import org.awaitility.core.ConditionTimeoutException;
+import utils.AerospikeLogger;
+import utils.AutoUtils;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+import static api.abs.PrometheusClient.prometheusClient;
+
+/**
+ * Polls a routine for its backups of one type without listing them on every poll. {@link #waitFor} waits for one
+ * backup with it; {@link BackupWaitCoordinator} keeps one per routine for all the threads waiting on it.
+ * <p>
+ * Every poll reads the light routine state. The backup list is fetched only when the state reports a last
+ * backup at or after the lower bound that was not listed yet, when a running job ends, or when nothing
+ * was listed for {@link #LIST_AT_LEAST_EVERY}. After a fetch, the lower bound moves up to the newest backup seen.
+ * <p>
+ * While a job runs, its {@code backup_progress_pct} gauge is sampled into a {@link ProgressTimeline}. The pause
+ * between polls is half of the time left by the progress rate (or by the service's own estimate), and grows by
+ * half when there is nothing to go by. It stays between {@link #MIN_INTERVAL} and {@link #MAX_INTERVAL}, with a
+ * 20% jitter so that parallel waits do not poll together. When a stall window is given, a running job whose
+ * progress does not move for that long fails the wait at once instead of at the timeout. The stall clock starts
+ * at the first progress sample, so a job without a readable gauge is never taken for stalled.
+ */
+final class BackupPoller {
+    private static final Duration MIN_INTERVAL = Duration.ofMillis(500);
+    private static final Duration MAX_INTERVAL = Duration.ofSeconds(10);
+    private static final Duration LIST_AT_LEAST_EVERY = Duration.ofSeconds(30);
+    private static final double BACKOFF = 1.5;
+    private static final double JITTER = 0.2;
+
+    private final String routineName;
+    private final BackupType type;
+    private final Duration stallWindow;
+    private final ProgressTimeline timeline = new ProgressTimeline();
+    private long lowerBound;
+    private long listedLast = Long.MIN_VALUE;
+    private long lastListTime = System.currentTimeMillis();
+    private boolean listNext;
+    private boolean running;
+    private long interval = MIN_INTERVAL.toMillis();
+    private String previousState;
+    private DtoRoutineState state;
+    private int polls;
+    private int lists;
+
+    /**
+     * @param stallWindow how long the progress of a running job may stand still, null not to check it
+     */
+    BackupPoller(String routineName, BackupType type, long from, Duration stallWindow) {
+        this.routineName = routineName;
+        this.type = type;
+        this.lowerBound = from;
+        this.stallWindow = stallWindow;
+    }
+
+    /**
+     * First backup (lowest creation time) created at or after {@code from} that matches the filter.
+     *
+     * @param stallWindow how long the progress of a running job may stand still, null not to check it
+     * @throws ConditionTimeoutException when there is none within the timeout, or the job stalls
+     */
+    static TrackedBackup waitFor(String routineName, BackupType type, long from, Duration timeout,
+                                 Duration stallWindow, Predicate<DtoBackupDetails> filter) {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        BackupPoller poller = new BackupPoller(routineName, type, from, stallWindow);
+        while (true) {
+            List<DtoBackupDetails> backups = poller.poll();
+            Optional<DtoBackupDetails> found = backups.stream()
+                    .filter(filter)
+                    .min(Comparator.comparing(AbsBackupApi::getCreated));
+            if (found.isPresent()) {
+                AerospikeLogger.info("Found %s backup of %s after %s".formatted(type, routineName, poller));
+                return new TrackedBackup(found.get(), poller.timeline());
+            }
+            poller.narrow(backups);
+            long now = System.currentTimeMillis();
+            if (now >= deadline) {
+                throw new ConditionTimeoutException("%s backup of %s created after %d was not created within %s (%s)"
+                        .formatted(type, routineName, from, timeout, poller));
+            }
+            AutoUtils.sleep(Math.min(poller.pause(now), deadline - now));
+        }
+    }
+
+    /**
+     * Reads the routine state, and the routine's backups from the lower bound if the state tells there may be new
+     * ones.
+     *
+     * @return the listed backups, empty when they were not listed
+     * @throws ConditionTimeoutException when the running job stalls
+     */
+    List<DtoBackupDetails> poll() {
+        polls++;
+        state = AbsBackupApi.getCurrentBackup(routineName);
+        long last = AbsBackupApi.parseDate(type == BackupType.FULL ? state.getLastFull() : state.getLastIncremental());
+        boolean wasRunning = running;
+        running = runningJob(state, type) != null;
+        boolean newBackup = last >= lowerBound && last != listedLast;
+        // a job that just ended may have added backups without moving the last backup time
+        boolean jobEnded = wasRunning && !running;
+        List<DtoBackupDetails> backups = List.of();
+        if (newBackup || jobEnded || listNext
+                || System.currentTimeMillis() - lastListTime >= LIST_AT_LEAST_EVERY.toMillis()) {
+            lists++;
+            listNext = false;
+            backups = type == BackupType.FULL
+                    ? AbsBackupApi.getFullBackupsInRange(routineName, lowerBound, null)
+                    : AbsBackupApi.getIncrementalBackupsInRange(routineName, lowerBound, null);
+            lastListTime = System.currentTimeMillis();
+            if (!backups.isEmpty() && !running) {
+                // the reported backup is listed, list again when another one is reported
+                listedLast = last;
+            }
+        }
+        if (running) {
+            long now = System.currentTimeMillis();
+            sampleProgress(routineName, type, timeline, now);
+            long percent = timeline.percent();
+            if (stallWindow != null && !timeline.isEmpty() && percent < 100
+                    && now - timeline.lastChangeMillis() >= stallWindow.toMillis()) {
+                throw new ConditionTimeoutException("%s backup of %s stalled at %d%% for %s, progress: %s"
+                        .formatted(type, routineName, percent, stallWindow, timeline));
+            }
+        }
+        return backups;
+    }
+
+    /**
+     * Moves the lower bound up to the newest of the listed backups none of which was the awaited one.
+     */
+    void narrow(List<DtoBackupDetails> unmatched) {
+        // same timestamp kept in the bound: backups of one run may appear one after the other
+        lowerBound = Math.max(lowerBound, unmatched.stream().mapToLong(AbsBackupApi::getCreated).max().orElse(lowerBound));
+    }
+
+    /**
+     * Makes the next poll list the backups from {@code from} at the latest, e.g. for a new waiter.
+     */
+    void listFrom(long from) {
+        lowerBound = Math.min(lowerBound, from);
+        listNext = true;
+    }
+
+    /**
+     * Pause before the next poll, from the progress of the running job or backing off.
+     */
+    long pause(long now) {
+        String currentState = state == null ? null : describe(state, type);
+        long estimatedEnd = state == null ? 0 : estimatedEnd(state, type, timeline);
+        interval = nextInterval(interval, estimatedEnd, !Objects.equals(currentState, previousState), now);
+        previousState = currentState;
+        long pause = jitter(interval);
+        // check a running job often enough to see it stall within the window
+        return running && stallWindow != null ? Math.min(pause, stallWindow.toMillis() / 2) : pause;
+    }
+
+    ProgressTimeline timeline() {
+        return timeline;
+    }
+
+    @Override
+    public String toString() {
+        return "%d polls and %d list calls, %s, progress: %s".formatted(polls, lists,
+                state == null ? "no state read" : describe(state, type), timeline);
+    }
+
+    private static void sampleProgress(String routineName, BackupType type, ProgressTimeline timeline, long now) {
+        try {
+            BackupProgress progress = prometheusClient.fetchBackupProgress().get(routineName);
+            if (progress != null) {
+                timeline.add(now, type == BackupType.FULL ? progress.full() : progress.incremental());
+            }
+        } catch (Exception e) {
+            // the progress only tunes the wait, the backup list decides
+            AerospikeLogger.info("Could not read backup progress of %s: %s".formatted(routineName, e.getMessage()));
+        }
+    }
+
+    private static DtoRunningJob runningJob(DtoRoutineState state, BackupType type) {
+        return type == BackupType.FULL ? state.getFull() : state.getIncremental();
+    }
+
+    private static long estimatedEnd(DtoRoutineState state, BackupType type, ProgressTimeline timeline) {
+        long fromProgress = timeline.estimatedEndMillis();
+        if (fromProgress > 0) {
+            return fromProgress;
+        }
+        DtoRunningJob job = runningJob(state, type);
+        return job == null ? 0 : AbsBackupApi.parseDate(job.getEstimatedEndTime());
+    }
+
+    private static long nextInterval(long interval, long estimatedEnd, boolean stateChanged, long now) {
+        long next;
+        if (estimatedEnd > 0) {
+            next = (estimatedEnd - now) / 2;
+        } else if (stateChanged) {
+            next = MIN_INTERVAL.toMillis();
+        } else {
+            next = (long) (interval * BACKOFF);
+        }
+        return Math.max(MIN_INTERVAL.toMillis(), Math.min(MAX_INTERVAL.toMillis(), next));
+    }
+
+    private static long jitter(long interval) {
+        return (long) (interval * (1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER)));
+    }
+
+    private static String describe(DtoRoutineState state, BackupType type) {
+        DtoRunningJob job = runningJob(state, type);
+        String last = type == BackupType.FULL ? state.getLastFull() : state.getLastIncremental();
+        return job == null
+                ? "no job running, last " + last
+                : "job %s%% done, last %s".formatted(Objects.requireNonNullElse(job.getPercentageDone(), 0), last);
+    }
+}
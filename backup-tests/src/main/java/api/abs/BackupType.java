@@ -0,0 +1,13 @@
+package api.abs;
+
+public enum BackupType {
+    FULL, INCREMENTAL;
+
+    public static BackupType fromString(String type) {
+        return switch (type.toLowerCase()) {
+            case "full" -> FULL;
+            case "incremental" -> INCREMENTAL;
+            default -> throw new IllegalArgumentException("Unknown backup type: " + type);
+        };
+    }
+}
\ No newline at end of file
@@ -0,0 +1,186 @@
+package api.abs;
+
+import api.abs.generated.model.DtoBackupDetails;
+import org.awaitility.core.ConditionTimeoutException;
+import utils.AerospikeLogger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One polling loop for all the threads waiting for backups.
+ * <pre>
+ * CompletableFuture&lt;DtoBackupDetails&gt; ns1 = backupWaits.await(routine, BackupType.FULL, "ns1", time, timeout);
+ * CompletableFuture&lt;DtoBackupDetails&gt; ns2 = backupWaits.await(routine, BackupType.FULL, "ns2", time, timeout);
+ * </pre>
+ * Each (routine, type) someone waits on is polled by one {@link BackupPoller}, at the pace it sets: its state is
+ * read, its backups listed only when the state tells there may be new ones, from the earliest time any of its
+ * waiters asked for, and every waiter whose backup is in the list is completed. A routine is no longer polled when
+ * nobody waits on it, and the loop stops when nobody waits at all.
+ */
+public final class BackupWaitCoordinator {
+    public static final BackupWaitCoordinator backupWaits = new BackupWaitCoordinator();
+
+    private static final Duration TICK = Duration.ofMillis(250);
+    private static final Duration JOIN_GRACE = Duration.ofSeconds(30);
+
+    private record Routine(String name, BackupType type) {
+    }
+
+    private record Waiter(String namespace, long after, long deadline, Duration timeout,
+                          CompletableFuture<DtoBackupDetails> future) {
+
+        boolean matches(DtoBackupDetails backup) {
+            return (namespace == null || Objects.equals(backup.getNamespace(), namespace))
+                    && AbsBackupApi.getCreated(backup) >= after;
+        }
+    }
+
+    private static final class Polled {
+        private final BackupPoller poller;
+        private final List<Waiter> waiters = new ArrayList<>();
+        private boolean newWaiters;
+        private long nextPoll;
+
+        private Polled(BackupPoller poller) {
+            this.poller = poller;
+        }
+    }
+
+    private final Map<Routine, Polled> routines = new HashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "backup-waits");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> polling;
+
+    private BackupWaitCoordinator() {
+    }
+
+    /**
+     * Completes with the first backup of the routine created at or after {@code after}, of the namespace unless it
+     * is null, or exceptionally with a {@link ConditionTimeoutException} after the timeout.
+     */
+    public synchronized CompletableFuture<DtoBackupDetails> await(String routineName, BackupType type, String namespace,
+                                                                  long after, Duration timeout) {
+        CompletableFuture<DtoBackupDetails> future = new CompletableFuture<>();
+        Polled polled = routines.computeIfAbsent(new Routine(routineName, type),
+                routine -> new Polled(new BackupPoller(routineName, type, after, null)));
+        polled.newWaiters = true;
+        polled.nextPoll = 0;
+        polled.waiters.add(new Waiter(namespace, after, System.currentTimeMillis() + timeout.toMillis(), timeout, future));
+        if (polling == null) {
+            polling = scheduler.scheduleWithFixedDelay(this::tick, 0, TICK.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        // bounds the wait even if the loop could not time it out
+        return future.orTimeout(timeout.plus(JOIN_GRACE).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Waits for the future of {@link #await}, rethrowing what it failed with.
+     */
+    public static DtoBackupDetails join(CompletableFuture<DtoBackupDetails> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new ConditionTimeoutException("Backup wait not completed by the polling loop in time");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void tick() {
+        try {
+            Map<Routine, Polled> due = new HashMap<>();
+            long now = System.currentTimeMillis();
+            synchronized (this) {
+                routines.forEach((routine, polled) -> {
+                    if (polled.nextPoll <= now) {
+                        due.put(routine, polled);
+                    }
+                });
+            }
+            due.forEach(this::poll);
+            synchronized (this) {
+                routines.values().forEach(polled -> polled.waiters.removeIf(waiter -> waiter.future().isDone()));
+                routines.values().removeIf(polled -> polled.waiters.isEmpty());
+                stopIfIdle();
+            }
+        } catch (Throwable e) {
+            // an escaping exception would cancel the loop silently and leave the waiters hanging
+            AerospikeLogger.info("Backup wait loop failed: " + e);
+            synchronized (this) {
+                routines.values().forEach(polled -> polled.waiters.forEach(waiter -> waiter.future().completeExceptionally(e)));
+                routines.clear();
+                stopIfIdle();
+            }
+        }
+    }
+
+    private void stopIfIdle() {
+        if (routines.isEmpty() && polling != null) {
+            polling.cancel(false);
+            polling = null;
+        }
+    }
+
+    private void poll(Routine routine, Polled polled) {
+        List<Waiter> waiters;
+        synchronized (this) {
+            waiters = new ArrayList<>(polled.waiters);
+            if (polled.newWaiters) {
+                polled.poller.listFrom(waiters.stream().mapToLong(Waiter::after).min().orElseThrow());
+                polled.newWaiters = false;
+            }
+        }
+        try {
+            List<DtoBackupDetails> backups = polled.poller.poll();
+            long now = System.currentTimeMillis();
+            List<DtoBackupDetails> unmatched = new ArrayList<>(backups);
+            for (Waiter waiter : waiters) {
+                Optional<DtoBackupDetails> found = backups.stream()
+                        .filter(waiter::matches)
+                        .min(Comparator.comparing(AbsBackupApi::getCreated));
+                if (found.isPresent()) {
+                    waiter.future().complete(found.get());
+                    unmatched.clear();
+                } else if (now >= waiter.deadline()) {
+                    waiter.future().completeExceptionally(new ConditionTimeoutException(
+                            "%s backup of %s%s after %s was not created within %s (%s)".formatted(routine.type(),
+                                    routine.name(), waiter.namespace() == null ? "" : ", namespace " + waiter.namespace(),
+                                    Instant.ofEpochMilli(waiter.after()), waiter.timeout(), polled.poller)));
+                }
+            }
+            synchronized (this) {
+                // a backup one waiter took may be followed by the one another waits for, keep the bound then
+                polled.poller.narrow(unmatched);
+                long nextDeadline = polled.waiters.stream().mapToLong(Waiter::deadline).min().orElse(now);
+                long nextPoll = Math.min(now + polled.poller.pause(now), nextDeadline);
+                // waiters added during the poll are served on the next tick
+                polled.nextPoll = polled.newWaiters ? 0 : nextPoll;
+            }
+        } catch (RuntimeException | AssertionError e) {
+            AerospikeLogger.info("Polling %s backups of %s failed: %s".formatted(routine.type(), routine.name(), e));
+            waiters.forEach(waiter -> waiter.future().completeExceptionally(e));
+        }
+    }
+}
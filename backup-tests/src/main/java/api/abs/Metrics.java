@@ -19,15 +19,3 @@ public record Metrics(long backupServiceDurationMillis,
                       long restoreInProgress
 ) {
 }
-
-enum BackupType {
-    FULL, INCREMENTAL;
-
-    public static BackupType fromString(String type) {
-        return switch (type.toLowerCase()) {
-            case "full" -> FULL;
-            case "incremental" -> INCREMENTAL;
-            default -> throw new IllegalArgumentException("Unknown backup type: " + type);
-        };
-    }
-}
\ No newline at end of file
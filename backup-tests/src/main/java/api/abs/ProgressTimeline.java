@@ -0,0 +1,111 @@
+package api.abs;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Progress of one backup job ({@code backup_progress_pct}) over time, one point per observed change.
+ */
+public final class ProgressTimeline {
+    private static final Duration SLOPE_WINDOW = Duration.ofMinutes(2);
+
+    public record Point(long timeMillis, long percent) {
+    }
+
+    private final List<Point> points = new ArrayList<>();
+    private long lastSampleMillis;
+
+    /**
+     * Records a sample, keeping it only if the progress moved since the previous one.
+     */
+    void add(long timeMillis, long percent) {
+        lastSampleMillis = timeMillis;
+        if (points.isEmpty() || points.get(points.size() - 1).percent() != percent) {
+            points.add(new Point(timeMillis, percent));
+        }
+    }
+
+    public List<Point> points() {
+        return Collections.unmodifiableList(points);
+    }
+
+    public boolean isEmpty() {
+        return points.isEmpty();
+    }
+
+    /**
+     * Latest sampled progress, 0 before the first sample.
+     */
+    public long percent() {
+        return points.isEmpty() ? 0 : points.get(points.size() - 1).percent();
+    }
+
+    /**
+     * Time of the last progress change, or 0 when there was no sample.
+     */
+    public long lastChangeMillis() {
+        return points.isEmpty() ? 0 : points.get(points.size() - 1).timeMillis();
+    }
+
+    /**
+     * Progress rate over the last {@link #SLOPE_WINDOW}, in percent per second, 0 when unknown.
+     */
+    public double percentPerSecond() {
+        if (points.size() < 2) {
+            return 0;
+        }
+        Point last = points.get(points.size() - 1);
+        Point reference = points.get(0);
+        for (Point point : points) {
+            if (point.timeMillis() > lastSampleMillis - SLOPE_WINDOW.toMillis()) {
+                break;
+            }
+            reference = point;
+        }
+        long millis = lastSampleMillis - reference.timeMillis();
+        return millis <= 0 ? 0 : (last.percent() - reference.percent()) * 1000.0 / millis;
+    }
+
+    /**
+     * Estimated end of the job from the recent progress rate, or 0 when it is not moving.
+     */
+    public long estimatedEndMillis() {
+        double rate = percentPerSecond();
+        if (rate <= 0) {
+            return 0;
+        }
+        long left = 100 - percent();
+        return lastSampleMillis + (long) (Math.max(0, left) * 1000 / rate);
+    }
+
+    /**
+     * Average rate between consecutive changes, in percent per minute, e.g. to see throughput vary during a backup.
+     */
+    public List<Double> segmentRates() {
+        List<Double> rates = new ArrayList<>();
+        for (int i = 1; i < points.size(); i++) {
+            Point from = points.get(i - 1);
+            Point to = points.get(i);
+            rates.add((to.percent() - from.percent()) * 60_000.0 / Math.max(1, to.timeMillis() - from.timeMillis()));
+        }
+        return rates;
+    }
+
+    @Override
+    public String toString() {
+        if (points.isEmpty()) {
+            return "no progress sampled";
+        }
+        long start = points.get(0).timeMillis();
+        StringBuilder builder = new StringBuilder();
+        for (Point point : points) {
+            if (!builder.isEmpty()) {
+                builder.append(", ");
+            }
+            builder.append(point.percent()).append("% at +").append((point.timeMillis() - start) / 1000).append('s');
+        }
+        return builder.toString();
+    }
+}
@@ -43,6 +43,13 @@ public class PrometheusClient {
         );
     }
 
+    /**
+     * Only the per-routine backup progress, without parsing the other metrics.
+     */
+    public Map<String, BackupProgress> fetchBackupProgress() {
+        return extractBackupProgressMetrics(fetchMetricsData());
+    }
+
     @SneakyThrows
     private String fetchMetricsData() {
         Request request = new Request.Builder()
@@ -0,0 +1,209 @@
+package api.abs;
+
+import api.abs.generated.model.DtoJobStatus;
+import api.abs.generated.model.DtoRestoreJobStatus;
+import org.awaitility.core.ConditionTimeoutException;
+import utils.AerospikeLogger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One polling loop for all the restore jobs tests wait for.
+ * <p>
+ * Every {@link #TICK} the status of each tracked job is read once, its read and inserted counters are recorded,
+ * and the futures of the jobs that reached the awaited status are completed with a {@link RestoreRun}. The loop
+ * stops when no job is tracked; a failure inside it fails the pending futures instead of leaving them hanging.
+ */
+public final class RestoreJobTracker {
+    public static final RestoreJobTracker restoreJobs = new RestoreJobTracker();
+
+    private static final Duration TICK = Duration.ofSeconds(1);
+    private static final Duration JOIN_GRACE = Duration.ofSeconds(30);
+
+    public record Sample(long timeMillis, long readRecords, long insertedRecords) {
+    }
+
+    /**
+     * Final status of a restore job with its counters as sampled while it ran.
+     */
+    public record RestoreRun(JobID jobId, DtoRestoreJobStatus status, List<Sample> samples) {
+
+        /**
+         * Records read per second between consecutive samples.
+         */
+        public List<Double> recordsPerSecond() {
+            List<Double> rates = new ArrayList<>();
+            for (int i = 1; i < samples.size(); i++) {
+                rates.add(rate(samples.get(i - 1), samples.get(i)));
+            }
+            return rates;
+        }
+
+        public double peakRecordsPerSecond() {
+            return recordsPerSecond().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        }
+
+        /**
+         * Records read per second from the first to the last sample.
+         */
+        public double meanRecordsPerSecond() {
+            return samples.size() < 2 ? 0 : rate(samples.get(0), samples.get(samples.size() - 1));
+        }
+
+        private static double rate(Sample from, Sample to) {
+            return (to.readRecords() - from.readRecords()) * 1000.0 / Math.max(1, to.timeMillis() - from.timeMillis());
+        }
+
+        @Override
+        public String toString() {
+            return "restore job %d %s: %d samples, mean %.0f records/s, peak %.0f records/s".formatted(jobId.value(),
+                    status.getStatus(), samples.size(), meanRecordsPerSecond(), peakRecordsPerSecond());
+        }
+    }
+
+    private record Watch(DtoJobStatus expected, long deadline, Duration timeout, CompletableFuture<RestoreRun> future) {
+    }
+
+    private static final class Job {
+        private final List<Sample> samples = new ArrayList<>();
+        private final List<Watch> watches = new ArrayList<>();
+    }
+
+    private final Map<JobID, Job> jobs = new HashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "restore-jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> polling;
+
+    private RestoreJobTracker() {
+    }
+
+    /**
+     * Completes when the job is done, or exceptionally when it fails or is not done within the timeout.
+     */
+    public CompletableFuture<RestoreRun> track(JobID jobId, Duration timeout) {
+        return watch(jobId, DtoJobStatus.JobStatusDone, timeout);
+    }
+
+    /**
+     * Completes when the job fails, or exceptionally when it is done or has not failed within the timeout.
+     */
+    public CompletableFuture<RestoreRun> trackFailure(JobID jobId, Duration timeout) {
+        return watch(jobId, DtoJobStatus.JobStatusFailed, timeout);
+    }
+
+    /**
+     * Waits for a future of this tracker, rethrowing what it failed with.
+     */
+    public static RestoreRun join(CompletableFuture<RestoreRun> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new ConditionTimeoutException("Restore job not completed by the polling loop in time");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private synchronized CompletableFuture<RestoreRun> watch(JobID jobId, DtoJobStatus expected, Duration timeout) {
+        CompletableFuture<RestoreRun> future = new CompletableFuture<>();
+        jobs.computeIfAbsent(jobId, id -> new Job()).watches
+                .add(new Watch(expected, System.currentTimeMillis() + timeout.toMillis(), timeout, future));
+        if (polling == null) {
+            polling = scheduler.scheduleWithFixedDelay(this::tick, 0, TICK.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        // bounds the wait even if the loop could not time it out
+        return future.orTimeout(timeout.plus(JOIN_GRACE).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        try {
+            List<JobID> current;
+            synchronized (this) {
+                current = new ArrayList<>(jobs.keySet());
+            }
+            current.forEach(this::poll);
+            synchronized (this) {
+                jobs.values().forEach(job -> job.watches.removeIf(watch -> watch.future().isDone()));
+                jobs.values().removeIf(job -> job.watches.isEmpty());
+                stopIfIdle();
+            }
+        } catch (Throwable e) {
+            // an escaping exception would cancel the loop silently and leave the watches hanging
+            AerospikeLogger.info("Restore job loop failed: " + e);
+            synchronized (this) {
+                jobs.values().forEach(job -> job.watches.forEach(watch -> watch.future().completeExceptionally(e)));
+                jobs.clear();
+                stopIfIdle();
+            }
+        }
+    }
+
+    private void stopIfIdle() {
+        if (jobs.isEmpty() && polling != null) {
+            polling.cancel(false);
+            polling = null;
+        }
+    }
+
+    private void poll(JobID jobId) {
+        try {
+            pollStatus(jobId);
+        } catch (RuntimeException | AssertionError e) {
+            AerospikeLogger.info("Reading the status of restore job %d failed: %s".formatted(jobId.value(), e));
+            synchronized (this) {
+                jobs.get(jobId).watches.forEach(watch -> watch.future().completeExceptionally(e));
+            }
+        }
+    }
+
+    private void pollStatus(JobID jobId) {
+        DtoRestoreJobStatus status = AbsRestoreApi.getRestoreStatus(jobId);
+        List<Watch> watches;
+        RestoreRun run;
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Job job = jobs.get(jobId);
+            job.samples.add(new Sample(now, Objects.requireNonNullElse(status.getReadRecords(), 0L),
+                    Objects.requireNonNullElse(status.getInsertedRecords(), 0L)));
+            watches = new ArrayList<>(job.watches);
+            run = new RestoreRun(jobId, status, List.copyOf(job.samples));
+        }
+        DtoJobStatus jobStatus = status.getStatus();
+        boolean terminal = jobStatus == DtoJobStatus.JobStatusDone || jobStatus == DtoJobStatus.JobStatusFailed
+                || jobStatus == DtoJobStatus.JobStatusCancelled;
+        for (Watch watch : watches) {
+            if (jobStatus == watch.expected()) {
+                watch.future().complete(run);
+            } else if (terminal) {
+                watch.future().completeExceptionally(new RuntimeException(switch (jobStatus) {
+                    case JobStatusFailed -> "Failed to restore: " + status.getError();
+                    case JobStatusDone -> "Expected to fail";
+                    default -> "Restore job %d %s".formatted(jobId.value(), jobStatus);
+                }));
+            } else if (now >= watch.deadline()) {
+                watch.future().completeExceptionally(new ConditionTimeoutException(
+                        "Restore job %d is %s, not %s within %s".formatted(jobId.value(), jobStatus, watch.expected(),
+                                watch.timeout())));
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package api.abs;
+
+import api.abs.generated.model.DtoBackupDetails;
+
+/**
+ * A backup found by a wait, with the progress of its job as sampled while waiting.
+ */
+public record TrackedBackup(DtoBackupDetails backup, ProgressTimeline timeline) {
+}
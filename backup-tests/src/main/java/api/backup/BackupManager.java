@@ -145,6 +145,7 @@ public class BackupManager {
                     .alias("Delete existing DC")
                     .until(() -> {
                         String dcResponse = AerospikeDataUtils.getDCStats(connection.getBackupDCName());
+                        // only the empty error code of "DC not found", any other error is not a deletion
                         if (StringUtils.startsWithIgnoreCase(dcResponse, "ERROR::")) {
                             AerospikeLogger.info("The source cluster " + sourceClusterName + " has been deleted.");
                         } else
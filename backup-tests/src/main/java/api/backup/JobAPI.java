@@ -7,13 +7,11 @@ import io.restassured.RestAssured;
 import io.restassured.response.Response;
 import lombok.experimental.UtilityClass;
 import org.apache.http.HttpStatus;
-import org.awaitility.Awaitility;
 import utils.AutoUtils;
 
 import java.time.Duration;
-import java.util.concurrent.Callable;
-import java.util.function.Predicate;
 
+import static api.backup.JobWatcher.jobWatcher;
 import static api.backup.dto.BackgroundJob.BackgroundJobStatus.RUNNING;
 
 @UtilityClass
@@ -23,9 +21,7 @@ public class JobAPI {
         Response response = RestUtils.printRequest(RestAssured.given(BackupBaseRequests.getBaseRequestSpec("/v1/job/resume/" + jobId)).when()).post();
         Preconditions.checkState(response.getStatusCode() == HttpStatus.SC_OK);
         RestUtils.printResponse(response, "resumeJob");
-        Callable<BackgroundJob> checkJobStatus = () -> getJob(jobId);
-        Predicate<BackgroundJob> isDone = job -> job.getStatus() != RUNNING;
-        Awaitility.waitAtMost(Duration.ofMinutes(minutesToWait)).pollInterval(Duration.ofSeconds(1)).until(checkJobStatus, isDone);
+        JobWatcher.join(jobWatcher.until(jobId, job -> job.getStatus() != RUNNING, Duration.ofMinutes(minutesToWait)));
     }
 
     public static Response cancelJob(String jobId) {
@@ -51,4 +47,24 @@ public class JobAPI {
         return null;
     }
 
+    /**
+     * One read of the job without logging.
+     *
+     * @throws IllegalStateException when the response is not a job, e.g. for an unknown id
+     */
+    public static BackgroundJob fetchJob(String jobId) {
+        Response response = RestAssured.given(BackupBaseRequests.getBaseRequestSpec("/v1/job/" + jobId)).get();
+        Preconditions.checkState(response.getStatusCode() == HttpStatus.SC_OK,
+                "Job %s read failed with %s: %s", jobId, response.getStatusCode(), response.body().asString());
+        BackgroundJob job;
+        try {
+            job = response.body().as(BackgroundJob.class);
+        } catch (Exception e) {
+            throw new IllegalStateException("Job %s read is not a job: %s".formatted(jobId, response.body().asString()), e);
+        }
+        Preconditions.checkState(job != null && job.getStatus() != null, "Job %s read has no status: %s", jobId,
+                response.body().asString());
+        return job;
+    }
+
 }
@@ -0,0 +1,233 @@
+package api.backup;
+
+import api.backup.dto.BackgroundJob;
+import api.backup.dto.BackgroundJob.BackgroundJobStatus;
+import org.awaitility.core.ConditionTimeoutException;
+import utils.AerospikeLogger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+import static api.backup.dto.BackgroundJob.BackgroundJobStatus.CANCELED;
+import static api.backup.dto.BackgroundJob.BackgroundJobStatus.DONE;
+import static api.backup.dto.BackgroundJob.BackgroundJobStatus.FAILED;
+
+/**
+ * One polling loop for all the ADR background jobs tests wait for.
+ * <p>
+ * Every {@link #TICK} each watched job is read once, however many threads wait for it, without logging the
+ * request and response; only its status changes are logged. Its processed count is recorded on every read, so that
+ * a finished wait also tells the processed records per second over time. A job that cannot be read
+ * {@link #MAX_UNREADABLE} times in a row fails its waits. The loop stops when no job is watched.
+ */
+public final class JobWatcher {
+    public static final JobWatcher jobWatcher = new JobWatcher();
+
+    private static final Duration TICK = Duration.ofSeconds(1);
+    private static final Duration JOIN_GRACE = Duration.ofSeconds(30);
+    private static final int MAX_UNREADABLE = 5;
+
+    public record Sample(long timeMillis, long processed) {
+    }
+
+    /**
+     * Last read of a job with its processed count sampled while it was watched.
+     */
+    public record JobRun(BackgroundJob job, List<Sample> samples) {
+
+        /**
+         * Records processed per second between consecutive samples.
+         */
+        public List<Double> processedPerSecond() {
+            List<Double> rates = new ArrayList<>();
+            for (int i = 1; i < samples.size(); i++) {
+                rates.add(rate(samples.get(i - 1), samples.get(i)));
+            }
+            return rates;
+        }
+
+        public double peakProcessedPerSecond() {
+            return processedPerSecond().stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        }
+
+        public double meanProcessedPerSecond() {
+            return samples.size() < 2 ? 0 : rate(samples.get(0), samples.get(samples.size() - 1));
+        }
+
+        private static double rate(Sample from, Sample to) {
+            return (to.processed() - from.processed()) * 1000.0 / Math.max(1, to.timeMillis() - from.timeMillis());
+        }
+
+        @Override
+        public String toString() {
+            return "job %d %s: %d processed, mean %.0f records/s, peak %.0f records/s".formatted(job.getId(),
+                    job.getStatus(), job.getProcessed(), meanProcessedPerSecond(), peakProcessedPerSecond());
+        }
+    }
+
+    private record Watch(Predicate<BackgroundJob> until, boolean failOnFailure, long deadline, Duration timeout,
+                         CompletableFuture<JobRun> future) {
+    }
+
+    private static final class Job {
+        private final List<Sample> samples = new ArrayList<>();
+        private final List<Watch> watches = new ArrayList<>();
+        private BackgroundJobStatus status;
+        private int unreadable;
+    }
+
+    private final Map<String, Job> jobs = new HashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "adr-jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> polling;
+
+    private JobWatcher() {
+    }
+
+    /**
+     * Completes when the job is done, or exceptionally when it fails, is canceled or is not done within the timeout.
+     */
+    public CompletableFuture<JobRun> untilDone(String jobId, Duration timeout) {
+        return watch(jobId, job -> job.getStatus() == DONE, true, timeout);
+    }
+
+    /**
+     * Completes on the first read the predicate accepts, or exceptionally after the timeout.
+     */
+    public CompletableFuture<JobRun> until(String jobId, Predicate<BackgroundJob> until, Duration timeout) {
+        return watch(jobId, until, false, timeout);
+    }
+
+    /**
+     * Waits for a future of this watcher, rethrowing what it failed with.
+     */
+    public static JobRun join(CompletableFuture<JobRun> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new ConditionTimeoutException("Job wait not completed by the polling loop in time");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof AssertionError cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private synchronized CompletableFuture<JobRun> watch(String jobId, Predicate<BackgroundJob> until,
+                                                         boolean failOnFailure, Duration timeout) {
+        CompletableFuture<JobRun> future = new CompletableFuture<>();
+        jobs.computeIfAbsent(jobId, id -> new Job()).watches
+                .add(new Watch(until, failOnFailure, System.currentTimeMillis() + timeout.toMillis(), timeout, future));
+        if (polling == null) {
+            polling = scheduler.scheduleWithFixedDelay(this::tick, 0, TICK.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        // bounds the wait even if the loop could not time it out
+        return future.orTimeout(timeout.plus(JOIN_GRACE).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        try {
+            List<String> current;
+            synchronized (this) {
+                current = new ArrayList<>(jobs.keySet());
+            }
+            current.forEach(this::poll);
+            synchronized (this) {
+                jobs.values().forEach(job -> job.watches.removeIf(watch -> watch.future().isDone()));
+                jobs.values().removeIf(job -> job.watches.isEmpty());
+                stopIfIdle();
+            }
+        } catch (Throwable e) {
+            // an escaping exception would cancel the loop silently and leave the watches hanging
+            AerospikeLogger.info("Job watch loop failed: " + e);
+            synchronized (this) {
+                jobs.values().forEach(job -> job.watches.forEach(watch -> watch.future().completeExceptionally(e)));
+                jobs.clear();
+                stopIfIdle();
+            }
+        }
+    }
+
+    private void stopIfIdle() {
+        if (jobs.isEmpty() && polling != null) {
+            polling.cancel(false);
+            polling = null;
+        }
+    }
+
+    private void poll(String jobId) {
+        BackgroundJob read = null;
+        RuntimeException readError = null;
+        try {
+            read = JobAPI.fetchJob(jobId);
+        } catch (RuntimeException e) {
+            readError = e;
+        }
+        long now = System.currentTimeMillis();
+        List<Watch> watches;
+        JobRun run = null;
+        synchronized (this) {
+            Job job = jobs.get(jobId);
+            watches = new ArrayList<>(job.watches);
+            if (read == null) {
+                job.unreadable++;
+                if (job.unreadable >= MAX_UNREADABLE) {
+                    IllegalStateException failure = new IllegalStateException(
+                            "Job %s could not be read %d times in a row".formatted(jobId, job.unreadable), readError);
+                    watches.forEach(watch -> watch.future().completeExceptionally(failure));
+                    return;
+                }
+            } else {
+                job.unreadable = 0;
+                if (read.getStatus() != job.status) {
+                    AerospikeLogger.info("Job %s %s -> %s, %s processed, %d%% done".formatted(jobId, job.status,
+                            read.getStatus(), read.getProcessed(), read.getPercentDone()));
+                    job.status = read.getStatus();
+                }
+                job.samples.add(new Sample(now, Objects.requireNonNullElse(read.getProcessed(), 0L)));
+                run = new JobRun(read, List.copyOf(job.samples));
+            }
+        }
+        for (Watch watch : watches) {
+            try {
+                check(jobId, watch, read, run, now);
+            } catch (RuntimeException | AssertionError e) {
+                // a failing predicate fails its own wait only
+                watch.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    private static void check(String jobId, Watch watch, BackgroundJob read, JobRun run, long now) {
+        if (run != null && watch.until().test(read)) {
+            watch.future().complete(run);
+        } else if (run != null && watch.failOnFailure()
+                && (read.getStatus() == FAILED || read.getStatus() == CANCELED)) {
+            watch.future().completeExceptionally(new IllegalStateException("Job %s ended %s: %s"
+                    .formatted(jobId, read.getStatus(), run)));
+        } else if (now >= watch.deadline()) {
+            watch.future().completeExceptionally(new ConditionTimeoutException("Job %s not finished within %s: %s"
+                    .formatted(jobId, watch.timeout(), run == null ? "not readable" : run)));
+        }
+    }
+}
@@ -9,29 +9,28 @@ import io.restassured.common.mapper.TypeRef;
 import io.restassured.response.Response;
 import io.restassured.specification.RequestSpecification;
 import lombok.experimental.UtilityClass;
-import org.awaitility.Awaitility;
 import utils.AerospikeLogger;
 
 import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.function.Predicate;
 
-import static api.backup.dto.BackgroundJob.BackgroundJobStatus.*;
+import static api.backup.JobWatcher.jobWatcher;
 
 @UtilityClass
 public class RestoreApi {
 
     public static BackgroundJob restoreSet(RestoreSetRequest request, long minutesToWait) {
+        return restoreSetWatched(request, minutesToWait).job();
+    }
+
+    /**
+     * Restores the set and waits for the job, returning its processed records sampled over time.
+     */
+    public static JobWatcher.JobRun restoreSetWatched(RestoreSetRequest request, long minutesToWait) {
         Response response = restore("/v1/restore/set").body(request).post();
         String restoreId = response.body().asString();
-        Callable<BackgroundJob> checkJobStatus = () -> JobAPI.getJob(restoreId);
-        Predicate<BackgroundJob> isDone = job -> job.getStatus() == DONE;
-
-        return Awaitility.waitAtMost(Duration.ofMinutes(minutesToWait))
-                .pollInterval(Duration.ofSeconds(1))
-                .until(checkJobStatus, isDone);
+        return JobWatcher.join(jobWatcher.untilDone(restoreId, Duration.ofMinutes(minutesToWait)));
     }
 
     public static BackgroundJob restoreSet(RestoreSetRequest request) {
@@ -101,13 +100,7 @@ public class RestoreApi {
         ).post();
         String restoreId = response.body().asString();
 
-        Awaitility.await("Until restore is done")
-                .atMost(Duration.ofMinutes(2))
-                .pollInterval(Duration.ofSeconds(5))
-                .failFast(() -> JobAPI.getJob(restoreId).getStatus().equals(FAILED))
-                .until(() -> JobAPI.getJob(restoreId).getStatus().equals(DONE));
-
-        return JobAPI.getJob(restoreId);
+        return JobWatcher.join(jobWatcher.untilDone(restoreId, Duration.ofMinutes(2))).job();
     }
 
     public static BackgroundJob restoreNamespace(long initialTimeStamp, String clusterName, String namespace) {
@@ -1,12 +1,29 @@
 package utils;
 
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.policy.ClientPolicy;
 import utils.abs.AbsRunner;
 import utils.abs.TlsHandler;
+import utils.aerospike.abs.AerospikeDataUtils;
+import utils.aerospike.load.AsyncBulkLoader;
+import utils.aerospike.load.LoadReport;
+import utils.aerospike.load.ObjectSpec;
+import utils.aerospike.load.RecordGenerator;
+import utils.aerospike.load.WorkloadProfile;
 import utils.cliBackup.CliBackupRunner;
+import utils.metrics.AsBenchTelemetry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 import static utils.AutoUtils.isRunningOnGCP;
 
 public class ASBench {
+    // asbench defaults, used by load() when the corresponding option was not set
+    private static final long DEFAULT_START_KEY = 1;
+    private static final long DEFAULT_KEYS = 1_000_000;
+    private static final String DEFAULT_OBJECT_SPEC = "I4";
+
     private Integer duration;
     private final String namespace;
     private final String set;
@@ -19,6 +36,11 @@ public class ASBench {
     private Integer threads = 20;
     private Integer batchSize = 100;
     private Boolean sendKey = false;
+    private String dataType;
+    private WorkloadProfile workloadProfile;
+    private long seed;
+    private boolean latency;
+    private final AsBenchTelemetry telemetry = new AsBenchTelemetry();
 
     private ASBench(String namespace, String set) {
         this.namespace = namespace;
@@ -74,6 +96,45 @@ public class ASBench {
         return this;
     }
 
+    /**
+     * In-process only: generate records for one of the {@link utils.constants.AsDataTypes} profiles.
+     */
+    public ASBench dataType(String dataType) {
+        this.dataType = dataType;
+        return this;
+    }
+
+    /**
+     * In-process only: generate records shaped by a (possibly custom) workload profile.
+     */
+    public ASBench workloadProfile(WorkloadProfile workloadProfile) {
+        this.workloadProfile = workloadProfile;
+        return this;
+    }
+
+    /**
+     * In-process only: seed of the generated record contents, the same seed and key always give the same record.
+     */
+    public ASBench seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Makes asbench print per-second write latency percentiles, collected into {@link #telemetry()}.
+     */
+    public ASBench latency() {
+        this.latency = true;
+        return this;
+    }
+
+    /**
+     * Per-second throughput/latency of the current or last run, filled while asbench is running.
+     */
+    public AsBenchTelemetry telemetry() {
+        return telemetry;
+    }
+
     public ASBench sendKey(boolean sendKey) {
         this.sendKey = sendKey;
         return this;
@@ -111,6 +172,9 @@ public class ASBench {
         if (sendKey) {
             commandBuilder.append("--send-key ");
         }
+        if (latency) {
+            commandBuilder.append("--latency --percentiles %s ".formatted(AsBenchTelemetry.PERCENTILES_ARGUMENT));
+        }
         AerospikeLogger.info("TESTED_PRODUCT=" + ConfigParametersHandler.getParameter("TESTED_PRODUCT"));
         if (isRunningOnGCP()) {
             if (ConfigParametersHandler.getParameter("TESTED_PRODUCT").equals("cli_backup")) {
@@ -146,7 +210,7 @@ public class ASBench {
         return commandBuilder.toString();
     }
 
-    public void run() {
+    public AsBenchTelemetry run() {
         if (isRunningOnGCP()) {
             port = 4333;
         }
@@ -155,10 +219,57 @@ public class ASBench {
 
         AerospikeLogger.info("Running asbench with command: " + command);
 
+        String output = AutoUtils.runBashCommand(command, telemetry::accept);
         if (isRunningOnGCP()) {
-            AerospikeLogger.info(AutoUtils.runBashCommand(command));
+            AerospikeLogger.info(output);
+        }
+        AerospikeLogger.info("asbench write throughput: " + telemetry);
+        return telemetry;
+    }
+
+    /**
+     * Runs asbench in the background, e.g. as load while a backup is running.
+     * {@link #telemetry()} can be queried while it runs.
+     */
+    public CompletableFuture<AsBenchTelemetry> start() {
+        return CompletableFuture.supplyAsync(this::run, task -> new Thread(task, "asbench").start());
+    }
+
+    /**
+     * Runs the same insert workload in-process instead of spawning asbench, against the abs/cli source cluster.
+     */
+    public LoadReport load() {
+        ClientPolicy clientPolicy = ConfigParametersHandler.getParameter("TESTED_PRODUCT").equals("cli_backup")
+                ? CliBackupRunner.CLIENT_POLICY_SOURCE
+                : AbsRunner.CLIENT_POLICY_SOURCE;
+        return load(clientPolicy, AerospikeDataUtils.getSourceClient());
+    }
+
+    public LoadReport load(ClientPolicy clientPolicy, IAerospikeClient connectedClient) {
+        RecordGenerator generator;
+        if (workloadProfile != null) {
+            generator = workloadProfile.generator(seed);
+        } else if (dataType != null) {
+            generator = RecordGenerator.forProfile(dataType, seed);
+        } else if (recordSize != null) {
+            generator = ObjectSpec.parse("B" + recordSize, seed);
+        } else if (recordType != null) {
+            generator = ObjectSpec.parse(recordType, seed);
         } else {
-            AutoUtils.runBashCommand(command);
+            generator = ObjectSpec.parse(DEFAULT_OBJECT_SPEC, seed);
+        }
+
+        AsyncBulkLoader.Plan plan = new AsyncBulkLoader.Plan(namespace, set,
+                startKey == null ? DEFAULT_START_KEY : startKey,
+                keys == null ? DEFAULT_KEYS : keys,
+                batchSize == null ? 1 : batchSize,
+                throughput == null ? 0 : throughput,
+                duration == null ? null : Duration.ofSeconds(duration),
+                sendKey,
+                generator);
+
+        try (AsyncBulkLoader loader = AsyncBulkLoader.forCluster(clientPolicy, connectedClient, threads)) {
+            return loader.load(plan);
         }
     }
-}
\ No newline at end of file
+}
@@ -13,6 +13,7 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static utils.files.PropertiesHandler.QA_ENV_PROPERTY;
@@ -61,6 +62,30 @@ public class AutoUtils {
         return null;
     }
 
+    /**
+     * Runs the command and hands every output line (stdout and stderr) to {@code onLine} as soon as it is printed.
+     */
+    public static String runBashCommand(String command, Consumer<String> onLine) {
+        StringBuilder result = new StringBuilder();
+        try {
+            Process proc = new ProcessBuilder(command.trim().split("\\s+")).redirectErrorStream(true).start();
+            try (BufferedReader out = new BufferedReader(new InputStreamReader(proc.getInputStream()))) {
+                String line;
+                while ((line = out.readLine()) != null) {
+                    onLine.accept(line);
+                    result.append(line).append("\n");
+                }
+            }
+            proc.waitFor();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+        return result.toString();
+    }
+
     public static String runBashCommand(String[] command, boolean printLog) {
         return runBashCommand(command, printLog, false);
     }
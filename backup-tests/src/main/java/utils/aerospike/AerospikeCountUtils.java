@@ -3,24 +3,63 @@ package utils.aerospike;
 import com.aerospike.client.IAerospikeClient;
 import com.aerospike.client.Info;
 import com.aerospike.client.cluster.Node;
+import com.aerospike.client.cluster.Partition;
 import com.aerospike.client.policy.InfoPolicy;
 import com.aerospike.client.policy.QueryDuration;
 import com.aerospike.client.policy.QueryPolicy;
+import com.aerospike.client.query.PartitionFilter;
 import com.aerospike.client.query.RecordSet;
 import com.aerospike.client.query.Statement;
 import lombok.experimental.UtilityClass;
-import org.apache.commons.lang3.StringUtils;
-import org.awaitility.Awaitility;
 import utils.AerospikeLogger;
+import utils.info.InfoTokenizer;
+import utils.info.NamespaceStats;
+import utils.info.SetStats;
 
-import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
 
 @UtilityClass
 public class AerospikeCountUtils {
     private static final int POLICY_TIMEOUT = 8_000;
+    private static final int PARTITION_CHUNKS = 64;
+    private static final int COUNT_PARALLELISM = 16;
+    private static final int MAX_COUNT_ATTEMPTS = 3;
+
+    public enum CountMode {
+        /**
+         * From the per-node "sets" statistics divided by the effective replication factor, no record is read.
+         * Falls back to {@link #EXACT} while partitions are migrating, when the statistics double count.
+         */
+        FAST,
+        /**
+         * Bin-less partition queries over all partitions in parallel.
+         */
+        EXACT
+    }
+
+    /**
+     * Exact object count of each partition of a set (or of the whole namespace when the set is null).
+     */
+    public record PartitionCounts(String namespace, String setName, long[] counts) {
+        public long count(int partitionId) {
+            return counts[partitionId];
+        }
+
+        public long total() {
+            return Arrays.stream(counts).sum();
+        }
+
+        public int nonEmptyPartitions() {
+            return (int) Arrays.stream(counts).filter(count -> count > 0).count();
+        }
+    }
 
     public static int getNamespaceObjectCount(IAerospikeClient client, String namespace) {
         Node[] allNodes = client.getNodes();
@@ -29,39 +68,98 @@ public class AerospikeCountUtils {
             return 0;
         }
 
-        int totalSetObjectCount = Arrays.stream(allNodes)
-                .mapToInt(node -> getRecordsCountForNamespace(node, namespace))
-                .sum();
+        int totalSetObjectCount = Math.toIntExact(InfoExecutor.request(client, "namespace/" + namespace).sum("master_objects"));
 
         AerospikeLogger.info("Total number of object in NS " + namespace + " in all the nodes: " + totalSetObjectCount);
         return totalSetObjectCount;
     }
 
+    /**
+     * Exact record count of a set, see {@link #countSetObjects} for a long count or the fast mode.
+     */
     public static int getSetObjectCount(IAerospikeClient client, String setName, String namespace) {
-        AerospikeLogger.info("Starting getSetObjectCount");
+        return Math.toIntExact(countSetObjects(client, setName, namespace, CountMode.EXACT));
+    }
+
+    public static long countSetObjects(IAerospikeClient client, String setName, String namespace, CountMode mode) {
+        if (mode == CountMode.FAST && setName != null) {
+            if (!isMigrating(client, namespace)) {
+                long count = getSetObjectCounts(client, namespace).getOrDefault(setName, 0L);
+                AerospikeLogger.info("Record count from info in set %s (namespace %s): %d".formatted(setName, namespace, count));
+                return count;
+            }
+            AerospikeLogger.info("Partitions of %s are migrating, counting set %s exactly".formatted(namespace, setName));
+        }
+        long count = countSetObjectsByPartition(client, setName, namespace).total();
+        AerospikeLogger.info("Accurate record count in set %s (namespace %s): %d"
+                .formatted(setName, namespace, count));
+        return count;
+    }
+
+    /**
+     * Counts every partition with bin-less queries over 64 partition ranges, 16 ranges at a time.
+     * A range that fails is counted again with a LONG_RELAX_AP query.
+     */
+    public static PartitionCounts countSetObjectsByPartition(IAerospikeClient client, String setName, String namespace) {
+        long start = System.currentTimeMillis();
+        int chunkSize = Node.PARTITIONS / PARTITION_CHUNKS;
+        long[] counts = new long[Node.PARTITIONS];
+        ExecutorService executor = Executors.newFixedThreadPool(COUNT_PARALLELISM);
+        try {
+            List<Future<long[]>> chunks = new ArrayList<>(PARTITION_CHUNKS);
+            for (int begin = 0; begin < Node.PARTITIONS; begin += chunkSize) {
+                int first = begin;
+                chunks.add(executor.submit(() -> countPartitionRange(client, setName, namespace, first, chunkSize)));
+            }
+            for (int chunk = 0; chunk < chunks.size(); chunk++) {
+                System.arraycopy(chunks.get(chunk).get(), 0, counts, chunk * chunkSize, chunkSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while counting records in set " + setName, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to count records in set " + setName, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        PartitionCounts partitionCounts = new PartitionCounts(namespace, setName, counts);
+        AerospikeLogger.info("Counted %d records in %d partitions of set %s (namespace %s) in %d ms"
+                .formatted(partitionCounts.total(), partitionCounts.nonEmptyPartitions(), setName, namespace,
+                        System.currentTimeMillis() - start));
+        return partitionCounts;
+    }
+
+    private static long[] countPartitionRange(IAerospikeClient client, String setName, String namespace, int begin, int count) {
         Statement statement = new Statement();
         statement.setNamespace(namespace);
         statement.setSetName(setName);
-
-        QueryPolicy shortPolicy = buildQueryPolicy(QueryDuration.SHORT);
-        QueryPolicy longPolicy = buildQueryPolicy(QueryDuration.LONG_RELAX_AP);
-
-        int count = 0;
         try {
-            count = countRecords(client, shortPolicy, statement);
+            return countPartitionRange(client, buildQueryPolicy(QueryDuration.SHORT), statement, begin, count);
         } catch (Exception e) {
-            AerospikeLogger.info("Short query failed, retrying with LONG_RELAX_AP: " + e.getMessage());
-            try {
-                count = countRecords(client, longPolicy, statement);
-            } catch (Exception ex) {
-                AerospikeLogger.info("Long query also failed: " + ex.getMessage());
-                throw new RuntimeException("Failed to count records in set " + setName, ex);
+            AerospikeLogger.info("Short query of partitions %d-%d failed, retrying with LONG_RELAX_AP: %s"
+                    .formatted(begin, begin + count - 1, e.getMessage()));
+            return countPartitionRange(client, buildQueryPolicy(QueryDuration.LONG_RELAX_AP), statement, begin, count);
+        }
+    }
+
+    private static long[] countPartitionRange(IAerospikeClient client, QueryPolicy policy, Statement statement,
+                                              int begin, int count) {
+        long[] counts = new long[count];
+        try (RecordSet rs = client.queryPartitions(policy, statement, PartitionFilter.range(begin, count))) {
+            while (rs.next()) {
+                counts[Partition.getPartitionId(rs.getKey().digest) - begin]++;
             }
         }
+        return counts;
+    }
 
-        AerospikeLogger.info("Accurate record count in set %s (namespace %s): %d"
-                .formatted(setName, namespace, count));
-        return count;
+    /**
+     * True while any node still has partitions to send or receive for the namespace.
+     */
+    public static boolean isMigrating(IAerospikeClient client, String namespace) {
+        return InfoExecutor.request(client, "namespace/" + namespace).byNode().values().stream()
+                .map(NamespaceStats::parse)
+                .anyMatch(NamespaceStats::isMigrating);
     }
 
     private static QueryPolicy buildQueryPolicy(QueryDuration duration) {
@@ -75,16 +173,6 @@ public class AerospikeCountUtils {
         return policy;
     }
 
-    private static int countRecords(IAerospikeClient client, QueryPolicy policy, Statement statement) {
-        int count = 0;
-        try (RecordSet rs = client.query(policy, statement)) {
-            while (rs.next()) {
-                count++;
-            }
-        }
-        return count;
-    }
-
 
     public static List<String> getNodeAddresses(IAerospikeClient client) {
         List<String> nodeAddresses = Arrays.stream(client.getNodes())
@@ -95,136 +183,127 @@ public class AerospikeCountUtils {
         return nodeAddresses;
     }
 
+    /**
+     * Exact number of namespace records the node at {@code ipAndPort} is master of.
+     * Counts the whole namespace, use {@link #getObjectCountsForNodes} for several nodes.
+     */
     public static int getObjectCountForNode(IAerospikeClient client, String namespace, String ipAndPort) {
-        Node[] allNodes = client.getNodes();
-        if (allNodes.length == 0) {
+        return getObjectCountsForNodes(client, namespace, List.of(ipAndPort)).get(ipAndPort);
+    }
+
+    /**
+     * Exact number of namespace records each node at the given {@code ip:port} is master of, from one count,
+     * 0 for an address that is not in the cluster.
+     */
+    public static Map<String, Integer> getObjectCountsForNodes(IAerospikeClient client, String namespace,
+                                                               List<String> ipAndPorts) {
+        AerospikeLogger.info("Getting logical (master) object count for namespace '%s' on nodes %s"
+                .formatted(namespace, ipAndPorts));
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        if (client.getNodes().length == 0) {
             AerospikeLogger.info("No nodes in cluster");
-            return 0;
+            ipAndPorts.forEach(ipAndPort -> counts.put(ipAndPort, 0));
+            return counts;
         }
-
-        AerospikeLogger.info("Getting logical (master) object count for namespace '%s' on node %s"
-                .formatted(namespace, ipAndPort));
-
-        return Arrays.stream(allNodes)
-                .filter(node -> {
-                    String nodeAddress = node.getHost().name + ":" + node.getHost().port;
-                    return nodeAddress.equals(ipAndPort);
-                })
-                .findFirst()
-                .map(node -> {
-                    int rawCount = getRecordsCountForNamespace(node, namespace);
-
-                    AerospikeLogger.info("Logical (master_objects) count on node %s: %d"
-                            .formatted(ipAndPort, rawCount));
-
-                    return rawCount;
-                })
-                .orElseGet(() -> {
-                    AerospikeLogger.info("Node with address %s not found in the cluster.".formatted(ipAndPort));
-                    return 0;
-                });
+        Map<Node, Long> byNode = countMasterObjectsByNode(client, null, namespace);
+        for (String ipAndPort : ipAndPorts) {
+            counts.put(ipAndPort, masterCountOfNode(byNode,
+                    node -> (node.getHost().name + ":" + node.getHost().port).equals(ipAndPort), ipAndPort));
+        }
+        return counts;
     }
 
+    /**
+     * Exact number of set records the node with IP {@code nodeIp} is master of.
+     */
     public static int getSetObjectCountForNode(IAerospikeClient client, String setName, String namespace, String
             nodeIp) {
-        Node[] allNodes = client.getNodes();
-        if (allNodes.length == 0) {
+        AerospikeLogger.info("Getting master object count for set '%s' in namespace '%s' on node %s"
+                .formatted(setName, namespace, nodeIp));
+        if (client.getNodes().length == 0) {
             AerospikeLogger.info("No nodes in cluster");
             return 0;
         }
+        return masterCountOfNode(countMasterObjectsByNode(client, setName, namespace),
+                node -> node.getHost().name.equals(nodeIp), nodeIp);
+    }
 
-        int replicationFactor = replicationFactor(allNodes[0], namespace);
-        int effectiveReplicationFactor = Math.min(allNodes.length, replicationFactor);
-
-        AerospikeLogger.info("Getting object count for set '%s' in namespace '%s' on node %s (effective replication factor=%d)"
-                .formatted(setName, namespace, nodeIp, effectiveReplicationFactor));
+    /**
+     * Exact record count of a set (or of the namespace when the set is null) per master node: partition counts
+     * summed over the partitions each node is master of. Counted again if the partition map changed meanwhile.
+     *
+     * @throws IllegalStateException when the partition map still changed during the last count
+     */
+    public static Map<Node, Long> countMasterObjectsByNode(IAerospikeClient client, String setName, String namespace) {
+        for (int attempt = 1; ; attempt++) {
+            PartitionOwnership ownership = PartitionOwnership.fetch(client, namespace);
+            PartitionCounts partitionCounts = countSetObjectsByPartition(client, setName, namespace);
+            boolean current = ownership.isCurrent(client);
+            if (!current && attempt == MAX_COUNT_ATTEMPTS) {
+                throw new IllegalStateException("Partition map of %s changed during each of %d counts, master counts are not exact"
+                        .formatted(namespace, MAX_COUNT_ATTEMPTS));
+            }
+            if (current) {
+                Map<Node, Long> counts = ownership.masterCounts(partitionCounts);
+                AerospikeLogger.info("Master record counts of set %s (namespace %s): %s".formatted(setName, namespace,
+                        counts.entrySet().stream()
+                                .map(entry -> entry.getKey() + "=" + entry.getValue())
+                                .toList()));
+                return counts;
+            }
+            AerospikeLogger.info("Partition map of %s changed while counting, counting again".formatted(namespace));
+        }
+    }
 
-        return Arrays.stream(allNodes)
-                .filter(node -> node.getHost().name.equals(nodeIp))
+    private static int masterCountOfNode(Map<Node, Long> counts, Predicate<Node> isNode, String nodeAddress) {
+        return counts.entrySet().stream()
+                .filter(entry -> isNode.test(entry.getKey()))
                 .findFirst()
-                .map(node -> {
-                    int count = getCountInSet(node, setName, namespace);
-                    AerospikeLogger.info("Raw object count for set '%s' on node %s: %d"
-                            .formatted(setName, nodeIp, count));
-                    int adjustedCount = count / effectiveReplicationFactor;
-                    AerospikeLogger.info("Adjusted (divided by replication factor) object count for set '%s' on node %s: %d"
-                            .formatted(setName, nodeIp, adjustedCount));
-                    return adjustedCount;
+                .map(entry -> {
+                    AerospikeLogger.info("Master object count on node %s: %d".formatted(nodeAddress, entry.getValue()));
+                    return Math.toIntExact(entry.getValue());
                 })
                 .orElseGet(() -> {
-                    AerospikeLogger.info("Node with IP %s not found in the cluster.".formatted(nodeIp));
+                    AerospikeLogger.info("Node with address %s not found in the cluster.".formatted(nodeAddress));
                     return 0;
                 });
     }
 
-
-    public static int replicationFactor(Node node, String namespace) {
-        String request = sendInfoRequest(node, "get-config:context=namespace;id=" + namespace);
-        String factor = StringUtils.substringBetween(request, "replication-factor=", ";");
-        if (factor == null) {
-            return 1;
+    /**
+     * Object count of every non-empty set in the namespace, from the info "sets" statistics of all nodes
+     * divided by the effective replication factor, so without scanning any record.
+     */
+    public static Map<String, Long> getSetObjectCounts(IAerospikeClient client, String namespace) {
+        Node[] allNodes = client.getNodes();
+        Map<String, Long> counts = new TreeMap<>();
+        if (allNodes.length == 0) {
+            AerospikeLogger.info("No nodes in cluster");
+            return counts;
         }
-        return Integer.parseInt(factor);
-    }
-
-    private static int getCountInSet(Node node, String setName, String namespace) {
-        String nodeInfo = sendInfoRequest(node, "sets");
-        String setObjectCountInNode = StringUtils.substringBetween(nodeInfo, "ns=" + namespace + ":set=" + setName + ":objects=", ":");
-        if (setObjectCountInNode == null) {
-            return 0;
+        int effectiveReplicationFactor = Math.min(allNodes.length, replicationFactor(allNodes[0], namespace));
+        for (String response : InfoExecutor.request(client, "sets").byNode().values()) {
+            for (SetStats set : SetStats.parseAll(response, namespace)) {
+                if (set.set() != null) {
+                    counts.merge(set.set(), set.objects(), Long::sum);
+                }
+            }
         }
-        return Integer.parseInt(setObjectCountInNode);
+        counts.replaceAll((set, objects) -> objects / effectiveReplicationFactor);
+        counts.values().removeIf(objects -> objects == 0);
+        AerospikeLogger.info("Set object counts in namespace %s: %s".formatted(namespace, counts));
+        return counts;
     }
 
-    private static int getRecordsCountForNamespace(Node node, String namespace) {
-        String nodeInfo = sendInfoRequest(node, "namespace/" + namespace);
-        String setObjectCountInNode = StringUtils.substringBetween(nodeInfo, "master_objects=", ";");
-        if (setObjectCountInNode == null) {
-            return 0;
-        }
-        return Integer.parseInt(setObjectCountInNode);
+    public static int replicationFactor(Node node, String namespace) {
+        String request = sendInfoRequest(node, "get-config:context=namespace;id=" + namespace);
+        return Math.toIntExact(InfoTokenizer.longValue(request, "replication-factor", 1));
     }
 
     private static int getCountInNS(Node node, String namespace) {
         String nodeInfo = sendInfoRequest(node, "sets");
-        return Arrays.stream(nodeInfo.split(";")) // ; separates info on different namespaces
-                .filter(it -> it.contains("ns=" + namespace + ":") || it.contains("ns=" + namespace + ";"))
-                .flatMap(it -> Arrays.stream(it.split(":"))) // : separates properties of a namespace
-                .filter(it -> it.startsWith("objects="))
-                .map(it -> it.replace("objects=", ""))
-                .mapToInt(Integer::parseInt)
-                .sum();
-    }
-
-    public static void waitForNamespaceTruncate(IAerospikeClient client, String namespace) {
-        Awaitility.await()
-                .pollDelay(Duration.ofSeconds(1))
-                .pollInterval(Duration.ofSeconds(10))
-                .atMost(1, TimeUnit.MINUTES)
-                .alias("Truncate namespace " + namespace)
-                .until(() -> isNamespaceEmpty(client, namespace));
-        AerospikeLogger.info("Namespace: " + namespace + " truncated.");
-    }
-
-    public static void waitForSetTruncate(IAerospikeClient client, String namespace, String set) {
-        Awaitility.await()
-                .pollDelay(Duration.ofMillis(500))
-                .pollInterval(Duration.ofSeconds(3))
-                .atMost(30, TimeUnit.SECONDS)
-                .alias("Truncate namespace " + namespace + " set " + set)
-                .until(() -> isSetEmpty(client, namespace, set));
-        AerospikeLogger.info("Namespace: " + namespace + ", set: " + set + " truncated.");
-    }
-
-    private static boolean isNamespaceEmpty(IAerospikeClient client, String namespace) {
-        QueryPolicy queryPolicy = new QueryPolicy();
-        queryPolicy.includeBinData = false;
-        queryPolicy.shortQuery = true;
-        Statement statement = new Statement();
-        statement.setNamespace(namespace);
-        statement.setMaxRecords(1);
-        RecordSet rs = client.query(queryPolicy, statement);
-        return !rs.iterator().hasNext();
+        return Math.toIntExact(SetStats.parseAll(nodeInfo, namespace).stream()
+                .mapToLong(SetStats::objects)
+                .sum());
     }
 
     public static boolean isSetEmpty(IAerospikeClient client, String namespace, String set) {
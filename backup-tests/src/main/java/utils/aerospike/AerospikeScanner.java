@@ -8,89 +8,108 @@ import com.aerospike.client.ScanCallback;
 import com.aerospike.client.policy.ScanPolicy;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Scans the digests of a set or namespace into one {@link DigestStore} per set, about 24 bytes per key,
+ * with all nodes scanned in parallel.
+ */
 public class AerospikeScanner implements ScanCallback {
+    // ConcurrentHashMap does not take null keys, records without a set are kept under ""
+    private static final String NO_SET = "";
 
-    private Map<String, Metrics> setMap = new HashMap<>();
-
-    private final List<Key> allKeys = new ArrayList<>();
-    private Key randomKey;
+    private Map<String, DigestStore> sets = new ConcurrentHashMap<>();
+    private String namespace;
+    private String setName;
     private long count;
 
     public void scan(IAerospikeClient client, String namespace, String setName) {
-        allKeys.clear();
-        setMap = new HashMap<>();
-        List<String> nodeList = client.getNodeNames();
-
-        for (String nodeName : nodeList) {
-            client.scanNode(new ScanPolicy(), nodeName, namespace, setName, this);
-
-            for (Map.Entry<String, Metrics> entry : setMap.entrySet()) {
-                entry.getValue().count = 0;
-            }
-        }
-        if (setMap.get(setName) == null) {
-            count = 0;
-        } else {
-            count = setMap.get(setName).total;
-        }
+        scan(client, namespace, setName, false);
+        count = setName == null ? totalCount() : digests(setName).size();
     }
 
+    /**
+     * Scans only the keys that were stored with the record (sent with "send key").
+     */
     public List<Key> scanKeys(IAerospikeClient client, String namespace, String setName) {
-        allKeys.clear();
-        setMap = new HashMap<>();
-        List<String> nodeList = client.getNodeNames();
-
-        for (String nodeName : nodeList) {
-            ScanPolicy scanPolicy = new ScanPolicy();
-            scanPolicy.includeBinData = false;
+        scan(client, namespace, setName, true);
+        return getAllKeys();
+    }
 
-            client.scanNode(scanPolicy, nodeName, namespace, setName, (key, record) -> {
-                if (key.userKey != null) {
-                    allKeys.add(key);
+    private void scan(IAerospikeClient client, String namespace, String setName, boolean storedKeysOnly) {
+        this.namespace = namespace;
+        this.setName = setName;
+        sets = new ConcurrentHashMap<>();
+        ScanPolicy scanPolicy = new ScanPolicy();
+        scanPolicy.includeBinData = false;
+        scanPolicy.concurrentNodes = true;
+        client.scanAll(scanPolicy, namespace, setName, storedKeysOnly
+                ? (key, record) -> {
+                    if (key.userKey != null) {
+                        scanCallback(key, record);
+                    }
                 }
-            });
-        }
+                : this);
+        sets.values().forEach(DigestStore::sort);
+    }
 
-        return allKeys;
+    /**
+     * Digests of one set of the last scan, empty when the set had no records.
+     */
+    public DigestStore digests(String set) {
+        return sets.getOrDefault(set == null ? NO_SET : set, new DigestStore());
     }
 
-    public List<Key> getAllKeys(){
-        return allKeys;
+    /**
+     * Keys of the last scan, with their namespace, set name and digest but no user key.
+     * Prefer {@link #digests} for large sets.
+     */
+    public List<Key> getAllKeys() {
+        List<Key> keys = new ArrayList<>();
+        sets.forEach((set, digests) -> keys.addAll(digests.keys(namespace, set.equals(NO_SET) ? null : set)));
+        return keys;
     }
 
-    public Key getRandomKey(){
-        return randomKey;
+    /**
+     * A key picked at random from the last scan, null when it found no record.
+     */
+    public Key getRandomKey() {
+        List<String> nonEmptySets = sets.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .toList();
+        if (nonEmptySets.isEmpty()) {
+            return null;
+        }
+        Random random = new Random();
+        String set = setName != null ? setName : nonEmptySets.get(random.nextInt(nonEmptySets.size()));
+        List<Key> sample = digests(set).sample(1, random, namespace, NO_SET.equals(set) ? null : set);
+        return sample.isEmpty() ? null : sample.get(0);
     }
 
-    public long getCount(){
+    public long getCount() {
         return count;
     }
 
-    @Override
-    public void scanCallback(Key key, Record record) throws AerospikeException {
-        Metrics metrics = setMap.get(key.setName);
-
-        if (metrics == null) {
-            metrics = new Metrics();
-        }
-        metrics.count++;
-        metrics.total++;
-        setMap.put(key.setName, metrics);
-        // might want to create a list of key and wait for backup for all of them
-        randomKey = key;
-        allKeys.add(key);
+    /**
+     * Number of scanned records of each set, records without a set are counted under "".
+     */
+    public Map<String, Long> getSetCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        sets.forEach((set, digests) -> counts.put(set, digests.size()));
+        return counts;
     }
 
-    private static class Metrics {
-        public long count = 0;
-        public long total = 0;
+    private long totalCount() {
+        return sets.values().stream().mapToLong(DigestStore::size).sum();
     }
 
-    public Map<String, Metrics> getSetMap() {
-        return setMap;
+    @Override
+    public void scanCallback(Key key, Record record) throws AerospikeException {
+        sets.computeIfAbsent(key.setName == null ? NO_SET : key.setName, ignored -> new DigestStore()).add(key.digest);
     }
 }
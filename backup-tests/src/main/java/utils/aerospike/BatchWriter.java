@@ -0,0 +1,301 @@
+package utils.aerospike;
+
+import com.aerospike.client.*;
+import com.aerospike.client.Record;
+import com.aerospike.client.policy.BatchPolicy;
+import com.aerospike.client.policy.BatchWritePolicy;
+import com.aerospike.client.policy.WritePolicy;
+import utils.AerospikeLogger;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Writes many key/bins pairs with batch writes and verifies a sample of them with a single batch read.
+ * <pre>
+ * BatchWriter.on(client)
+ *         .add(key1, bin1)
+ *         .add(key2, bin2)
+ *         .verifySample(10)
+ *         .write();
+ * </pre>
+ */
+public class BatchWriter {
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int DEFAULT_CONCURRENCY = 4;
+    private static final int DEFAULT_VERIFY_SAMPLE = 10;
+
+    private final IAerospikeClient client;
+    private final List<Key> keys = new ArrayList<>();
+    private final List<Bin[]> bins = new ArrayList<>();
+    private final BatchPolicy batchPolicy;
+    private BatchWritePolicy writePolicy = new BatchWritePolicy();
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int concurrency = DEFAULT_CONCURRENCY;
+    private int verifySample = DEFAULT_VERIFY_SAMPLE;
+    private volatile AerospikeException batchError;
+
+    private BatchWriter(IAerospikeClient client) {
+        this.client = client;
+        this.batchPolicy = client.copyBatchPolicyDefault();
+    }
+
+    public static BatchWriter on(IAerospikeClient client) {
+        return new BatchWriter(client);
+    }
+
+    public BatchWriter add(Key key, Bin... recordBins) {
+        keys.add(key);
+        bins.add(recordBins);
+        return this;
+    }
+
+    public BatchWriter batchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+        return this;
+    }
+
+    public BatchWriter concurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+        return this;
+    }
+
+    /**
+     * Number of written records to read back and compare, 0 disables verification.
+     */
+    public BatchWriter verifySample(int verifySample) {
+        this.verifySample = Math.max(0, verifySample);
+        return this;
+    }
+
+    public BatchWriter verifyAll() {
+        this.verifySample = Integer.MAX_VALUE;
+        return this;
+    }
+
+    public BatchWriter policy(BatchWritePolicy writePolicy) {
+        this.writePolicy = writePolicy;
+        return this;
+    }
+
+    /**
+     * Applies the record level settings of a single record write policy (ttl, send key, exists action, txn, ...)
+     * and its timeouts and retries to the batch calls.
+     */
+    public BatchWriter policy(WritePolicy policy) {
+        if (policy == null) {
+            return this;
+        }
+        BatchWritePolicy batchWritePolicy = new BatchWritePolicy();
+        batchWritePolicy.filterExp = policy.filterExp;
+        batchWritePolicy.recordExistsAction = policy.recordExistsAction;
+        batchWritePolicy.commitLevel = policy.commitLevel;
+        batchWritePolicy.generationPolicy = policy.generationPolicy;
+        batchWritePolicy.generation = policy.generation;
+        batchWritePolicy.expiration = policy.expiration;
+        batchWritePolicy.durableDelete = policy.durableDelete;
+        batchWritePolicy.sendKey = policy.sendKey;
+        this.writePolicy = batchWritePolicy;
+        this.batchPolicy.txn = policy.txn;
+        this.batchPolicy.socketTimeout = policy.socketTimeout;
+        this.batchPolicy.totalTimeout = policy.totalTimeout;
+        this.batchPolicy.maxRetries = policy.maxRetries;
+        this.batchPolicy.sleepBetweenRetries = policy.sleepBetweenRetries;
+        return this;
+    }
+
+    public Result write() {
+        if (keys.isEmpty()) {
+            return new Result(0, List.of(), ResultCode.OK, null, 0, List.of(), System.currentTimeMillis() - 1);
+        }
+        long start = System.currentTimeMillis();
+        List<BatchRecord> records = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            records.add(new BatchWrite(writePolicy, keys.get(i), putAll(bins.get(i))));
+        }
+
+        List<List<BatchRecord>> batches = new ArrayList<>();
+        for (int from = 0; from < records.size(); from += batchSize) {
+            batches.add(records.subList(from, Math.min(records.size(), from + batchSize)));
+        }
+        runBatches(batches);
+        long writeTime = System.currentTimeMillis() - 1;
+
+        List<BatchRecord> failed = records.stream()
+                .filter(record -> record.resultCode != ResultCode.OK)
+                .toList();
+        List<Key> failedKeys = failed.stream().map(record -> record.key).toList();
+        int failureResultCode = failed.isEmpty() ? ResultCode.OK : failed.get(0).resultCode;
+        int[] sample = sample(records);
+        List<Key> mismatchedKeys = verify(sample);
+
+        Result result = new Result(records.size() - failedKeys.size(), failedKeys, failureResultCode, batchError,
+                sample.length, mismatchedKeys, writeTime);
+        AerospikeLogger.info("Batch wrote %d/%d records to %s in %d batches (%d failed), verified %d sampled records (%d mismatched) in %d ms"
+                .formatted(result.written(), records.size(), describeSets(), batches.size(), failedKeys.size(),
+                        sample.length, mismatchedKeys.size(), System.currentTimeMillis() - start));
+        return result;
+    }
+
+    private void runBatches(List<List<BatchRecord>> batches) {
+        if (batches.size() == 1 || concurrency == 1) {
+            batches.forEach(this::runBatch);
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(concurrency, batches.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (List<BatchRecord> batch : batches) {
+                futures.add(executor.submit(() -> runBatch(batch)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Batch write failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void runBatch(List<BatchRecord> batch) {
+        try {
+            client.operate(batchPolicy, batch);
+        } catch (AerospikeException e) {
+            // records that were not answered keep a non OK result code and are reported as failed
+            AerospikeLogger.info("Batch of %d records failed: %s".formatted(batch.size(), e.getMessage()));
+            batchError = e;
+        }
+    }
+
+    private int[] sample(List<BatchRecord> records) {
+        int[] written = new int[records.size()];
+        int count = 0;
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).resultCode == ResultCode.OK) {
+                written[count++] = i;
+            }
+        }
+        int sampleSize = Math.min(verifySample, count);
+        // partial Fisher-Yates: the first sampleSize entries become a uniform sample
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < sampleSize; i++) {
+            int j = i + random.nextInt(count - i);
+            int tmp = written[i];
+            written[i] = written[j];
+            written[j] = tmp;
+        }
+        return Arrays.copyOf(written, sampleSize);
+    }
+
+    private List<Key> verify(int[] sample) {
+        if (sample.length == 0) {
+            return List.of();
+        }
+        Key[] sampleKeys = Arrays.stream(sample).mapToObj(keys::get).toArray(Key[]::new);
+        Record[] readBack = client.get(batchPolicy, sampleKeys);
+
+        List<Key> mismatched = new ArrayList<>();
+        for (int i = 0; i < sample.length; i++) {
+            if (!matches(bins.get(sample[i]), readBack[i])) {
+                mismatched.add(sampleKeys[i]);
+            }
+        }
+        return mismatched;
+    }
+
+    private static boolean matches(Bin[] expected, Record record) {
+        if (record == null) {
+            return false;
+        }
+        for (Bin bin : expected) {
+            if (!Objects.equals(canonical(bin.value), canonical(record.bins.get(bin.name)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The value as the server returns it, comparable with equals at any depth: integers as Long, floats as Double
+     * and blobs compared by content.
+     */
+    private static Object canonical(Object value) {
+        if (value instanceof Value wrapped) {
+            return canonical(wrapped.getObject());
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float number) {
+            return number.doubleValue();
+        }
+        if (value instanceof byte[] bytes) {
+            return ByteBuffer.wrap(bytes);
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(BatchWriter::canonical).toList();
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new HashMap<>();
+            map.forEach((key, element) -> copy.put(canonical(key), canonical(element)));
+            return copy;
+        }
+        return value;
+    }
+
+    private static Operation[] putAll(Bin[] bins) {
+        Operation[] operations = new Operation[bins.length];
+        for (int i = 0; i < bins.length; i++) {
+            operations[i] = Operation.put(bins[i]);
+        }
+        return operations;
+    }
+
+    private String describeSets() {
+        return keys.stream()
+                .map(key -> key.namespace + "." + key.setName)
+                .distinct()
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * @param failureResultCode result code of the first failed record, {@link ResultCode#OK} if none failed
+     * @param batchError        exception thrown by a whole batch, if any
+     * @param writeTime         same meaning as the timestamp returned by the single record put helpers:
+     *                          a millisecond just before all writes were acknowledged
+     */
+    public record Result(int written,
+                         List<Key> failedKeys,
+                         int failureResultCode,
+                         AerospikeException batchError,
+                         int verified,
+                         List<Key> mismatchedKeys,
+                         long writeTime) {
+
+        public boolean isVerified() {
+            return failedKeys.isEmpty() && mismatchedKeys.isEmpty();
+        }
+
+        public Result throwIfFailed() {
+            if (batchError != null) {
+                throw batchError;
+            }
+            if (!failedKeys.isEmpty()) {
+                throw new AerospikeException(failureResultCode, "Failed to write %d record(s), first failed key: %s"
+                        .formatted(failedKeys.size(), failedKeys.get(0)));
+            }
+            if (!mismatchedKeys.isEmpty()) {
+                throw new IllegalStateException("%d of %d verified record(s) read back different, first mismatched key: %s"
+                        .formatted(mismatchedKeys.size(), verified, mismatchedKeys.get(0)));
+            }
+            return this;
+        }
+    }
+}
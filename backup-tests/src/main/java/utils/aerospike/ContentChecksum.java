@@ -0,0 +1,237 @@
+package utils.aerospike;
+
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Record;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.cluster.Partition;
+import com.aerospike.client.policy.QueryDuration;
+import com.aerospike.client.policy.QueryPolicy;
+import com.aerospike.client.query.PartitionFilter;
+import com.aerospike.client.query.RecordSet;
+import com.aerospike.client.query.Statement;
+import utils.AerospikeLogger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Order-independent 128-bit checksum of the contents of a namespace or set, per set and per partition.
+ * <p>
+ * Every record is hashed (MD5) over its digest and its bins sorted by name, optionally its expiration, but never
+ * its generation, and the record hashes are summed modulo 2^128. The sum does not depend on the order records are
+ * read in, so two scans of the same data match bit for bit, e.g. before a backup and after its restore.
+ * Unordered maps are hashed as the sum of their entry hashes, so their stored order does not matter either.
+ * <p>
+ * Partitions are queried in 64 ranges, 16 at a time, and no record is kept on the client.
+ */
+public final class ContentChecksum {
+    private static final int PARTITION_CHUNKS = 64;
+    private static final int CHECKSUM_PARALLELISM = 16;
+
+    private final String namespace;
+    private final String setName;
+    private final boolean includesTtl;
+    private final Checksum[] partitions;
+    private final Map<String, Checksum> sets;
+
+    /**
+     * Sum of record hashes modulo 2^128 and the number of records summed.
+     */
+    public record Checksum(long high, long low, long records) {
+        public static final Checksum EMPTY = new Checksum(0, 0, 0);
+
+        public Checksum add(Checksum other) {
+            long sumLow = low + other.low;
+            long carry = Long.compareUnsigned(sumLow, low) < 0 ? 1 : 0;
+            return new Checksum(high + other.high + carry, sumLow, records + other.records);
+        }
+
+        @Override
+        public String toString() {
+            return "%016x%016x (%d records)".formatted(high, low, records);
+        }
+    }
+
+    private ContentChecksum(String namespace, String setName, boolean includesTtl, Checksum[] partitions,
+                            Map<String, Checksum> sets) {
+        this.namespace = namespace;
+        this.setName = setName;
+        this.includesTtl = includesTtl;
+        this.partitions = partitions;
+        this.sets = sets;
+    }
+
+    /**
+     * Checksum of a set, or of the whole namespace when the set is null, ignoring TTLs.
+     */
+    public static ContentChecksum compute(IAerospikeClient client, String namespace, String setName) {
+        return compute(client, namespace, setName, false);
+    }
+
+    /**
+     * @param includeTtl also hash the expiration (void time) of every record, which restore keeps unless told otherwise
+     */
+    public static ContentChecksum compute(IAerospikeClient client, String namespace, String setName, boolean includeTtl) {
+        long start = System.currentTimeMillis();
+        int chunkSize = Node.PARTITIONS / PARTITION_CHUNKS;
+        Checksum[] partitions = new Checksum[Node.PARTITIONS];
+        Map<String, Checksum> sets = new TreeMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(CHECKSUM_PARALLELISM);
+        try {
+            List<Future<RangeChecksum>> chunks = new ArrayList<>(PARTITION_CHUNKS);
+            for (int begin = 0; begin < Node.PARTITIONS; begin += chunkSize) {
+                int first = begin;
+                chunks.add(executor.submit(() -> checksumRange(client, namespace, setName, includeTtl, first, chunkSize)));
+            }
+            for (int chunk = 0; chunk < chunks.size(); chunk++) {
+                RangeChecksum range = chunks.get(chunk).get();
+                System.arraycopy(range.partitions(), 0, partitions, chunk * chunkSize, chunkSize);
+                range.sets().forEach((set, checksum) -> sets.merge(set, checksum, Checksum::add));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while computing the checksum of " + describe(namespace, setName), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to compute the checksum of " + describe(namespace, setName), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        ContentChecksum checksum = new ContentChecksum(namespace, setName, includeTtl, partitions, sets);
+        AerospikeLogger.info("Checksum of %s: %s in %d ms".formatted(describe(namespace, setName), checksum.total(),
+                System.currentTimeMillis() - start));
+        return checksum;
+    }
+
+    public String namespace() {
+        return namespace;
+    }
+
+    public String setName() {
+        return setName;
+    }
+
+    public boolean includesTtl() {
+        return includesTtl;
+    }
+
+    public Checksum total() {
+        Checksum total = Checksum.EMPTY;
+        for (Checksum partition : partitions) {
+            total = total.add(partition);
+        }
+        return total;
+    }
+
+    public Checksum partition(int partitionId) {
+        return partitions[partitionId];
+    }
+
+    /**
+     * Checksum of one set, {@link Checksum#EMPTY} for a set without records. Records without a set are under "".
+     */
+    public Checksum set(String set) {
+        return sets.getOrDefault(set, Checksum.EMPTY);
+    }
+
+    public Map<String, Checksum> sets() {
+        return Collections.unmodifiableMap(sets);
+    }
+
+    public long records() {
+        return total().records();
+    }
+
+    /**
+     * Ids of the partitions whose contents differ from the other checksum, to narrow down a mismatch.
+     */
+    public List<Integer> mismatchedPartitions(ContentChecksum other) {
+        List<Integer> mismatched = new ArrayList<>();
+        for (int partitionId = 0; partitionId < partitions.length; partitionId++) {
+            if (!partitions[partitionId].equals(other.partitions[partitionId])) {
+                mismatched.add(partitionId);
+            }
+        }
+        return mismatched;
+    }
+
+    public boolean matches(ContentChecksum other) {
+        return mismatchedPartitions(other).isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "%s: %s sets=%s".formatted(describe(namespace, setName), total(), sets);
+    }
+
+    private record RangeChecksum(Checksum[] partitions, Map<String, Checksum> sets) {
+    }
+
+    private static RangeChecksum checksumRange(IAerospikeClient client, String namespace, String setName,
+                                               boolean includeTtl, int begin, int count) {
+        Statement statement = new Statement();
+        statement.setNamespace(namespace);
+        statement.setSetName(setName);
+        try {
+            return checksumRange(client, buildQueryPolicy(QueryDuration.LONG), statement, includeTtl, begin, count);
+        } catch (Exception e) {
+            // a partial range cannot be resumed without counting some records twice, so the range starts over
+            AerospikeLogger.info("Checksum query of partitions %d-%d failed, retrying with LONG_RELAX_AP: %s"
+                    .formatted(begin, begin + count - 1, e.getMessage()));
+            return checksumRange(client, buildQueryPolicy(QueryDuration.LONG_RELAX_AP), statement, includeTtl, begin, count);
+        }
+    }
+
+    private static RangeChecksum checksumRange(IAerospikeClient client, QueryPolicy policy, Statement statement,
+                                               boolean includeTtl, int begin, int count) {
+        long[][] partitions = new long[count][];
+        Map<String, long[]> sets = new HashMap<>();
+        RecordHasher hasher = new RecordHasher();
+        try (RecordSet rs = client.queryPartitions(policy, statement, PartitionFilter.range(begin, count))) {
+            while (rs.next()) {
+                byte[] digest = rs.getKey().digest;
+                Record record = rs.getRecord();
+                hasher.hashRecord(digest, record, includeTtl);
+                int index = Partition.getPartitionId(digest) - begin;
+                if (partitions[index] == null) {
+                    partitions[index] = new long[3];
+                }
+                hasher.addTo(partitions[index]);
+                String set = rs.getKey().setName == null ? "" : rs.getKey().setName;
+                hasher.addTo(sets.computeIfAbsent(set, ignored -> new long[3]));
+            }
+        }
+        Checksum[] checksums = new Checksum[count];
+        for (int i = 0; i < count; i++) {
+            checksums[i] = toChecksum(partitions[i]);
+        }
+        Map<String, Checksum> setChecksums = new HashMap<>();
+        sets.forEach((set, sum) -> setChecksums.put(set, toChecksum(sum)));
+        return new RangeChecksum(checksums, setChecksums);
+    }
+
+    private static Checksum toChecksum(long[] sum) {
+        return sum == null ? Checksum.EMPTY : new Checksum(sum[0], sum[1], sum[2]);
+    }
+
+    private static QueryPolicy buildQueryPolicy(QueryDuration duration) {
+        QueryPolicy policy = new QueryPolicy();
+        policy.expectedDuration = duration;
+        policy.maxRetries = 5;
+        policy.sleepBetweenRetries = 1000;
+        policy.socketTimeout = 30_000;
+        policy.totalTimeout = 0;
+        return policy;
+    }
+
+    private static String describe(String namespace, String setName) {
+        return setName == null ? "namespace " + namespace : "set %s (namespace %s)".formatted(setName, namespace);
+    }
+}
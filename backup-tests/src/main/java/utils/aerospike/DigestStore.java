@@ -0,0 +1,283 @@
+package utils.aerospike;
+
+import com.aerospike.client.Key;
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * Compact set of record digests for scans of whole namespaces: every 20-byte digest is packed into three longs
+ * (24 bytes) of large {@code long[]} pages instead of a {@link Key} object per record.
+ * <p>
+ * {@link #add} may be called from many scan threads at once. {@link #sort}, which also removes duplicates,
+ * and the queries must only be used once all adds completed; {@link #contains} sorts on first use.
+ */
+public final class DigestStore {
+    private static final int DIGEST_SIZE = 20;
+    private static final int WORDS = 3;
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_ENTRIES = 1 << PAGE_SHIFT; // 1.5 MB per page
+    private static final int MAX_PAGES = 4096; // up to 268M digests
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final AtomicReferenceArray<long[]> pages = new AtomicReferenceArray<>(MAX_PAGES);
+    private final AtomicLong reserved = new AtomicLong();
+    private volatile long size;
+    private volatile boolean sorted = true;
+
+    public void add(byte[] digest) {
+        Preconditions.checkArgument(digest.length == DIGEST_SIZE, "Digest must be %s bytes, got %s", DIGEST_SIZE, digest.length);
+        long index = reserved.getAndIncrement();
+        int page = (int) (index >>> PAGE_SHIFT);
+        Preconditions.checkState(page < MAX_PAGES, "Digest store is full");
+        long[] words = pages.get(page);
+        if (words == null) {
+            pages.compareAndSet(page, null, new long[PAGE_ENTRIES * WORDS]);
+            words = pages.get(page);
+        }
+        int offset = (int) (index & (PAGE_ENTRIES - 1)) * WORDS;
+        words[offset] = readLong(digest, 0);
+        words[offset + 1] = readLong(digest, 8);
+        words[offset + 2] = (long) readInt(digest, 16) << 32;
+        sorted = false;
+    }
+
+    public void add(Key key) {
+        add(key.digest);
+    }
+
+    public long size() {
+        return sorted ? size : reserved.get();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Sorts the digests in unsigned byte order and drops duplicates: an in-place radix pass on the first byte,
+     * then the 256 buckets are sorted in parallel.
+     */
+    public synchronized void sort() {
+        if (sorted) {
+            return;
+        }
+        long count = reserved.get();
+        long[] bucketStarts = new long[257];
+        for (long i = 0; i < count; i++) {
+            bucketStarts[firstByte(i) + 1]++;
+        }
+        for (int bucket = 0; bucket < 256; bucket++) {
+            bucketStarts[bucket + 1] += bucketStarts[bucket];
+        }
+        long[] next = bucketStarts.clone();
+        for (int bucket = 0; bucket < 256; bucket++) {
+            while (next[bucket] < bucketStarts[bucket + 1]) {
+                int target = firstByte(next[bucket]);
+                if (target == bucket) {
+                    next[bucket]++;
+                } else {
+                    swap(next[bucket], next[target]++);
+                }
+            }
+        }
+        IntStream.range(0, 256).parallel()
+                .forEach(bucket -> quickSort(bucketStarts[bucket], bucketStarts[bucket + 1] - 1));
+        long unique = 0;
+        for (long i = 0; i < count; i++) {
+            if (unique == 0 || compare(i, unique - 1) != 0) {
+                copy(i, unique++);
+            }
+        }
+        reserved.set(unique);
+        size = unique;
+        sorted = true;
+    }
+
+    public boolean contains(byte[] digest) {
+        sort();
+        long w0 = readLong(digest, 0);
+        long w1 = readLong(digest, 8);
+        long w2 = (long) readInt(digest, 16) << 32;
+        long low = 0;
+        long high = size - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            int order = compare(middle, w0, w1, w2);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean contains(Key key) {
+        return contains(key.digest);
+    }
+
+    public byte[] digest(long index) {
+        Preconditions.checkArgument(index >= 0 && index < size(), "Index %s out of %s digests", index, size());
+        long[] words = page(index);
+        int offset = offset(index);
+        byte[] digest = new byte[DIGEST_SIZE];
+        writeLong(digest, 0, words[offset]);
+        writeLong(digest, 8, words[offset + 1]);
+        long last = words[offset + 2] >>> 32;
+        for (int i = 0; i < 4; i++) {
+            digest[16 + i] = (byte) (last >>> (24 - 8 * i));
+        }
+        return digest;
+    }
+
+    public Key key(long index, String namespace, String setName) {
+        return new Key(namespace, digest(index), setName, null);
+    }
+
+    /**
+     * Up to {@code count} distinct keys picked uniformly at random.
+     */
+    public List<Key> sample(int count, Random random, String namespace, String setName) {
+        long total = size();
+        List<Key> keys = new ArrayList<>((int) Math.min(count, total));
+        if (count >= total) {
+            for (long i = 0; i < total; i++) {
+                keys.add(key(i, namespace, setName));
+            }
+            return keys;
+        }
+        // Floyd's algorithm: distinct indexes without shuffling the whole range
+        Set<Long> picked = new HashSet<>();
+        for (long j = total - count; j < total; j++) {
+            long index = random.nextLong(j + 1);
+            picked.add(picked.contains(index) ? j : index);
+        }
+        for (long index : picked) {
+            keys.add(key(index, namespace, setName));
+        }
+        return keys;
+    }
+
+    public List<Key> keys(String namespace, String setName) {
+        long total = size();
+        Preconditions.checkState(total < Integer.MAX_VALUE, "Too many digests (%s) for a list of keys", total);
+        List<Key> keys = new ArrayList<>((int) total);
+        for (long i = 0; i < total; i++) {
+            keys.add(key(i, namespace, setName));
+        }
+        return keys;
+    }
+
+    private long[] page(long index) {
+        return pages.get((int) (index >>> PAGE_SHIFT));
+    }
+
+    private static int offset(long index) {
+        return (int) (index & (PAGE_ENTRIES - 1)) * WORDS;
+    }
+
+    private int firstByte(long index) {
+        return (int) (page(index)[offset(index)] >>> 56);
+    }
+
+    private int compare(long a, long b) {
+        long[] words = page(b);
+        int offset = offset(b);
+        return compare(a, words[offset], words[offset + 1], words[offset + 2]);
+    }
+
+    private int compare(long index, long w0, long w1, long w2) {
+        long[] words = page(index);
+        int offset = offset(index);
+        int order = Long.compareUnsigned(words[offset], w0);
+        if (order == 0) {
+            order = Long.compareUnsigned(words[offset + 1], w1);
+        }
+        if (order == 0) {
+            order = Long.compareUnsigned(words[offset + 2], w2);
+        }
+        return order;
+    }
+
+    private void swap(long a, long b) {
+        long[] pageA = page(a);
+        long[] pageB = page(b);
+        int offsetA = offset(a);
+        int offsetB = offset(b);
+        for (int i = 0; i < WORDS; i++) {
+            long word = pageA[offsetA + i];
+            pageA[offsetA + i] = pageB[offsetB + i];
+            pageB[offsetB + i] = word;
+        }
+    }
+
+    private void copy(long from, long to) {
+        if (from != to) {
+            System.arraycopy(page(from), offset(from), page(to), offset(to), WORDS);
+        }
+    }
+
+    private void quickSort(long low, long high) {
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            long middle = (low + high) >>> 1;
+            // median of three moved to high, used as the pivot
+            if (compare(middle, low) < 0) {
+                swap(middle, low);
+            }
+            if (compare(high, low) < 0) {
+                swap(high, low);
+            }
+            if (compare(middle, high) < 0) {
+                swap(middle, high);
+            }
+            long store = low;
+            for (long i = low; i < high; i++) {
+                if (compare(i, high) < 0) {
+                    swap(i, store++);
+                }
+            }
+            swap(store, high);
+            if (store - low < high - store) {
+                quickSort(low, store - 1);
+                low = store + 1;
+            } else {
+                quickSort(store + 1, high);
+                high = store - 1;
+            }
+        }
+        for (long i = low + 1; i <= high; i++) {
+            for (long j = i; j > low && compare(j, j - 1) < 0; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16 | (bytes[offset + 2] & 0xFF) << 8
+                | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static void writeLong(byte[] bytes, int offset, long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            bytes[offset + i] = (byte) (value >>> (56 - 8 * i));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package utils.aerospike;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Info;
+import com.aerospike.client.async.EventLoops;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.listener.InfoListener;
+import com.aerospike.client.policy.InfoPolicy;
+import lombok.experimental.UtilityClass;
+import utils.AerospikeLogger;
+import utils.info.InfoTokenizer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sends an info command to all nodes of a cluster at once instead of one node after the other, so a cluster-wide
+ * call takes about one round trip whatever the number of nodes.
+ * <p>
+ * The nodes are asked with the client's async info calls when the client has event loops. The test clients are
+ * built without, so they fall back to blocking calls on a daemon pool, one thread per node.
+ * <p>
+ * {@link #cached} keeps the responses for a short time, for information that does not change within one check
+ * (namespaces, configuration) or for checks polled in a tight loop. A command sent with {@link #request} or
+ * {@link #requestInOrder} that changes the cluster drops the cached responses it may affect: those of its
+ * namespace, and those not tied to a namespace. Read-only commands drop nothing.
+ */
+@UtilityClass
+public class InfoExecutor {
+    private static final int POLICY_TIMEOUT = 8_000;
+    private static final Duration DEFAULT_MAX_AGE = Duration.ofSeconds(2);
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "info-fan-out");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<CacheKey, CachedResponses> CACHE = new ConcurrentHashMap<>();
+    private static final Set<String> READ_ONLY = Set.of("namespaces", "namespace", "sets", "sindex", "sindex-list",
+            "bins", "statistics", "get-config", "get-stats", "partition-generation", "replicas", "replicas-master",
+            "build", "node", "service", "services", "cluster-stable", "latencies", "version", "edition");
+    private static final Pattern NAMESPACE = Pattern.compile("(?:^[a-z-]+/|[:;](?:id|ns|namespace)=)([^;/:]+)");
+
+    /**
+     * Responses of every node to one command, in the order of {@link IAerospikeClient#getNodes()}.
+     */
+    public record Responses(String command, Map<Node, String> byNode) {
+
+        /**
+         * Response of any node, for cluster-wide information such as namespaces or configuration.
+         */
+        public String any() {
+            return byNode.values().stream().findFirst().orElse("");
+        }
+
+        /**
+         * Sum over the nodes of a {@code name=value} statistic of a ;-separated response, nodes without it count 0.
+         */
+        public long sum(String statistic) {
+            return byNode.values().stream()
+                    .mapToLong(response -> InfoTokenizer.longValue(response, statistic, 0))
+                    .sum();
+        }
+
+        /**
+         * Nodes that answered anything but "ok", e.g. to a set-config command.
+         */
+        public List<Node> notOk() {
+            return byNode.entrySet().stream()
+                    .filter(entry -> !"ok".equals(entry.getValue()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        }
+
+        public boolean allOk() {
+            return notOk().isEmpty();
+        }
+
+        public int nodes() {
+            return byNode.size();
+        }
+    }
+
+    private record CacheKey(IAerospikeClient client, String command) {
+    }
+
+    private record CachedResponses(Responses responses, long fetchedAtNanos) {
+    }
+
+    public static Responses request(IAerospikeClient client, String command) {
+        return requestInOrder(client, command).get(0);
+    }
+
+    /**
+     * Sends the commands to every node one after the other, all nodes in parallel.
+     *
+     * @return the responses to each command, in the order of the commands
+     */
+    public static List<Responses> requestInOrder(IAerospikeClient client, String... commands) {
+        for (String command : commands) {
+            if (!isReadOnly(command)) {
+                String namespace = namespaceOf(command);
+                CACHE.keySet().removeIf(key -> key.client() == client && affects(namespace, key.command()));
+            }
+        }
+        return fanOut(client, commands);
+    }
+
+    public static Responses cached(IAerospikeClient client, String command) {
+        return cached(client, command, DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * Responses to a read-only command, reused while they are not older than {@code maxAge}.
+     */
+    public static Responses cached(IAerospikeClient client, String command, Duration maxAge) {
+        CacheKey key = new CacheKey(client, command);
+        CachedResponses cached = CACHE.get(key);
+        if (cached != null && System.nanoTime() - cached.fetchedAtNanos() < maxAge.toNanos()) {
+            return cached.responses();
+        }
+        Responses responses = fanOut(client, command).get(0);
+        CACHE.put(key, new CachedResponses(responses, System.nanoTime()));
+        return responses;
+    }
+
+    public static void invalidate(IAerospikeClient client) {
+        CACHE.keySet().removeIf(key -> key.client() == client);
+    }
+
+    /**
+     * Whether the command only reads, e.g. {@code namespace/test} or {@code get-config:context=service}.
+     */
+    private static boolean isReadOnly(String command) {
+        return READ_ONLY.contains(command.split("[:/]", 2)[0]);
+    }
+
+    /**
+     * Namespace the command is about, from its path or its id, ns or namespace parameter, null if none.
+     */
+    private static String namespaceOf(String command) {
+        Matcher matcher = NAMESPACE.matcher(command);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static boolean affects(String changedNamespace, String cachedCommand) {
+        String cachedNamespace = namespaceOf(cachedCommand);
+        return changedNamespace == null || cachedNamespace == null || changedNamespace.equals(cachedNamespace);
+    }
+
+    private static List<Responses> fanOut(IAerospikeClient client, String... commands) {
+        long start = System.currentTimeMillis();
+        Node[] nodes = client.getNodes();
+        InfoPolicy infoPolicy = new InfoPolicy(client.getInfoPolicyDefault());
+        infoPolicy.timeout = POLICY_TIMEOUT;
+        EventLoops eventLoops = client.getCluster().eventLoops;
+        List<CompletableFuture<String[]>> futures = Arrays.stream(nodes)
+                .map(node -> eventLoops == null
+                        ? CompletableFuture.supplyAsync(() -> {
+                            String[] responses = new String[commands.length];
+                            for (int i = 0; i < commands.length; i++) {
+                                responses[i] = Info.request(infoPolicy, node, commands[i]);
+                            }
+                            return responses;
+                        }, EXECUTOR)
+                        : requestAsync(client, eventLoops, infoPolicy, node, commands))
+                .toList();
+        List<Map<Node, String>> byCommand = new ArrayList<>(commands.length);
+        for (int i = 0; i < commands.length; i++) {
+            byCommand.add(new LinkedHashMap<>());
+        }
+        try {
+            for (int n = 0; n < nodes.length; n++) {
+                String[] responses = futures.get(n).join();
+                for (int i = 0; i < commands.length; i++) {
+                    byCommand.get(i).put(nodes[n], responses[i]);
+                }
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtimeException ? runtimeException : e;
+        }
+        List<Responses> result = new ArrayList<>(commands.length);
+        for (int i = 0; i < commands.length; i++) {
+            result.add(new Responses(commands[i], Collections.unmodifiableMap(byCommand.get(i))));
+        }
+        AerospikeLogger.info("Info %s on %d node(s) in %d ms".formatted(Arrays.toString(commands), nodes.length,
+                System.currentTimeMillis() - start));
+        return result;
+    }
+
+    /**
+     * Sends the commands to the node one after the other, each once the previous one answered: one async call
+     * per command, as a command may be repeated (e.g. a generation read before and after another command).
+     */
+    private static CompletableFuture<String[]> requestAsync(IAerospikeClient client, EventLoops eventLoops,
+                                                            InfoPolicy infoPolicy, Node node, String... commands) {
+        String[] responses = new String[commands.length];
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < commands.length; i++) {
+            int index = i;
+            chain = chain.thenCompose(ignored -> {
+                CompletableFuture<Void> answered = new CompletableFuture<>();
+                client.info(eventLoops.next(), new InfoListener() {
+                    @Override
+                    public void onSuccess(Map<String, String> map) {
+                        responses[index] = map.getOrDefault(commands[index], "");
+                        answered.complete(null);
+                    }
+
+                    @Override
+                    public void onFailure(AerospikeException e) {
+                        answered.completeExceptionally(e);
+                    }
+                }, infoPolicy, node, commands[index]);
+                return answered;
+            });
+        }
+        return chain.thenApply(ignored -> responses);
+    }
+}
@@ -0,0 +1,197 @@
+package utils.aerospike;
+
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.cluster.Partitions;
+import com.aerospike.client.policy.QueryPolicy;
+import com.aerospike.client.query.PartitionFilter;
+import com.aerospike.client.query.RecordSet;
+import com.aerospike.client.query.Statement;
+import com.google.common.base.Preconditions;
+import lombok.experimental.UtilityClass;
+import utils.AerospikeLogger;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random keys of a set or namespace without scanning it: the keys wanted are spread evenly over all the
+ * partitions, and each partition is read with short, {@code maxRecords}-bounded queries from which its share is
+ * kept by reservoir sampling.
+ * <p>
+ * A partition is read from a random digest in it, wrapping around to its start, so that the keys are not only
+ * those of its first records when it holds more than the records read from it ({@value #RECORDS_PER_PARTITION}).
+ * The partitions are read {@value #SAMPLE_PARALLELISM} at a time, in rounds: what the partitions holding fewer
+ * records than their share could not give is asked from the partitions not read yet, then from those that were
+ * not read to the end.
+ */
+@UtilityClass
+public class KeySampler {
+    private static final int RECORDS_PER_PARTITION = 64;
+    private static final int SAMPLE_PARALLELISM = 16;
+
+    /**
+     * {@code count} distinct random keys of a set (or of the namespace when the set is null), fewer if it does not
+     * hold that many records.
+     */
+    public static List<Key> sample(IAerospikeClient client, String namespace, String setName, int count) {
+        List<Integer> partitions = new ArrayList<>(Node.PARTITIONS);
+        for (int partitionId = 0; partitionId < Node.PARTITIONS; partitionId++) {
+            partitions.add(partitionId);
+        }
+        return sample(client, namespace, setName, count, partitions);
+    }
+
+    /**
+     * Random keys of the records the given node is master of.
+     */
+    public static List<Key> sample(IAerospikeClient client, Node node, String namespace, String setName, int count) {
+        Partitions partitionMap = client.getCluster().partitionMap.get(namespace);
+        Preconditions.checkArgument(partitionMap != null, "Namespace %s is not in the partition map", namespace);
+        List<Integer> partitions = new ArrayList<>();
+        for (int partitionId = 0; partitionId < Node.PARTITIONS; partitionId++) {
+            if (node.equals(partitionMap.replicas[0].get(partitionId))) {
+                partitions.add(partitionId);
+            }
+        }
+        return sample(client, namespace, setName, count, partitions);
+    }
+
+    public static Key randomKey(IAerospikeClient client, String namespace, String setName) {
+        List<Key> keys = sample(client, namespace, setName, 1);
+        Preconditions.checkState(!keys.isEmpty(), "No record to sample in %s.%s", namespace, setName);
+        return keys.get(0);
+    }
+
+    private static List<Key> sample(IAerospikeClient client, String namespace, String setName, int count,
+                                    List<Integer> partitions) {
+        Preconditions.checkArgument(count >= 0, "count must not be negative, got %s", count);
+        long start = System.currentTimeMillis();
+        // the remainder of count / partitions goes to random partitions
+        Collections.shuffle(partitions, ThreadLocalRandom.current());
+        QueryPolicy policy = new QueryPolicy();
+        policy.includeBinData = false;
+        policy.shortQuery = true;
+
+        List<Key> keys = new ArrayList<>(count);
+        Set<ByteBuffer> taken = new HashSet<>();
+        int[] takenByPartition = new int[Node.PARTITIONS];
+        List<Integer> open = new ArrayList<>(partitions);
+        int rounds = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(SAMPLE_PARALLELISM);
+        try {
+            while (keys.size() < count && !open.isEmpty()) {
+                rounds++;
+                int wanted = count - keys.size();
+                List<Integer> round = List.copyOf(open.subList(0, Math.min(open.size(), wanted)));
+                List<Future<PartitionSample>> samples = new ArrayList<>(round.size());
+                for (int i = 0; i < round.size(); i++) {
+                    int partitionId = round.get(i);
+                    int share = wanted / round.size() + (i < wanted % round.size() ? 1 : 0);
+                    int alreadyTaken = takenByPartition[partitionId];
+                    samples.add(executor.submit(() -> samplePartition(client, policy, namespace, setName, partitionId,
+                            share, alreadyTaken, taken)));
+                }
+                List<PartitionSample> results = new ArrayList<>(samples.size());
+                for (Future<PartitionSample> future : samples) {
+                    results.add(future.get());
+                }
+                // the running queries read taken, it only changes between rounds
+                open = new ArrayList<>(open.subList(round.size(), open.size()));
+                for (PartitionSample sample : results) {
+                    keys.addAll(sample.keys());
+                    sample.keys().forEach(key -> taken.add(ByteBuffer.wrap(key.digest)));
+                    takenByPartition[sample.partitionId()] += sample.keys().size();
+                    if (!sample.exhausted()) {
+                        // read again after the partitions not read yet, if those fall short
+                        open.add(sample.partitionId());
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while sampling keys of %s.%s".formatted(namespace, setName), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to sample keys of %s.%s".formatted(namespace, setName), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        AerospikeLogger.info("Sampled %d random keys of %s.%s in %d rounds in %d ms"
+                .formatted(keys.size(), namespace, setName, rounds, System.currentTimeMillis() - start));
+        return keys;
+    }
+
+    /**
+     * @param exhausted the partition has no other key to give
+     */
+    private record PartitionSample(int partitionId, List<Key> keys, boolean exhausted) {
+    }
+
+    /**
+     * Reads {@code alreadyTaken} more records than on a first read, so a partition that is not exhausted always
+     * gives its whole share of keys not taken yet. {@code taken} is only read here.
+     */
+    private static PartitionSample samplePartition(IAerospikeClient client, QueryPolicy policy, String namespace,
+                                                   String setName, int partitionId, int share, int alreadyTaken,
+                                                   Set<ByteBuffer> taken) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int recordsToRead = Math.max(RECORDS_PER_PARTITION, 4 * share) + alreadyTaken;
+        Statement statement = new Statement();
+        statement.setNamespace(namespace);
+        statement.setSetName(setName);
+        List<Key> reservoir = new ArrayList<>(share);
+        Set<ByteBuffer> seen = new HashSet<>();
+        int candidates = 0;
+        Key from = new Key(namespace, randomDigest(partitionId, random), setName, null);
+        // from the random digest to the end of the partition, then from its start for what is left to read
+        for (PartitionFilter filter : List.of(PartitionFilter.after(from), PartitionFilter.id(partitionId))) {
+            if (seen.size() >= recordsToRead) {
+                break;
+            }
+            statement.setMaxRecords(recordsToRead - seen.size());
+            try (RecordSet rs = client.queryPartitions(policy, statement, filter)) {
+                while (rs.next()) {
+                    Key key = rs.getKey();
+                    ByteBuffer digest = ByteBuffer.wrap(key.digest);
+                    if (!seen.add(digest) || taken.contains(digest)) {
+                        // wrapped around to the records read first, or sampled in an earlier round
+                        continue;
+                    }
+                    candidates++;
+                    if (reservoir.size() < share) {
+                        reservoir.add(key);
+                    } else {
+                        int slot = random.nextInt(candidates);
+                        if (slot < share) {
+                            reservoir.set(slot, key);
+                        }
+                    }
+                }
+            }
+        }
+        // read to the end and every key not taken yet kept
+        return new PartitionSample(partitionId, reservoir, seen.size() < recordsToRead && candidates <= share);
+    }
+
+    /**
+     * Random digest of the partition: the partition id is the low 12 bits of the digest's first two bytes,
+     * read little-endian.
+     */
+    private static byte[] randomDigest(int partitionId, ThreadLocalRandom random) {
+        byte[] digest = new byte[20];
+        random.nextBytes(digest);
+        digest[0] = (byte) partitionId;
+        digest[1] = (byte) ((digest[1] & 0xF0) | (partitionId >>> 8));
+        return digest;
+    }
+}
@@ -0,0 +1,192 @@
+package utils.aerospike;
+
+import com.aerospike.client.Key;
+import com.aerospike.client.Value;
+import com.aerospike.client.cluster.Partition;
+import com.google.common.base.Preconditions;
+import utils.AerospikeLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Table of deterministic string user keys ({@code prefix + n}) for each of the 4096 partitions of a set.
+ * The table is computed once per (set, prefix, keys per partition), cached on disk and memory-mapped, so
+ * "N keys in partition P" or "one key per partition" are answered without hashing or rejection sampling.
+ * <p>
+ * The digest of a key depends on the set name but not on the namespace, so one table serves all namespaces.
+ */
+public final class PartitionKeyIndex {
+
+    public static final int PARTITIONS = 4096;
+    public static final int DEFAULT_KEYS_PER_PARTITION = 16;
+    public static final int MAX_KEYS_PER_PARTITION = 16_384;
+    private static final int MAGIC = 0x504B4931; // "PKI1"
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int DIGEST_SIZE = 20;
+    private static final int ENTRY_SIZE = Integer.BYTES + DIGEST_SIZE;
+    private static final Path CACHE_DIR = Path.of(System.getProperty("java.io.tmpdir"), "partition-key-index");
+    private static final Map<String, PartitionKeyIndex> INDEXES = new ConcurrentHashMap<>();
+
+    private final String setName;
+    private final String prefix;
+    private final int keysPerPartition;
+    private final ByteBuffer entries;
+
+    private PartitionKeyIndex(String setName, String prefix, int keysPerPartition, ByteBuffer entries) {
+        this.setName = setName;
+        this.prefix = prefix;
+        this.keysPerPartition = keysPerPartition;
+        this.entries = entries;
+    }
+
+    public static PartitionKeyIndex of(String setName, String prefix) {
+        return of(setName, prefix, DEFAULT_KEYS_PER_PARTITION);
+    }
+
+    public static PartitionKeyIndex of(String setName, String prefix, int keysPerPartition) {
+        Preconditions.checkArgument(keysPerPartition > 0 && keysPerPartition <= MAX_KEYS_PER_PARTITION,
+                "keysPerPartition must be in [1, %s], got %s", MAX_KEYS_PER_PARTITION, keysPerPartition);
+        String fileName = fileName(setName, prefix, keysPerPartition);
+        return INDEXES.computeIfAbsent(fileName, ignored -> load(setName, prefix, keysPerPartition, CACHE_DIR.resolve(fileName)));
+    }
+
+    public int keysPerPartition() {
+        return keysPerPartition;
+    }
+
+    /**
+     * The index-th key (0 based) of the given partition.
+     */
+    public Key key(String namespace, int partitionId, int index) {
+        Preconditions.checkElementIndex(partitionId, PARTITIONS, "partitionId");
+        Preconditions.checkElementIndex(index, keysPerPartition, "index");
+        int offset = HEADER_SIZE + (partitionId * keysPerPartition + index) * ENTRY_SIZE;
+        byte[] digest = new byte[DIGEST_SIZE];
+        entries.get(offset + Integer.BYTES, digest);
+        return new Key(namespace, digest, setName, Value.get(prefix + entries.getInt(offset)));
+    }
+
+    public List<Key> keys(String namespace, int partitionId, int count) {
+        Preconditions.checkArgument(count <= keysPerPartition,
+                "Only %s keys per partition are indexed, asked for %s", keysPerPartition, count);
+        List<Key> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(key(namespace, partitionId, i));
+        }
+        return keys;
+    }
+
+    public List<Key> onePerPartition(String namespace) {
+        return spreadOverPartitions(namespace, PARTITIONS);
+    }
+
+    /**
+     * One key in each of {@code count} distinct partitions, evenly spaced over the partition range.
+     */
+    public List<Key> spreadOverPartitions(String namespace, int count) {
+        Preconditions.checkArgument(count >= 0 && count <= PARTITIONS,
+                "Cannot ensure unique partitions beyond %s records", PARTITIONS);
+        List<Key> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(key(namespace, (int) ((long) i * PARTITIONS / count), 0));
+        }
+        return keys;
+    }
+
+    private static PartitionKeyIndex load(String setName, String prefix, int keysPerPartition, Path file) {
+        long size = HEADER_SIZE + (long) PARTITIONS * keysPerPartition * ENTRY_SIZE;
+        try {
+            if (!isValid(file, size, keysPerPartition)) {
+                build(setName, prefix, keysPerPartition, file, size);
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                PartitionKeyIndex index = new PartitionKeyIndex(setName, prefix, keysPerPartition, entries);
+                if (!index.spotCheck()) {
+                    Files.delete(file);
+                    throw new IllegalStateException("Partition key index %s does not match its set/prefix".formatted(file));
+                }
+                return index;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load partition key index " + file, e);
+        }
+    }
+
+    private static boolean isValid(Path file, long size, int keysPerPartition) throws IOException {
+        if (!Files.exists(file) || Files.size(file) != size) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            return header.getInt(0) == MAGIC && header.getInt(Integer.BYTES) == keysPerPartition;
+        }
+    }
+
+    private static void build(String setName, String prefix, int keysPerPartition, Path file, long size) throws IOException {
+        long start = System.currentTimeMillis();
+        ByteBuffer entries = ByteBuffer.allocate((int) size);
+        entries.putInt(0, MAGIC).putInt(Integer.BYTES, keysPerPartition);
+        int[] found = new int[PARTITIONS];
+        int remaining = PARTITIONS * keysPerPartition;
+        int suffix = 0;
+        for (; remaining > 0; suffix++) {
+            byte[] digest = new Key("", setName, prefix + suffix).digest;
+            int partitionId = Partition.getPartitionId(digest);
+            if (found[partitionId] == keysPerPartition) {
+                continue;
+            }
+            int offset = HEADER_SIZE + (partitionId * keysPerPartition + found[partitionId]++) * ENTRY_SIZE;
+            entries.putInt(offset, suffix).put(offset + Integer.BYTES, digest);
+            remaining--;
+        }
+
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        Files.write(tmp, entries.array());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        AerospikeLogger.info("Built partition key index for set %s, prefix %s (%d keys per partition, %d keys hashed) in %d ms"
+                .formatted(setName, prefix, keysPerPartition, suffix, System.currentTimeMillis() - start));
+    }
+
+    // recompute a few digests so a stale or foreign file is never trusted
+    private boolean spotCheck() {
+        for (int partitionId : new int[]{0, PARTITIONS / 2, PARTITIONS - 1}) {
+            Key stored = key("", partitionId, keysPerPartition - 1);
+            Key computed = new Key("", setName, (String) stored.userKey.getObject());
+            if (!Arrays.equals(stored.digest, computed.digest)
+                    || Partition.getPartitionId(computed.digest) != partitionId) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String fileName(String setName, String prefix, int keysPerPartition) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            byte[] hash = sha.digest((setName + '\0' + prefix).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 8) + "-" + keysPerPartition + ".idx";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
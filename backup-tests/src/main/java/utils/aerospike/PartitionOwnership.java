@@ -0,0 +1,207 @@
+package utils.aerospike;
+
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.cluster.Partition;
+import com.google.common.base.Preconditions;
+import utils.AerospikeLogger;
+import utils.AutoUtils;
+import utils.info.InfoTokenizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Master node of every partition of a namespace, as reported by the nodes themselves ("replicas" info).
+ * <p>
+ * The map is read together with each node's "partition-generation", which changes whenever the node's partition
+ * ownership does, and read again until no generation moved during the read and every partition has exactly one
+ * master. {@link #isCurrent} tells whether it still holds, e.g. after counting records with it.
+ * <p>
+ * Also generates user keys mastered by chosen nodes, to place test data evenly or on purpose unevenly.
+ */
+public final class PartitionOwnership {
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long RETRY_DELAY_MILLIS = 500;
+    private static final String GENERATION = "partition-generation";
+    private static final String REPLICAS = "replicas";
+
+    private final String namespace;
+    private final Node[] masters;
+    private final Map<Node, String> generations;
+
+    private PartitionOwnership(String namespace, Node[] masters, Map<Node, String> generations) {
+        this.namespace = namespace;
+        this.masters = masters;
+        this.generations = generations;
+    }
+
+    public static PartitionOwnership fetch(IAerospikeClient client, String namespace) {
+        String problem = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            // generation before and after the replicas, on every node in one round trip
+            List<InfoExecutor.Responses> responses = InfoExecutor.requestInOrder(client, GENERATION, REPLICAS, GENERATION);
+            Map<Node, String> before = responses.get(0).byNode();
+            Map<Node, String> after = responses.get(2).byNode();
+            if (!before.equals(after)) {
+                problem = "partition generation changed while reading the replicas";
+            } else {
+                Node[] masters = new Node[Node.PARTITIONS];
+                problem = parseMasters(namespace, responses.get(1).byNode(), masters);
+                if (problem == null) {
+                    return new PartitionOwnership(namespace, masters, new LinkedHashMap<>(after));
+                }
+            }
+            AerospikeLogger.info("Partition map of %s not stable (%s), attempt %d".formatted(namespace, problem, attempt));
+            AutoUtils.sleep(RETRY_DELAY_MILLIS);
+        }
+        throw new IllegalStateException("No stable partition map for namespace %s: %s".formatted(namespace, problem));
+    }
+
+    public String namespace() {
+        return namespace;
+    }
+
+    public Node master(int partitionId) {
+        return masters[partitionId];
+    }
+
+    public Node master(Key key) {
+        return masters[Partition.getPartitionId(key.digest)];
+    }
+
+    /**
+     * Number of partitions each node is master of, in the order of the nodes.
+     */
+    public Map<Node, Integer> masterPartitionCounts() {
+        Map<Node, Integer> counts = new LinkedHashMap<>();
+        generations.keySet().forEach(node -> counts.put(node, 0));
+        for (Node master : masters) {
+            counts.merge(master, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Per-node master record counts from per-partition counts of the same namespace.
+     */
+    public Map<Node, Long> masterCounts(AerospikeCountUtils.PartitionCounts partitionCounts) {
+        Preconditions.checkArgument(namespace.equals(partitionCounts.namespace()),
+                "Counts of namespace %s for the partition map of %s", partitionCounts.namespace(), namespace);
+        Map<Node, Long> counts = new LinkedHashMap<>();
+        generations.keySet().forEach(node -> counts.put(node, 0L));
+        for (int partitionId = 0; partitionId < Node.PARTITIONS; partitionId++) {
+            counts.merge(masters[partitionId], partitionCounts.count(partitionId), Long::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * True when no node changed its partition ownership since the map was read.
+     */
+    public boolean isCurrent(IAerospikeClient client) {
+        return generations.equals(InfoExecutor.request(client, GENERATION).byNode());
+    }
+
+    /**
+     * The same number of keys mastered by every node.
+     */
+    public List<Key> balancedKeys(String setName, String keyPrefix, int keysPerNode) {
+        Map<Node, Integer> keysByNode = new LinkedHashMap<>();
+        generations.keySet().forEach(node -> keysByNode.put(node, keysPerNode));
+        return placedKeys(setName, keyPrefix, keysByNode);
+    }
+
+    /**
+     * Keys mastered by the given node only, e.g. to load one node more than the others.
+     */
+    public List<Key> keysOwnedBy(Node node, String setName, String keyPrefix, int count) {
+        return placedKeys(setName, keyPrefix, Map.of(node, count));
+    }
+
+    /**
+     * {@code keyPrefix + i} user keys, with as many keys mastered by each node as asked. Nodes not in the map get
+     * none. Keys are tried in order of i, so the same map and prefix give the same keys.
+     */
+    public List<Key> placedKeys(String setName, String keyPrefix, Map<Node, Integer> keysByNode) {
+        Map<Node, Integer> missing = new HashMap<>();
+        int total = 0;
+        for (Map.Entry<Node, Integer> entry : keysByNode.entrySet()) {
+            Preconditions.checkArgument(Arrays.asList(masters).contains(entry.getKey()),
+                    "Node %s is master of no partition of %s", entry.getKey(), namespace);
+            if (entry.getValue() > 0) {
+                missing.put(entry.getKey(), entry.getValue());
+                total += entry.getValue();
+            }
+        }
+        List<Key> keys = new ArrayList<>(total);
+        for (long i = 0; !missing.isEmpty(); i++) {
+            Key key = new Key(namespace, setName, keyPrefix + i);
+            Node master = master(key);
+            Integer left = missing.get(master);
+            if (left != null) {
+                keys.add(key);
+                if (left == 1) {
+                    missing.remove(master);
+                } else {
+                    missing.put(master, left - 1);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Fills the masters from the "replicas" responses, whose entries read
+     * {@code <namespace>:<regime>,<replica count>,<base64 bitmap of replica 0>,...}.
+     *
+     * @return what is wrong with the map, null when every partition has exactly one master
+     */
+    private static String parseMasters(String namespace, Map<Node, String> responses, Node[] masters) {
+        for (Map.Entry<Node, String> response : responses.entrySet()) {
+            String bitmap = masterBitmap(response.getValue(), namespace);
+            if (bitmap == null) {
+                return "no replicas of the namespace on node " + response.getKey();
+            }
+            byte[] bits = Base64.getDecoder().decode(bitmap);
+            for (int partitionId = 0; partitionId < Node.PARTITIONS; partitionId++) {
+                if ((bits[partitionId >> 3] & (0x80 >> (partitionId & 7))) == 0) {
+                    continue;
+                }
+                if (masters[partitionId] != null) {
+                    return "partition %d mastered by %s and %s".formatted(partitionId, masters[partitionId],
+                            response.getKey());
+                }
+                masters[partitionId] = response.getKey();
+            }
+        }
+        for (int partitionId = 0; partitionId < Node.PARTITIONS; partitionId++) {
+            if (masters[partitionId] == null) {
+                return "partition %d has no master".formatted(partitionId);
+            }
+        }
+        return null;
+    }
+
+    private static String masterBitmap(String response, String namespace) {
+        InfoTokenizer entries = InfoTokenizer.records(response);
+        while (entries.nextRecord()) {
+            if (!entries.nextField() || !entries.keyEquals(namespace) || !entries.nextField()) {
+                continue;
+            }
+            // <regime>,<replica count>,<base64 bitmap of replica 0>,...
+            InfoTokenizer fields = InfoTokenizer.records(entries.field(), ',', ',');
+            fields.nextRecord();
+            boolean hasMaster = fields.nextField() && fields.nextField() && Integer.parseInt(fields.field()) > 0
+                    && fields.nextField();
+            return hasMaster ? fields.field() : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,412 @@
+package utils.aerospike;
+
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.cluster.Partition;
+import com.aerospike.client.policy.QueryDuration;
+import com.aerospike.client.policy.QueryPolicy;
+import com.aerospike.client.query.PartitionFilter;
+import com.aerospike.client.query.RecordSet;
+import com.aerospike.client.query.Statement;
+import utils.AerospikeLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Record-level diff of two snapshots of a namespace or set, e.g. before a backup and after its restore, or the
+ * source cluster and the ADR backup cluster, in bounded memory.
+ * <p>
+ * A {@link Snapshot} streams the partitions in 64 ranges, 16 at a time, and keeps only the digest and the
+ * generation-independent content hash of every record (36 bytes), sorted by partition and digest, on disk.
+ * A range holding more than {@value #MAX_BUFFERED_ENTRIES} records is sorted in runs that are merged on disk.
+ * {@link #compare} then merges both snapshots in a single pass and reports missing, extra and changed digests,
+ * with the current bins of a few of them read back from the clusters (a snapshot does not keep bins).
+ */
+public final class RecordDiff {
+    private static final int PARTITION_CHUNKS = 64;
+    private static final int SNAPSHOT_PARALLELISM = 16;
+    private static final int MAX_BUFFERED_ENTRIES = 100_000;
+    private static final int DIGEST_SIZE = 20;
+    private static final int HASH_SIZE = 16;
+    private static final int ENTRY_SIZE = DIGEST_SIZE + HASH_SIZE;
+    private static final int DEFAULT_MAX_SAMPLES = 10;
+    private static final Comparator<byte[]> ENTRY_ORDER = Comparator
+            .comparingInt((byte[] entry) -> Partition.getPartitionId(entry))
+            .thenComparing((a, b) -> Arrays.compareUnsigned(a, 0, DIGEST_SIZE, b, 0, DIGEST_SIZE));
+
+    public enum Kind {
+        /**
+         * In the expected snapshot only.
+         */
+        MISSING,
+        /**
+         * In the actual snapshot only.
+         */
+        EXTRA,
+        /**
+         * In both snapshots with different contents.
+         */
+        CHANGED
+    }
+
+    /**
+     * One differing record. Snapshots keep content hashes only, so the bins are the ones stored now, after the
+     * snapshots were taken: on the actual cluster (null when absent there), and on the expected cluster when it
+     * is another one, e.g. the source of an ADR backup (null when absent there or when it is the same cluster).
+     */
+    public record Difference(Kind kind, Key key, Map<String, Object> currentActualBins,
+                             Map<String, Object> currentExpectedClusterBins) {
+        @Override
+        public String toString() {
+            String description = "%s digest=%s current bins=%s".formatted(kind, HexFormat.of().formatHex(key.digest),
+                    currentActualBins);
+            return currentExpectedClusterBins == null
+                    ? description
+                    : description + " current bins on the expected cluster=" + currentExpectedClusterBins;
+        }
+    }
+
+    public record Result(long expectedRecords, long actualRecords, long missing, long extra, long changed,
+                         List<Difference> samples) {
+        public boolean isEmpty() {
+            return missing == 0 && extra == 0 && changed == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "expected=%d actual=%d missing=%d extra=%d changed=%d samples=%s".formatted(
+                    expectedRecords, actualRecords, missing, extra, changed, samples);
+        }
+    }
+
+    /**
+     * Sorted digests and content hashes of a namespace or set at one point in time, stored in a temp directory
+     * until closed.
+     */
+    public static final class Snapshot implements AutoCloseable {
+        private final IAerospikeClient client;
+        private final String namespace;
+        private final String setName;
+        private final Path directory;
+        private final long records;
+
+        private Snapshot(IAerospikeClient client, String namespace, String setName, Path directory, long records) {
+            this.client = client;
+            this.namespace = namespace;
+            this.setName = setName;
+            this.directory = directory;
+            this.records = records;
+        }
+
+        public String namespace() {
+            return namespace;
+        }
+
+        public String setName() {
+            return setName;
+        }
+
+        public long records() {
+            return records;
+        }
+
+        private Path chunk(int chunk) {
+            return directory.resolve("chunk-" + chunk);
+        }
+
+        @Override
+        public void close() {
+            delete(directory);
+        }
+    }
+
+    /**
+     * Snapshot of a set, or of the whole namespace when the set is null.
+     */
+    public static Snapshot snapshot(IAerospikeClient client, String namespace, String setName) {
+        long start = System.currentTimeMillis();
+        int chunkSize = Node.PARTITIONS / PARTITION_CHUNKS;
+        Path directory;
+        try {
+            directory = Files.createTempDirectory("record-diff-");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create a snapshot directory", e);
+        }
+        long records = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(SNAPSHOT_PARALLELISM);
+        boolean taken = false;
+        try {
+            List<Future<Long>> chunks = new ArrayList<>(PARTITION_CHUNKS);
+            for (int chunk = 0; chunk < PARTITION_CHUNKS; chunk++) {
+                int index = chunk;
+                chunks.add(executor.submit(() -> snapshotRange(client, namespace, setName, directory, index,
+                        index * chunkSize, chunkSize)));
+            }
+            for (Future<Long> chunk : chunks) {
+                records += chunk.get();
+            }
+            taken = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while taking a snapshot of " + describe(namespace, setName), e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to take a snapshot of " + describe(namespace, setName), e.getCause());
+        } finally {
+            executor.shutdownNow();
+            if (!taken) {
+                // nobody gets a snapshot to close, so its partial files go now
+                delete(directory);
+            }
+        }
+        AerospikeLogger.info("Snapshot of %d records of %s in %d ms".formatted(records, describe(namespace, setName),
+                System.currentTimeMillis() - start));
+        return new Snapshot(client, namespace, setName, directory, records);
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            AerospikeLogger.info("Failed to delete snapshot " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compares a snapshot with the current contents of the same namespace/set.
+     */
+    public static Result compare(Snapshot expected, IAerospikeClient client) {
+        try (Snapshot actual = snapshot(client, expected.namespace, expected.setName)) {
+            return compare(expected, actual);
+        }
+    }
+
+    /**
+     * Compares the same namespace/set of two clusters, e.g. the source and the ADR backup cluster.
+     */
+    public static Result compare(IAerospikeClient expectedClient, IAerospikeClient actualClient, String namespace,
+                                 String setName) {
+        try (Snapshot expected = snapshot(expectedClient, namespace, setName)) {
+            return compare(expected, actualClient);
+        }
+    }
+
+    public static Result compare(Snapshot expected, Snapshot actual) {
+        return compare(expected, actual, DEFAULT_MAX_SAMPLES);
+    }
+
+    /**
+     * @param maxSamples number of differences whose bins are read back, the counts always cover all records
+     */
+    public static Result compare(Snapshot expected, Snapshot actual, int maxSamples) {
+        long missing = 0;
+        long extra = 0;
+        long changed = 0;
+        List<byte[]> sampleDigests = new ArrayList<>();
+        List<Kind> sampleKinds = new ArrayList<>();
+        for (int chunk = 0; chunk < PARTITION_CHUNKS; chunk++) {
+            try (DataInputStream left = open(expected.chunk(chunk)); DataInputStream right = open(actual.chunk(chunk))) {
+                byte[] expectedEntry = read(left);
+                byte[] actualEntry = read(right);
+                while (expectedEntry != null || actualEntry != null) {
+                    int order = expectedEntry == null ? 1 : actualEntry == null ? -1 : ENTRY_ORDER.compare(expectedEntry, actualEntry);
+                    Kind kind = null;
+                    byte[] digest = order <= 0 ? expectedEntry : actualEntry;
+                    if (order < 0) {
+                        kind = Kind.MISSING;
+                        missing++;
+                    } else if (order > 0) {
+                        kind = Kind.EXTRA;
+                        extra++;
+                    } else if (!Arrays.equals(expectedEntry, DIGEST_SIZE, ENTRY_SIZE, actualEntry, DIGEST_SIZE, ENTRY_SIZE)) {
+                        kind = Kind.CHANGED;
+                        changed++;
+                    }
+                    if (kind != null && sampleDigests.size() < maxSamples) {
+                        sampleDigests.add(Arrays.copyOf(digest, DIGEST_SIZE));
+                        sampleKinds.add(kind);
+                    }
+                    if (order <= 0) {
+                        expectedEntry = read(left);
+                    }
+                    if (order >= 0) {
+                        actualEntry = read(right);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to compare snapshot chunk " + chunk, e);
+            }
+        }
+        // the expected side of the same cluster now holds the actual bins, it is only read from another cluster
+        boolean otherCluster = expected.client != actual.client;
+        List<Difference> samples = new ArrayList<>(sampleDigests.size());
+        for (int i = 0; i < sampleDigests.size(); i++) {
+            Kind kind = sampleKinds.get(i);
+            Key key = new Key(expected.namespace, sampleDigests.get(i), expected.setName, null);
+            samples.add(new Difference(kind, key,
+                    kind == Kind.MISSING ? null : currentBins(actual, sampleDigests.get(i)),
+                    otherCluster && kind != Kind.EXTRA ? currentBins(expected, sampleDigests.get(i)) : null));
+        }
+        Result result = new Result(expected.records, actual.records, missing, extra, changed, samples);
+        AerospikeLogger.info("Diff of %s: %s".formatted(describe(expected.namespace, expected.setName), result));
+        return result;
+    }
+
+    private static Map<String, Object> currentBins(Snapshot snapshot, byte[] digest) {
+        Record record = snapshot.client.get(null, new Key(snapshot.namespace, digest, snapshot.setName, null));
+        return record == null ? null : record.bins;
+    }
+
+    private static long snapshotRange(IAerospikeClient client, String namespace, String setName, Path directory,
+                                      int chunk, int begin, int count) throws IOException {
+        Statement statement = new Statement();
+        statement.setNamespace(namespace);
+        statement.setSetName(setName);
+        try {
+            return snapshotRange(client, buildQueryPolicy(QueryDuration.LONG), statement, directory, chunk, begin, count);
+        } catch (Exception e) {
+            AerospikeLogger.info("Snapshot query of partitions %d-%d failed, retrying with LONG_RELAX_AP: %s"
+                    .formatted(begin, begin + count - 1, e.getMessage()));
+            return snapshotRange(client, buildQueryPolicy(QueryDuration.LONG_RELAX_AP), statement, directory, chunk, begin, count);
+        }
+    }
+
+    /**
+     * Writes the sorted entries of one partition range to its chunk file, spilling sorted runs beyond
+     * {@value #MAX_BUFFERED_ENTRIES} entries and merging them at the end.
+     */
+    private static long snapshotRange(IAerospikeClient client, QueryPolicy policy, Statement statement, Path directory,
+                                      int chunk, int begin, int count) throws IOException {
+        List<byte[]> buffer = new ArrayList<>();
+        List<Path> runs = new ArrayList<>();
+        RecordHasher hasher = new RecordHasher();
+        long records = 0;
+        try {
+            try (RecordSet rs = client.queryPartitions(policy, statement, PartitionFilter.range(begin, count))) {
+                while (rs.next()) {
+                    byte[] digest = rs.getKey().digest;
+                    // the same hash as ContentChecksum: of the 20-byte digest, not of the padded entry
+                    hasher.hashRecord(digest, rs.getRecord(), false);
+                    byte[] entry = Arrays.copyOf(digest, ENTRY_SIZE);
+                    hasher.writeTo(entry, DIGEST_SIZE);
+                    buffer.add(entry);
+                    records++;
+                    if (buffer.size() == MAX_BUFFERED_ENTRIES) {
+                        runs.add(writeRun(buffer, directory.resolve("chunk-%d-run-%d".formatted(chunk, runs.size()))));
+                        buffer.clear();
+                    }
+                }
+            }
+            if (runs.isEmpty()) {
+                writeRun(buffer, directory.resolve("chunk-" + chunk));
+            } else {
+                if (!buffer.isEmpty()) {
+                    runs.add(writeRun(buffer, directory.resolve("chunk-%d-run-%d".formatted(chunk, runs.size()))));
+                }
+                mergeRuns(runs, directory.resolve("chunk-" + chunk));
+            }
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+        return records;
+    }
+
+    private static Path writeRun(List<byte[]> entries, Path file) throws IOException {
+        entries.sort(ENTRY_ORDER);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            for (byte[] entry : entries) {
+                out.write(entry);
+            }
+        }
+        return file;
+    }
+
+    private record RunHead(byte[] entry, DataInputStream in) {
+    }
+
+    private static void mergeRuns(List<Path> runs, Path file) throws IOException {
+        PriorityQueue<RunHead> heads = new PriorityQueue<>(Comparator.comparing(RunHead::entry, ENTRY_ORDER));
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            for (Path run : runs) {
+                DataInputStream in = open(run);
+                byte[] entry = read(in);
+                if (entry == null) {
+                    in.close();
+                } else {
+                    heads.add(new RunHead(entry, in));
+                }
+            }
+            while (!heads.isEmpty()) {
+                RunHead head = heads.poll();
+                out.write(head.entry());
+                byte[] next = read(head.in());
+                if (next == null) {
+                    head.in().close();
+                } else {
+                    heads.add(new RunHead(next, head.in()));
+                }
+            }
+        } finally {
+            for (RunHead head : heads) {
+                head.in().close();
+            }
+        }
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    }
+
+    private static byte[] read(DataInputStream in) throws IOException {
+        byte[] entry = new byte[ENTRY_SIZE];
+        try {
+            in.readFully(entry);
+            return entry;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static QueryPolicy buildQueryPolicy(QueryDuration duration) {
+        QueryPolicy policy = new QueryPolicy();
+        policy.expectedDuration = duration;
+        policy.maxRetries = 5;
+        policy.sleepBetweenRetries = 1000;
+        policy.socketTimeout = 30_000;
+        policy.totalTimeout = 0;
+        return policy;
+    }
+
+    private static String describe(String namespace, String setName) {
+        return setName == null ? "namespace " + namespace : "set %s (namespace %s)".formatted(setName, namespace);
+    }
+}
@@ -0,0 +1,149 @@
+package utils.aerospike;
+
+import com.aerospike.client.Record;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generation-independent 128-bit hash of a record, as used by {@link ContentChecksum} and {@link RecordDiff}.
+ * Streams one record at a time into a reused MD5, the result is left in {@link #high} and {@link #low}.
+ * Nested unordered maps use a child hasher per nesting level, so memory stays constant.
+ */
+final class RecordHasher {
+    private static final byte NULL = 0, INTEGER = 1, DOUBLE = 2, STRING = 3, BLOB = 4, LIST = 5, MAP = 6,
+            BOOLEAN = 7, OTHER = 8;
+
+    private final MessageDigest md5;
+    private final byte[] scratch = new byte[Long.BYTES];
+    private RecordHasher child;
+    long high;
+    long low;
+
+    RecordHasher() {
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+
+    void hashRecord(byte[] digest, Record record, boolean includeTtl) {
+        md5.update(digest);
+        if (record != null && record.bins != null) {
+            List<String> names = new ArrayList<>(record.bins.keySet());
+            Collections.sort(names);
+            for (String name : names) {
+                md5.update(name.getBytes(StandardCharsets.UTF_8));
+                md5.update(NULL);
+                update(record.bins.get(name));
+            }
+        }
+        if (includeTtl && record != null) {
+            updateLong(record.expiration);
+        }
+        finish();
+    }
+
+    /**
+     * Adds the last hash to a {high, low, records} sum.
+     */
+    void addTo(long[] sum) {
+        long sumLow = sum[1] + low;
+        sum[0] += high + (Long.compareUnsigned(sumLow, sum[1]) < 0 ? 1 : 0);
+        sum[1] = sumLow;
+        sum[2]++;
+    }
+
+    /**
+     * Writes the last hash big-endian at the given offset.
+     */
+    void writeTo(byte[] target, int offset) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            target[offset + i] = (byte) (high >>> (56 - 8 * i));
+            target[offset + Long.BYTES + i] = (byte) (low >>> (56 - 8 * i));
+        }
+    }
+
+    private void hashEntry(Object key, Object value) {
+        update(key);
+        update(value);
+        finish();
+    }
+
+    private void update(Object value) {
+        if (value == null) {
+            md5.update(NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            md5.update(INTEGER);
+            updateLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            md5.update(DOUBLE);
+            updateLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+        } else if (value instanceof Boolean bool) {
+            md5.update(BOOLEAN);
+            md5.update(bool ? (byte) 1 : (byte) 0);
+        } else if (value instanceof String string) {
+            updateBytes(STRING, string.getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof byte[] bytes) {
+            updateBytes(BLOB, bytes);
+        } else if (value instanceof List<?> list) {
+            md5.update(LIST);
+            updateLong(list.size());
+            for (Object element : list) {
+                update(element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            updateMap(map);
+        } else {
+            // GeoJSON, HLL and other particle types, identified by their client type
+            md5.update(value.getClass().getSimpleName().getBytes(StandardCharsets.UTF_8));
+            updateBytes(OTHER, value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void updateMap(Map<?, ?> map) {
+        if (child == null) {
+            child = new RecordHasher();
+        }
+        long[] sum = new long[3];
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            child.hashEntry(entry.getKey(), entry.getValue());
+            child.addTo(sum);
+        }
+        md5.update(MAP);
+        updateLong(sum[2]);
+        updateLong(sum[0]);
+        updateLong(sum[1]);
+    }
+
+    private void updateBytes(byte type, byte[] bytes) {
+        md5.update(type);
+        updateLong(bytes.length);
+        md5.update(bytes);
+    }
+
+    private void updateLong(long value) {
+        for (int i = 0; i < Long.BYTES; i++) {
+            scratch[i] = (byte) (value >>> (56 - 8 * i));
+        }
+        md5.update(scratch);
+    }
+
+    private void finish() {
+        byte[] hash = md5.digest();
+        long h = 0;
+        long l = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            h = (h << 8) | (hash[i] & 0xFF);
+            l = (l << 8) | (hash[Long.BYTES + i] & 0xFF);
+        }
+        high = h;
+        low = l;
+    }
+}
@@ -0,0 +1,244 @@
+package utils.aerospike;
+
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import com.aerospike.client.policy.BatchPolicy;
+import com.google.common.base.Preconditions;
+import utils.AerospikeLogger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Content check of a restore from a random sample of records instead of all of them.
+ * <pre>
+ * SampleVerifier.Sample sample = SampleVerifier.sample(client, namespace, set, 0.99, 0.001);
+ * // backup, truncate, restore
+ * assertThat(sample.verify(client).isClean()).isTrue();
+ * </pre>
+ * The keys are spread over all partitions by {@link KeySampler} and their records hashed with batch reads
+ * before the backup. After the restore the same keys are read again with batches kept in flight in parallel, and
+ * the share of missing or changed records is reported with its Wilson score interval. With no mismatch in
+ * {@link #sampleSize(double, double)} records, the upper bound of that interval is below the given mismatch rate.
+ */
+public final class SampleVerifier {
+    private static final int BATCH_SIZE = 1_000;
+    private static final int BATCHES_IN_FLIGHT = 4;
+    private static final int MAX_REPORTED_KEYS = 10;
+
+    private SampleVerifier() {
+    }
+
+    public record Result(int sampled, int missing, int changed, double confidence, double lowerBound,
+                         double upperBound, List<Key> mismatchedKeys) {
+
+        public double mismatchRate() {
+            return sampled == 0 ? 0 : (double) (missing + changed) / sampled;
+        }
+
+        public boolean isClean() {
+            return missing == 0 && changed == 0;
+        }
+
+        @Override
+        public String toString() {
+            return "%d sampled records, %d missing, %d changed: mismatch rate %.4f%% (%.0f%% interval %.4f%% - %.4f%%)%s"
+                    .formatted(sampled, missing, changed, 100 * mismatchRate(), 100 * confidence, 100 * lowerBound,
+                            100 * upperBound, mismatchedKeys.isEmpty() ? "" : ", e.g. " + mismatchedKeys);
+        }
+    }
+
+    /**
+     * Sampled keys with the hash their record had when sampled.
+     */
+    public static final class Sample {
+        private final String namespace;
+        private final String setName;
+        private final Key[] keys;
+        private final long[] high;
+        private final long[] low;
+        private final double confidence;
+
+        private Sample(String namespace, String setName, Key[] keys, long[] high, long[] low, double confidence) {
+            this.namespace = namespace;
+            this.setName = setName;
+            this.keys = keys;
+            this.high = high;
+            this.low = low;
+            this.confidence = confidence;
+        }
+
+        public int size() {
+            return keys.length;
+        }
+
+        /**
+         * Reads the sampled records again and compares them with their hash at sampling time.
+         */
+        public Result verify(IAerospikeClient client) {
+            long start = System.currentTimeMillis();
+            Record[] records = readAll(client, keys);
+            RecordHasher hasher = new RecordHasher();
+            int missing = 0;
+            int changed = 0;
+            List<Key> mismatchedKeys = new ArrayList<>();
+            for (int i = 0; i < keys.length; i++) {
+                boolean mismatch;
+                if (records[i] == null) {
+                    missing++;
+                    mismatch = true;
+                } else {
+                    hasher.hashRecord(keys[i].digest, records[i], false);
+                    mismatch = hasher.high != high[i] || hasher.low != low[i];
+                    if (mismatch) {
+                        changed++;
+                    }
+                }
+                if (mismatch && mismatchedKeys.size() < MAX_REPORTED_KEYS) {
+                    mismatchedKeys.add(keys[i]);
+                }
+            }
+            double[] interval = wilsonInterval(missing + changed, keys.length, confidence);
+            Result result = new Result(keys.length, missing, changed, confidence, interval[0], interval[1],
+                    mismatchedKeys);
+            AerospikeLogger.info("Verified sample of %s in %d ms: %s"
+                    .formatted(describe(namespace, setName), System.currentTimeMillis() - start, result));
+            return result;
+        }
+    }
+
+    /**
+     * Samples {@code sampleSize} records, reported later with a 95% interval.
+     */
+    public static Sample sample(IAerospikeClient client, String namespace, String setName, int sampleSize) {
+        return sample(client, namespace, setName, sampleSize, 0.95);
+    }
+
+    /**
+     * Samples enough records to show, with the given confidence, that at most {@code maxMismatchRate} of the
+     * records differ when none of the sampled ones does.
+     */
+    public static Sample sample(IAerospikeClient client, String namespace, String setName, double confidence,
+                                double maxMismatchRate) {
+        return sample(client, namespace, setName, sampleSize(confidence, maxMismatchRate), confidence);
+    }
+
+    /**
+     * Smallest sample whose Wilson upper bound for 0 mismatches, z^2 / (n + z^2), is at most {@code maxMismatchRate}.
+     */
+    public static int sampleSize(double confidence, double maxMismatchRate) {
+        Preconditions.checkArgument(confidence > 0 && confidence < 1, "confidence must be in (0, 1), got %s", confidence);
+        Preconditions.checkArgument(maxMismatchRate > 0 && maxMismatchRate < 1,
+                "maxMismatchRate must be in (0, 1), got %s", maxMismatchRate);
+        double z = zScore(confidence);
+        return (int) Math.ceil(z * z * (1 - maxMismatchRate) / maxMismatchRate);
+    }
+
+    private static Sample sample(IAerospikeClient client, String namespace, String setName, int sampleSize,
+                                 double confidence) {
+        long start = System.currentTimeMillis();
+        Key[] sampled = KeySampler.sample(client, namespace, setName, sampleSize).toArray(Key[]::new);
+        Record[] records = readAll(client, sampled);
+        RecordHasher hasher = new RecordHasher();
+        List<Key> keys = new ArrayList<>(sampled.length);
+        long[] high = new long[sampled.length];
+        long[] low = new long[sampled.length];
+        for (int i = 0; i < sampled.length; i++) {
+            // deleted or expired since it was sampled
+            if (records[i] == null) {
+                continue;
+            }
+            hasher.hashRecord(sampled[i].digest, records[i], false);
+            high[keys.size()] = hasher.high;
+            low[keys.size()] = hasher.low;
+            keys.add(sampled[i]);
+        }
+        AerospikeLogger.info("Sampled %d records of %s in %d ms"
+                .formatted(keys.size(), describe(namespace, setName), System.currentTimeMillis() - start));
+        return new Sample(namespace, setName, keys.toArray(Key[]::new), Arrays.copyOf(high, keys.size()),
+                Arrays.copyOf(low, keys.size()), confidence);
+    }
+
+    private static Record[] readAll(IAerospikeClient client, Key[] keys) {
+        Record[] records = new Record[keys.length];
+        if (keys.length == 0) {
+            return records;
+        }
+        BatchPolicy policy = client.copyBatchPolicyDefault();
+        ExecutorService executor = Executors.newFixedThreadPool(BATCHES_IN_FLIGHT);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int from = 0; from < keys.length; from += BATCH_SIZE) {
+                int batchStart = from;
+                int batchEnd = Math.min(keys.length, from + BATCH_SIZE);
+                futures.add(executor.submit(() -> {
+                    Record[] batch = client.get(policy, Arrays.copyOfRange(keys, batchStart, batchEnd));
+                    System.arraycopy(batch, 0, records, batchStart, batch.length);
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Batch read of the sample failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return records;
+    }
+
+    private static double[] wilsonInterval(int mismatches, int sampled, double confidence) {
+        if (sampled == 0) {
+            return new double[]{0, 1};
+        }
+        double z = zScore(confidence);
+        double rate = (double) mismatches / sampled;
+        double z2n = z * z / sampled;
+        double center = (rate + z2n / 2) / (1 + z2n);
+        double halfWidth = z / (1 + z2n) * Math.sqrt(rate * (1 - rate) / sampled + z2n / (4 * sampled));
+        return new double[]{Math.max(0, center - halfWidth), Math.min(1, center + halfWidth)};
+    }
+
+    /**
+     * z such that a normal variable falls within +/- z with the given probability.
+     */
+    private static double zScore(double confidence) {
+        return inverseNormal(1 - (1 - confidence) / 2);
+    }
+
+    /**
+     * Acklam's rational approximation of the standard normal quantile, relative error below 1.2e-9.
+     */
+    private static double inverseNormal(double p) {
+        double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double pLow = 0.02425;
+        if (p < pLow) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - pLow) {
+            return -inverseNormal(1 - p);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+
+    private static String describe(String namespace, String setName) {
+        return setName == null ? namespace : namespace + "." + setName;
+    }
+}
@@ -0,0 +1,214 @@
+package utils.aerospike;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.policy.InfoPolicy;
+import org.awaitility.Awaitility;
+import org.awaitility.core.ConditionTimeoutException;
+import utils.AerospikeLogger;
+import utils.AutoUtils;
+import utils.info.NamespaceStats;
+import utils.info.SetStats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Truncates namespaces and sets all at once and returns as soon as every node reports them empty.
+ * <pre>
+ * Truncator.on(client)
+ *         .namespace("source-ns1")
+ *         .sets("source-ns2", "set1", "set2")
+ *         .truncate();
+ * </pre>
+ * Completion is read from the per-node statistics, polled every {@value #POLL_INTERVAL_MILLIS} ms: a namespace is
+ * truncated when its "objects" is 0 on every node, a set when its "objects" is 0 and its "truncate_lut" moved past
+ * the value it had before the truncate, so that a node the truncate did not reach yet is not taken for done.
+ * Truncates that fail or do not complete in time are sent again, up to {@value #MAX_ATTEMPTS} times.
+ */
+public class Truncator {
+    private static final int MAX_ATTEMPTS = 10;
+    private static final int TRUNCATE_TIMEOUT = 120_000;
+    private static final long POLL_INTERVAL_MILLIS = 250;
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(1);
+
+    private record Target(String namespace, String set) {
+        @Override
+        public String toString() {
+            return set == null ? namespace : namespace + "." + set;
+        }
+    }
+
+    private record SetOnNode(String node, String namespace, String set) {
+    }
+
+    private final IAerospikeClient client;
+    private final Set<Target> targets = new LinkedHashSet<>();
+    private Duration timeout = DEFAULT_TIMEOUT;
+
+    private Truncator(IAerospikeClient client) {
+        this.client = client;
+    }
+
+    public static Truncator on(IAerospikeClient client) {
+        return new Truncator(client);
+    }
+
+    public Truncator namespace(String namespace) {
+        targets.add(new Target(namespace, null));
+        return this;
+    }
+
+    public Truncator namespaces(Collection<String> namespaces) {
+        namespaces.forEach(this::namespace);
+        return this;
+    }
+
+    public Truncator sets(String namespace, String... sets) {
+        for (String set : sets) {
+            targets.add(new Target(namespace, set));
+        }
+        return this;
+    }
+
+    /**
+     * How long to wait for the truncates of one attempt to complete before sending them again.
+     */
+    public Truncator timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    public void truncate() {
+        if (targets.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Set<Target> remaining = new LinkedHashSet<>(targets);
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS && !remaining.isEmpty(); attempt++) {
+            Map<SetOnNode, Long> lutsBefore = truncateLuts();
+            List<Target> sent = send(remaining);
+            if (sent.size() < remaining.size()) {
+                AutoUtils.sleep(attempt * 100L);
+            }
+            if (sent.isEmpty()) {
+                continue;
+            }
+            try {
+                Awaitility.await()
+                        .pollDelay(Duration.ZERO)
+                        .pollInterval(Duration.ofMillis(POLL_INTERVAL_MILLIS))
+                        .atMost(timeout)
+                        .alias("Truncate " + sent)
+                        .until(() -> {
+                            remaining.removeAll(truncated(sent, lutsBefore));
+                            return sent.stream().noneMatch(remaining::contains);
+                        });
+            } catch (ConditionTimeoutException e) {
+                AerospikeLogger.info("Truncate of %s not complete after %s, sending it again"
+                        .formatted(remaining, timeout));
+            }
+        }
+        if (!remaining.isEmpty()) {
+            throw new RuntimeException("Could not truncate " + remaining);
+        }
+        AerospikeLogger.info("Truncated %s in %d ms".formatted(targets, System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Sends all the truncates in parallel.
+     *
+     * @return the targets whose truncate was accepted
+     */
+    private List<Target> send(Collection<Target> toSend) {
+        InfoPolicy policy = new InfoPolicy();
+        policy.timeout = TRUNCATE_TIMEOUT;
+        Map<Target, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (Target target : toSend) {
+            AerospikeLogger.info("Try truncate: " + target);
+            futures.put(target, CompletableFuture.runAsync(
+                    () -> client.truncate(policy, target.namespace(), target.set(), null),
+                    task -> new Thread(task, "truncate-" + target).start()));
+        }
+        List<Target> sent = new ArrayList<>();
+        futures.forEach((target, future) -> {
+            try {
+                future.join();
+                sent.add(target);
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof AerospikeException)) {
+                    throw e;
+                }
+                AerospikeLogger.info("Exception during truncate of %s: %s".formatted(target, e.getCause().getMessage()));
+            }
+        });
+        return sent;
+    }
+
+    private Map<SetOnNode, Long> truncateLuts() {
+        Map<SetOnNode, Long> luts = new HashMap<>();
+        InfoExecutor.request(client, "sets").byNode().forEach((node, response) -> {
+            for (SetStats stats : SetStats.parseAll(response)) {
+                luts.put(new SetOnNode(node.getName(), stats.namespace(), stats.set()), stats.truncateLut());
+            }
+        });
+        return luts;
+    }
+
+    private List<Target> truncated(List<Target> candidates, Map<SetOnNode, Long> lutsBefore) {
+        List<String> commands = new ArrayList<>();
+        commands.add("sets");
+        candidates.stream()
+                .filter(target -> target.set() == null)
+                .map(target -> "namespace/" + target.namespace())
+                .distinct()
+                .forEach(commands::add);
+        List<InfoExecutor.Responses> responses = InfoExecutor.requestInOrder(client, commands.toArray(String[]::new));
+
+        Map<SetOnNode, SetStats> sets = new HashMap<>();
+        responses.get(0).byNode().forEach((node, response) -> {
+            for (SetStats stats : SetStats.parseAll(response)) {
+                sets.put(new SetOnNode(node.getName(), stats.namespace(), stats.set()), stats);
+            }
+        });
+        Map<String, InfoExecutor.Responses> namespaces = new HashMap<>();
+        for (InfoExecutor.Responses namespaceResponses : responses.subList(1, responses.size())) {
+            namespaces.put(namespaceResponses.command().substring("namespace/".length()), namespaceResponses);
+        }
+
+        List<Target> done = new ArrayList<>();
+        for (Target target : candidates) {
+            boolean empty = target.set() == null
+                    ? namespaces.get(target.namespace()).byNode().values().stream()
+                            .allMatch(response -> NamespaceStats.parse(response).objects() == 0)
+                    : responses.get(0).byNode().keySet().stream()
+                            .allMatch(node -> isSetTruncated(node, target, sets, lutsBefore));
+            if (empty) {
+                done.add(target);
+            }
+        }
+        return done;
+    }
+
+    private static boolean isSetTruncated(Node node, Target target, Map<SetOnNode, SetStats> sets,
+                                          Map<SetOnNode, Long> lutsBefore) {
+        SetOnNode setOnNode = new SetOnNode(node.getName(), target.namespace(), target.set());
+        SetStats stats = sets.get(setOnNode);
+        if (stats == null) {
+            // the node never had the set
+            return true;
+        }
+        Long lutBefore = lutsBefore.get(setOnNode);
+        return stats.objects() == 0 && (lutBefore == null || stats.truncateLut() > lutBefore);
+    }
+}
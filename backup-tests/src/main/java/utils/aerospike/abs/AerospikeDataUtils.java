@@ -2,16 +2,12 @@ package utils.aerospike.abs;
 
 import com.aerospike.client.Record;
 import com.aerospike.client.*;
-import com.aerospike.client.cluster.Node;
 import com.aerospike.client.cluster.Partition;
-import com.aerospike.client.policy.InfoPolicy;
 import com.aerospike.client.policy.Policy;
 import com.aerospike.client.policy.WritePolicy;
 import com.aerospike.client.task.RegisterTask;
-import com.google.common.base.Preconditions;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
-import org.awaitility.core.ConditionTimeoutException;
 import utils.ASBench;
 import utils.AerospikeLogger;
 import utils.AutoUtils;
@@ -19,14 +15,22 @@ import utils.ConfigParametersHandler;
 import utils.abs.AbsRunner;
 import utils.abs.TlsHandler;
 import utils.aerospike.AerospikeCountUtils;
+import utils.aerospike.BatchWriter;
+import utils.aerospike.InfoExecutor;
+import utils.aerospike.PartitionKeyIndex;
+import utils.aerospike.Truncator;
+import utils.aerospike.load.DatasetRegistry;
+import utils.aerospike.load.LoadReport;
+import utils.aerospike.load.MutationWorkload;
+import utils.aerospike.load.TransactionWorkload;
+import utils.aerospike.load.WorkloadProfile;
 import utils.cliBackup.CliBackupRunner;
+import utils.constants.AsDataTypes;
+import utils.info.SIndexInfo;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static utils.aerospike.AerospikeCountUtils.waitForNamespaceTruncate;
-import static utils.aerospike.AerospikeCountUtils.waitForSetTruncate;
 
 @UtilityClass
 public class AerospikeDataUtils {
@@ -45,16 +49,34 @@ public class AerospikeDataUtils {
     }
 
     public static long put(WritePolicy policy, Key key, String binName, String binValue) {
-        getSourceClient().put(policy, key, new Bin(binName, binValue));
-        long putTime = System.currentTimeMillis() - 1;
-        String[] keyArr = key.toString().split(":");
-        AerospikeLogger.info("Added the value " + binValue + " to the set " + keyArr[1]
-                + " in the namespace " + keyArr[0]);
+        BatchWriter.Result result = batchWriter()
+                .policy(policy)
+                .add(key, new Bin(binName, binValue))
+                .verifyAll()
+                .write()
+                .throwIfFailed();
+        return result.writeTime();
+    }
+
+    /**
+     * Batched alternative to calling put in a loop: add all records, then write them in one go.
+     */
+    public static BatchWriter batchWriter() {
+        return BatchWriter.on(getSourceClient());
+    }
 
-        Preconditions.checkArgument(
-                getSourceClient().get(null, key).getString(binName).equals(binValue),
-                "%s was not written".formatted(binName));
-        return putTime;
+    /**
+     * Concurrent MRT load on the source cluster with a recorded outcome, see {@link TransactionWorkload}.
+     */
+    public static TransactionWorkload transactionWorkload(String namespace, String set) {
+        return TransactionWorkload.on(getSourceClient(), namespace, set);
+    }
+
+    /**
+     * Background updates/deletes/touches/inserts on the source cluster with a change log, see {@link MutationWorkload}.
+     */
+    public static MutationWorkload mutationWorkload(String namespace, String set) {
+        return MutationWorkload.on(getSourceClient(), namespace, set);
     }
 
     public static void putTransaction(WritePolicy writePolicy, Key key, String binName, String binValue, boolean doCommit) {
@@ -100,38 +122,27 @@ public class AerospikeDataUtils {
     }
 
     public static List<Key> putTransactionsInUniquePartition(Key baseKey, String binName, String binValue, int numRecords, int sleepDurationInSeconds) {
-        if (numRecords > 4096) {
+        if (numRecords > PartitionKeyIndex.PARTITIONS) {
             throw new IllegalArgumentException("Cannot ensure unique partitions beyond 4096 records.");
         }
 
         WritePolicy writePolicy = new WritePolicy();
         Txn txn = new Txn();
-        List<Key> keyList = new ArrayList<>();
         writePolicy.setTxn(txn);
 
-        Set<Integer> usedPartitions = new HashSet<>();
+        List<Key> keyList = PartitionKeyIndex.of(baseKey.setName, baseKey.userKey.toString() + "_p")
+                .spreadOverPartitions(baseKey.namespace, numRecords);
 
         for (int i = 0; i < numRecords; i++) {
-            Key newKey;
-            int partitionId;
-
-            do {
-                newKey = new Key(baseKey.namespace, baseKey.setName, UUID.randomUUID().toString());
-                partitionId = Partition.getPartitionId(newKey.digest);
-            } while (usedPartitions.contains(partitionId));
-
-            usedPartitions.add(partitionId);
-
             Bin bin = new Bin(binName, binValue + i);
-            getSourceClient().operate(writePolicy, newKey, Operation.put(bin));
-            keyList.add(newKey);
+            getSourceClient().operate(writePolicy, keyList.get(i), Operation.put(bin));
 
             if (sleepDurationInSeconds > 0) {
                 AutoUtils.sleep(1000 * sleepDurationInSeconds);
             }
         }
 
-        AerospikeLogger.info("Used partitions: " + usedPartitions.size() + " / 4096");
+        AerospikeLogger.info("Used partitions: " + numRecords + " / 4096");
 
         CommitStatus commitStatus = getSourceClient().commit(txn);
         assertThat(commitStatus).isEqualTo(CommitStatus.OK);
@@ -176,23 +187,16 @@ public class AerospikeDataUtils {
     }
 
     public static void put(Key key, String binName, long binValue) {
-        getSourceClient().put(null, key, new Bin(binName, binValue));
-        String[] keyArr = key.toString().split(":");
-        AerospikeLogger.info("Added the value " + binValue + " to the set " + keyArr[1]
-                + " in the namespace " + keyArr[0]);
+        put(key, new Bin(binName, binValue));
     }
 
     public static long put(Key key, String binName, double binValue) {
-        getSourceClient().put(null, key, new Bin(binName, binValue));
-        long putTime = System.currentTimeMillis() - 1;
-        String[] keyArr = key.toString().split(":");
-        AerospikeLogger.info("Added the value " + binValue + " to the set " + keyArr[1]
-                + " in the namespace " + keyArr[0]);
-
-        Preconditions.checkArgument(
-                getSourceClient().get(null, key).getDouble(binName) == binValue,
-                "%s was not written".formatted(binName));
-        return putTime;
+        BatchWriter.Result result = batchWriter()
+                .add(key, new Bin(binName, binValue))
+                .verifyAll()
+                .write()
+                .throwIfFailed();
+        return result.writeTime();
     }
 
     public static long put(Key key, String binName, String binValue) {
@@ -200,10 +204,7 @@ public class AerospikeDataUtils {
     }
 
     public static void put(Key key, String binName, Long binValue) {
-        getSourceClient().put(null, key, new Bin(binName, binValue));
-        String[] keyArr = key.toString().split(":");
-        AerospikeLogger.info("Added the value " + binValue + " to the set " + keyArr[1]
-                + " in the namespace " + keyArr[0]);
+        put(key, new Bin(binName, binValue));
     }
 
     public static void putNoLogs(Key key, Bin... bins) {
@@ -211,9 +212,11 @@ public class AerospikeDataUtils {
     }
 
     public static void put(Key key, Bin... bins) {
-        putNoLogs(key, bins);
-        String[] keyArr = key.toString().split(":");
-        AerospikeLogger.info("Added the bin %s to the set %s in the namespace %s".formatted(Arrays.toString(bins), keyArr[1], keyArr[0]));
+        batchWriter()
+                .add(key, bins)
+                .verifySample(0)
+                .write()
+                .throwIfFailed();
     }
 
     public static long delete(Key... keys) {
@@ -231,23 +234,7 @@ public class AerospikeDataUtils {
     }
 
     public static void truncateNamespace(IAerospikeClient client, String namespace) {
-        InfoPolicy truncatePolicy = new InfoPolicy();
-        truncatePolicy.timeout = 120_000;
-
-        int tries = 0;
-        while (tries++ < 10) {
-            try {
-                AerospikeLogger.info("Try truncate: " + namespace);
-                client.truncate(truncatePolicy, namespace, null, null);
-                waitForNamespaceTruncate(client, namespace);
-                return;
-            } catch (AerospikeException e) {
-                AerospikeLogger.info("Exception during truncate: " + e.getMessage());
-                AutoUtils.sleep(tries * 100L);
-            } catch (ConditionTimeoutException ignored) {
-            }
-        }
-        throw new RuntimeException("Could not truncate namespace " + namespace);
+        Truncator.on(client).namespace(namespace).truncate();
     }
 
     public static void truncateSourceSet(String namespace, String... sets) {
@@ -256,15 +243,7 @@ public class AerospikeDataUtils {
 
     public static void truncateSet(IAerospikeClient client, String namespace, String... sets) {
         if (sets != null) {
-            for (String set : sets) {
-                try {
-                    AerospikeLogger.info("Try truncate: " + namespace + " set " + set);
-                    client.truncate(null, namespace, set, null);
-                    waitForSetTruncate(client, namespace, set);
-                } catch (AerospikeException e) {
-                    AerospikeLogger.info(e.getMessage());
-                }
-            }
+            Truncator.on(client).sets(namespace, sets).truncate();
         }
     }
 
@@ -315,33 +294,19 @@ public class AerospikeDataUtils {
 
     public static boolean isIndexExist(String indexName) {
         String indexesInfo = Info.request(getSourceClient().getInfoPolicyDefault(), getSourceClient().getCluster().getRandomNode(), "sindex");
-        return indexesInfo.contains("indexname=" + indexName);
+        return SIndexInfo.parseAll(indexesInfo).stream().anyMatch(index -> indexName.equals(index.name()));
     }
 
     public static long getDataTotalBytes(String namespace) {
-        long totalBytes = 0;
-        InfoPolicy infoPolicy = getSourceClient().getInfoPolicyDefault();
         try {
-            // Iterate over each node and sum the data used bytes
-            for (Node node : getSourceClient().getCluster().getNodes()) {
-                String namespaceInfo = Info.request(infoPolicy, node, "namespace/" + namespace);
-                AerospikeLogger.info("Namespace info: " + namespaceInfo);
-                totalBytes += extractDataUsedBytes(namespaceInfo);
-            }
+            // data used bytes of all the nodes, requested in parallel
+            long totalBytes = InfoExecutor.request(getSourceClient(), "namespace/" + namespace).sum("data_used_bytes");
+            AerospikeLogger.info("Data used bytes of namespace %s: %d".formatted(namespace, totalBytes));
+            return totalBytes;
         } catch (Exception e) {
             AerospikeLogger.info(e.getMessage());
+            return 0;
         }
-        return totalBytes;
-    }
-
-    private static long extractDataUsedBytes(String namespaceInfo) {
-        for (String stat : namespaceInfo.split(";")) {
-            if (stat.startsWith("data_used_bytes")) {
-                return Long.parseLong(stat.split("=")[1]);
-            }
-        }
-
-        return 0;
     }
 
     public static void createUDF(String udfCode, String fileName) {
@@ -379,16 +344,14 @@ public class AerospikeDataUtils {
     }
 
     public static String getAllNamespaces() {
-        return Info.request(null, getSourceClient().getNodes()[0], "namespaces");
+        return InfoExecutor.cached(getSourceClient(), "namespaces").any();
     }
 
     public static void truncateAllSourceNamespaces(List<String> whiteList) {
-        String[] namespaces = getAllNamespaces().split(";");
-        for (String namespace : namespaces) {
-            if (!whiteList.contains(namespace))
-                truncateSourceNamespace(namespace);
-        }
-        AutoUtils.sleep(5_000);
+        List<String> namespaces = Arrays.stream(getAllNamespaces().split(";"))
+                .filter(namespace -> !whiteList.contains(namespace))
+                .toList();
+        Truncator.on(getSourceClient()).namespaces(namespaces).truncate();
     }
 
     public static void truncateAllSourceNamespaces() {
@@ -441,70 +404,92 @@ public class AerospikeDataUtils {
     }
 
     public static void disableMrtWrites(String namespace) {
-        InfoPolicy infoPolicy = getSourceClient().getInfoPolicyDefault();
-        for (Node node : getSourceClient().getCluster().getNodes()) {
-            String command = String.format("set-config:context=namespace;id=%s;disable-mrt-writes=true", namespace);
-            String response = Info.request(infoPolicy, node, command);
-            assertThat(response).isEqualTo("ok");
-        }
+        String command = String.format("set-config:context=namespace;id=%s;disable-mrt-writes=true", namespace);
+        InfoExecutor.Responses responses = InfoExecutor.request(getSourceClient(), command);
+        assertThat(responses.byNode().values()).containsOnly("ok");
     }
 
     public static void startXdr(String dc, int nodeAddressPort, String namespace) {
-        InfoPolicy infoPolicy = getSourceClient().getInfoPolicyDefault();
-
-        for (Node node : getSourceClient().getCluster().getNodes()) {
-            // Step 1: Delete the existing XDR Data Center (if it exists)
-            String deleteDcCommand = String.format("set-config:context=xdr;dc=%s;action=delete", dc);
-            String deleteDcResponse = Info.request(infoPolicy, node, deleteDcCommand);
-            AerospikeLogger.info("Delete DC Response: " + deleteDcResponse);
-
-            // Step 2: Create a new XDR Data Center
-            String createDcCommand = String.format("set-config:context=xdr;dc=%s;action=create", dc);
-            String createDcResponse = Info.request(infoPolicy, node, createDcCommand);
-            AerospikeLogger.info("Create DC Response: " + createDcResponse);
-
-            // Step 3: Enable the XDR Connector
-            String enableConnectorCommand = String.format("set-config:context=xdr;dc=%s;connector=true", dc);
-            String enableConnectorResponse = Info.request(infoPolicy, node, enableConnectorCommand);
-            AerospikeLogger.info("Enable Connector Response: " + enableConnectorResponse);
-
-            // Step 4: Add a node to the XDR Data Center (Must be in "IP:PORT" format)
-            String addNodeCommand = String.format("set-config:context=xdr;dc=%s;node-address-port=%s;action=add", dc, nodeAddressPort);
-            String addNodeResponse = Info.request(infoPolicy, node, addNodeCommand);
-            AerospikeLogger.info("Add Node Response: " + addNodeResponse);
-
-            // Step 5: Add a namespace for replication with rewind set to "all"
-            String addNamespaceCommand = String.format("set-config:context=xdr;dc=%s;namespace=%s;action=add;rewind=all", dc, namespace);
-            String addNamespaceResponse = Info.request(infoPolicy, node, addNamespaceCommand);
-            AerospikeLogger.info("Add Namespace Response: " + addNamespaceResponse);
+        // every node runs the steps in order, the nodes are configured in parallel
+        List<InfoExecutor.Responses> responses = InfoExecutor.requestInOrder(getSourceClient(),
+                // Step 1: Delete the existing XDR Data Center (if it exists)
+                String.format("set-config:context=xdr;dc=%s;action=delete", dc),
+                // Step 2: Create a new XDR Data Center
+                String.format("set-config:context=xdr;dc=%s;action=create", dc),
+                // Step 3: Enable the XDR Connector
+                String.format("set-config:context=xdr;dc=%s;connector=true", dc),
+                // Step 4: Add a node to the XDR Data Center (Must be in "IP:PORT" format)
+                String.format("set-config:context=xdr;dc=%s;node-address-port=%s;action=add", dc, nodeAddressPort),
+                // Step 5: Add a namespace for replication with rewind set to "all"
+                String.format("set-config:context=xdr;dc=%s;namespace=%s;action=add;rewind=all", dc, namespace));
+        for (InfoExecutor.Responses step : responses) {
+            AerospikeLogger.info("Response to %s: %s".formatted(step.command(), step.byNode().values()));
         }
     }
 
     public void createBigData(String sourceNamespace, String setName, double desiredMinNumberOfRecordsInMillions, String recordType) {
-        int targetTotalRecords = (int) (desiredMinNumberOfRecordsInMillions * 1_000_000);
+        long targetTotalRecords = (long) (desiredMinNumberOfRecordsInMillions * 1_000_000);
         AerospikeLogger.info("Starting data creation for: " + recordType);
         AerospikeLogger.info("Target: " + targetTotalRecords + " records");
 
-        int startKey = AerospikeCountUtils.getSetObjectCount(getSourceClient(), setName, sourceNamespace);
+        long startKey = AerospikeCountUtils.countSetObjects(getSourceClient(), setName, sourceNamespace,
+                AerospikeCountUtils.CountMode.EXACT);
 
         AerospikeLogger.info("Initial DB count: " + startKey);
-        ASBench.on(sourceNamespace, setName)
+        LoadReport report = ASBench.on(sourceNamespace, setName)
                 .startKey(startKey)
                 .keys(targetTotalRecords)
                 .threads(64)
                 .batchSize(100)
                 .recordType(recordType)
-                .run();
+                .load();
 
-        int finalCount = AerospikeCountUtils.getSetObjectCount(getSourceClient(), setName, sourceNamespace);
         AerospikeLogger.info("Finished data creation for: " + recordType);
-        AerospikeLogger.info("Final SET count: " + finalCount + " (Expected to add " + targetTotalRecords + ")");
+        AerospikeLogger.info("Written records: " + report.written() + " (Expected to add " + targetTotalRecords + ")");
+        if (!report.isComplete()) {
+            AerospikeLogger.info("Data creation for %s finished with %d failed records".formatted(recordType, report.errors()));
+        }
     }
 
     public void createBigData(String sourceNamespace, String setName, int desiredMinNumberOfRecordsInMillions) {
         createBigData(sourceNamespace, setName, desiredMinNumberOfRecordsInMillions, "B1024");
     }
 
+    /**
+     * Makes the namespace hold exactly the given generated dataset: when the {@link DatasetRegistry} shows it is
+     * already there nothing is written, otherwise the namespace is truncated and the data loaded and registered.
+     *
+     * @param recordType an asbench object spec, an {@link AsDataTypes} profile or a {@link WorkloadProfile} name
+     */
+    public void ensureBigData(String sourceNamespace, String setName, double numberOfRecordsInMillions, String recordType) {
+        DatasetRegistry.Spec spec = new DatasetRegistry.Spec(sourceNamespace, setName, 0,
+                (long) (numberOfRecordsInMillions * 1_000_000), recordType, 0);
+        if (DatasetRegistry.isLoaded(getSourceClient(), spec)) {
+            AerospikeLogger.info("Reusing data already loaded in " + sourceNamespace);
+            return;
+        }
+
+        truncateSourceNamespace(sourceNamespace);
+        ASBench bench = ASBench.on(sourceNamespace, setName)
+                .startKey(spec.startKey())
+                .keys(spec.keys())
+                .threads(64)
+                .batchSize(100)
+                .seed(spec.seed());
+        LoadReport report = AsDataTypes.isDataType(recordType) || WorkloadProfile.isNamed(recordType)
+                ? bench.dataType(recordType).load()
+                : bench.recordType(recordType).load();
+
+        AerospikeLogger.info("Finished data creation for %s: %s".formatted(recordType, report));
+        if (report.isComplete()) {
+            DatasetRegistry.register(getSourceClient(), spec);
+        } else {
+            DatasetRegistry.forget(getSourceClient(), spec);
+            AerospikeLogger.info("Data creation for %s finished with %d failed records, not registering it"
+                    .formatted(recordType, report.errors()));
+        }
+    }
+
     public static List<Key> filterKeysByPartition(List<Key> allKeys, int partitionId) {
         List<Key> samePartitionKeys = new ArrayList<>();
         for (Key key : allKeys) {
@@ -515,57 +500,28 @@ public class AerospikeDataUtils {
         return samePartitionKeys;
     }
 
-    public static Map<String, Map<String, Object>> getAllRecords(String namespace, String set) {
-        Map<String, Map<String, Object>> result = new ConcurrentHashMap<>();
-        getSourceClient().scanAll(
-                null,
-                namespace,
-                set,
-                (key, record) -> {
-                    if (record != null) {
-                        String digestKey = Base64.getEncoder().encodeToString(key.digest);
-                        result.put(digestKey, record.bins);
-                    }
-                }
-        );
-        return result;
-    }
-
     public void createData(String sourceNamespace, String setName, int desiredNumberOfRecords, int recordSizeInBytes) {
-        int maxAttempts = 15;
-        int attempt = 0;
-        int recordCount = AerospikeCountUtils.getSetObjectCount(getSourceClient(), setName, sourceNamespace);
-        int recordsToCreate = desiredNumberOfRecords - recordCount;
+        long recordCount = AerospikeCountUtils.countSetObjects(getSourceClient(), setName, sourceNamespace,
+                AerospikeCountUtils.CountMode.EXACT);
+        long recordsToCreate = desiredNumberOfRecords - recordCount;
 
         AerospikeLogger.info("Starting to create exactly " + desiredNumberOfRecords + " records");
-
-        int startKey = recordCount;
-
-        while (recordsToCreate > 0 && attempt < maxAttempts) {
-            AerospikeLogger.info("Attempt #" + (attempt + 1) + " — Records to create: " + recordsToCreate);
-
-            ASBench.on(sourceNamespace, setName)
-                    .startKey(startKey)
-                    .keys(recordsToCreate)
-                    .threads(10)
-                    .batchSize(100)
-                    .recordSize(recordSizeInBytes)
-                    .run();
-
-            attempt++;
-            startKey += recordsToCreate;
-
-            int newCount = AerospikeCountUtils.getSetObjectCount(getSourceClient(), setName, sourceNamespace);
-            recordsToCreate = desiredNumberOfRecords - newCount;
-            recordCount = newCount;
-
-            AerospikeLogger.info("Current record count: " + recordCount);
+        if (recordsToCreate <= 0) {
+            AerospikeLogger.info("Set already holds " + recordCount + " records, nothing to create");
+            return;
         }
 
-        int finalCount = AerospikeCountUtils.getSetObjectCount(getSourceClient(), setName, sourceNamespace);
-        AerospikeLogger.info("Final record count after exact data creation: " + finalCount);
-        assertThat(finalCount)
-                .as("The number of records should be exactly or slightly more than the desired count")
-                .isGreaterThanOrEqualTo(desiredNumberOfRecords);
+        LoadReport report = ASBench.on(sourceNamespace, setName)
+                .startKey(recordCount)
+                .keys(recordsToCreate)
+                .threads(10)
+                .batchSize(100)
+                .recordSize(recordSizeInBytes)
+                .load();
+
+        AerospikeLogger.info("Final record count after exact data creation: " + (recordCount + report.written()));
+        assertThat(report.written())
+                .as("All %d new records should be acknowledged by the server (%s)", recordsToCreate, report)
+                .isEqualTo(recordsToCreate);
     }
-}
\ No newline at end of file
+}
@@ -2,16 +2,14 @@ package utils.aerospike.adr;
 
 import com.aerospike.client.*;
 import lombok.experimental.UtilityClass;
-import org.awaitility.core.ConditionTimeoutException;
 import utils.AerospikeLogger;
-import utils.AutoUtils;
+import utils.aerospike.BatchWriter;
+import utils.aerospike.Truncator;
 import utils.init.runners.BackupRunner;
 import utils.init.runners.TlsHandler;
 
 import java.util.HexFormat;
 
-import static utils.aerospike.AerospikeCountUtils.waitForNamespaceTruncate;
-import static utils.aerospike.AerospikeCountUtils.waitForSetTruncate;
 
 @UtilityClass
 public class AerospikeDataUtils {
@@ -20,24 +18,26 @@ public class AerospikeDataUtils {
     private static volatile IAerospikeClient backupClient;
 
     public static void put(Key key, String binName, String binValue) {
-        getSourceClient().put(null, key, new Bin(binName, binValue));
-        String[] keyArr = key.toString().split(":");
-        AerospikeLogger.info("Added the value " + binValue + " to the set " + keyArr[1]
-                + " in the namespace " + keyArr[0]);
+        put(key, new Bin(binName, binValue));
     }
 
     public static void put(Key key, String binName, Long binValue) {
-        getSourceClient().put(null, key, new Bin(binName, binValue));
-        String[] keyArr = key.toString().split(":");
-        AerospikeLogger.info("Added the value " + binValue + " to the set " + keyArr[1]
-                + " in the namespace " + keyArr[0]);
+        put(key, new Bin(binName, binValue));
     }
 
     public static void put(Key key, Bin bin) {
-        getSourceClient().put(null, key, bin);
-        String[] keyArr = key.toString().split(":");
-        AerospikeLogger.info("Added the bin " + bin.toString() + " to the set " + keyArr[1]
-                + " in the namespace " + keyArr[0]);
+        batchWriter()
+                .add(key, bin)
+                .verifySample(0)
+                .write()
+                .throwIfFailed();
+    }
+
+    /**
+     * Batched alternative to calling put in a loop: add all records, then write them in one go.
+     */
+    public static BatchWriter batchWriter() {
+        return BatchWriter.on(getSourceClient());
     }
 
     public static void delete(Key key) {
@@ -54,20 +54,7 @@ public class AerospikeDataUtils {
     }
 
     private static void truncateNamespace(IAerospikeClient client, String namespace) {
-        int tries = 0;
-        while (tries++ < 10) {
-            try {
-                AerospikeLogger.info("Try truncate: " + namespace);
-                client.truncate(null, namespace, null, null);
-                waitForNamespaceTruncate(client, namespace);
-                return;
-            } catch (AerospikeException e) {
-                AerospikeLogger.info("Exception during truncate: " + e.getMessage());
-                AutoUtils.sleep(tries * 1000L);
-            } catch (ConditionTimeoutException ignored) {
-            }
-        }
-        throw new RuntimeException("Could not truncate namespace " + namespace);
+        Truncator.on(client).namespace(namespace).truncate();
     }
 
     public static void truncateSourceSet(String namespace, String... sets) {
@@ -76,15 +63,7 @@ public class AerospikeDataUtils {
 
     public static void truncateSet(IAerospikeClient client, String namespace, String... sets) {
         if (sets != null) {
-            for (String set : sets) {
-                try {
-                    AerospikeLogger.info("Try truncate: " + namespace + " set " + set);
-                    client.truncate(null, namespace, set, null);
-                    waitForSetTruncate(client, namespace, set);
-                } catch (AerospikeException e) {
-                    AerospikeLogger.info(e.getMessage());
-                }
-            }
+            Truncator.on(client).sets(namespace, sets).truncate();
         }
     }
 
@@ -0,0 +1,192 @@
+package utils.aerospike.load;
+
+import com.aerospike.client.*;
+import com.aerospike.client.async.EventLoops;
+import com.aerospike.client.async.EventPolicy;
+import com.aerospike.client.async.NioEventLoops;
+import com.aerospike.client.cluster.Node;
+import com.aerospike.client.listener.BatchOperateListListener;
+import com.aerospike.client.policy.BatchPolicy;
+import com.aerospike.client.policy.BatchWritePolicy;
+import com.aerospike.client.policy.ClientPolicy;
+import utils.AerospikeLogger;
+import utils.metrics.LatencyHistogram;
+import utils.metrics.RecordShapeHistogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process replacement for the asbench insert workload.
+ * Writes sequential integer keys with async batch writes on dedicated event loops and reports exactly
+ * how many records were acknowledged by the server.
+ */
+public class AsyncBulkLoader implements AutoCloseable {
+
+    private final EventLoops eventLoops;
+    private final IAerospikeClient client;
+    private final int maxBatchesInFlight;
+
+    public AsyncBulkLoader(ClientPolicy basePolicy, Host[] hosts, int maxBatchesInFlight) {
+        this.maxBatchesInFlight = Math.max(1, maxBatchesInFlight);
+        int loops = Math.min(this.maxBatchesInFlight, Runtime.getRuntime().availableProcessors());
+        this.eventLoops = new NioEventLoops(new EventPolicy(), loops);
+
+        ClientPolicy policy = new ClientPolicy(basePolicy);
+        policy.eventLoops = eventLoops;
+        this.client = new AerospikeClient(policy, hosts);
+    }
+
+    /**
+     * Opens a loader against the cluster the given client is connected to, reusing its client policy.
+     */
+    public static AsyncBulkLoader forCluster(ClientPolicy basePolicy, IAerospikeClient connectedClient, int maxBatchesInFlight) {
+        Host[] hosts = Arrays.stream(connectedClient.getNodes())
+                .map(Node::getHost)
+                .toArray(Host[]::new);
+        return new AsyncBulkLoader(basePolicy, hosts, maxBatchesInFlight);
+    }
+
+    public record Plan(String namespace,
+                       String set,
+                       long startKey,
+                       long keys,
+                       int batchSize,
+                       long throughput,
+                       Duration duration,
+                       boolean sendKey,
+                       RecordGenerator generator) {
+    }
+
+    public LoadReport load(Plan plan) {
+        AerospikeLogger.info("Starting in-process load of %d keys from key %d into %s.%s (data=%s, batchSize=%d, inFlight=%d, throughput=%d)"
+                .formatted(plan.keys(), plan.startKey(), plan.namespace(), plan.set(), plan.generator(),
+                        plan.batchSize(), maxBatchesInFlight, plan.throughput()));
+
+        BatchPolicy batchPolicy = client.copyBatchPolicyDefault();
+        BatchWritePolicy writePolicy = new BatchWritePolicy();
+        writePolicy.sendKey = plan.sendKey();
+
+        Semaphore inFlight = new Semaphore(maxBatchesInFlight);
+        AtomicLong written = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong timeouts = new AtomicLong();
+        LatencyHistogram latency = new LatencyHistogram();
+        RecordShapeHistogram shapes = new RecordShapeHistogram();
+
+        long start = System.nanoTime();
+        long deadline = plan.duration() == null ? Long.MAX_VALUE : start + plan.duration().toNanos();
+        long endKey = plan.startKey() + plan.keys();
+        long issued = 0;
+
+        for (long batchStart = plan.startKey(); batchStart < endKey && System.nanoTime() < deadline; batchStart += plan.batchSize()) {
+            int size = (int) Math.min(plan.batchSize(), endKey - batchStart);
+            List<BatchRecord> records = new ArrayList<>(size);
+            RecordShapeHistogram.Shape[] recordShapes = new RecordShapeHistogram.Shape[size];
+            for (long keyIndex = batchStart; keyIndex < batchStart + size; keyIndex++) {
+                Key key = new Key(plan.namespace(), plan.set(), keyIndex);
+                Bin[] bins = plan.generator().bins(keyIndex);
+                recordShapes[records.size()] = RecordShapeHistogram.Shape.of(bins);
+                records.add(new BatchWrite(writePolicy, key, putAll(bins)));
+            }
+
+            throttle(start, issued, plan.throughput());
+            inFlight.acquireUninterruptibly();
+            long sentAt = System.nanoTime();
+            BatchOperateListListener listener = new BatchOperateListListener() {
+                @Override
+                public void onSuccess(List<BatchRecord> ignored, boolean status) {
+                    complete();
+                }
+
+                @Override
+                public void onFailure(AerospikeException ae) {
+                    complete();
+                }
+
+                private void complete() {
+                    latency.recordNanos(System.nanoTime() - sentAt);
+                    tally(records, written, errors, timeouts);
+                    recordWritten(records, recordShapes, shapes);
+                    inFlight.release();
+                }
+            };
+
+            try {
+                client.operate(eventLoops.next(), listener, batchPolicy, records);
+            } catch (AerospikeException e) {
+                AerospikeLogger.info("Failed to submit batch starting at key %d: %s".formatted(batchStart, e.getMessage()));
+                tally(records, written, errors, timeouts);
+                inFlight.release();
+            }
+            issued += size;
+        }
+
+        inFlight.acquireUninterruptibly(maxBatchesInFlight);
+        inFlight.release(maxBatchesInFlight);
+
+        LoadReport report = new LoadReport(issued, written.get(), errors.get(), timeouts.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), latency, shapes);
+        AerospikeLogger.info("Finished in-process load into %s.%s: %s".formatted(plan.namespace(), plan.set(), report));
+        return report;
+    }
+
+    private static Operation[] putAll(Bin[] bins) {
+        Operation[] operations = new Operation[bins.length];
+        for (int i = 0; i < bins.length; i++) {
+            operations[i] = Operation.put(bins[i]);
+        }
+        return operations;
+    }
+
+    private static void tally(List<BatchRecord> records, AtomicLong written, AtomicLong errors, AtomicLong timeouts) {
+        long ok = 0;
+        long failed = 0;
+        long timedOut = 0;
+        for (BatchRecord record : records) {
+            if (record.resultCode == ResultCode.OK) {
+                ok++;
+            } else {
+                failed++;
+                if (record.resultCode == ResultCode.TIMEOUT || record.resultCode == ResultCode.NO_RESPONSE) {
+                    timedOut++;
+                }
+            }
+        }
+        written.addAndGet(ok);
+        errors.addAndGet(failed);
+        timeouts.addAndGet(timedOut);
+    }
+
+    private static void recordWritten(List<BatchRecord> records, RecordShapeHistogram.Shape[] recordShapes,
+                                      RecordShapeHistogram shapes) {
+        for (int i = 0; i < records.size(); i++) {
+            if (records.get(i).resultCode == ResultCode.OK) {
+                shapes.record(recordShapes[i]);
+            }
+        }
+    }
+
+    private static void throttle(long start, long issued, long throughput) {
+        if (throughput <= 0) {
+            return;
+        }
+        long dueAt = start + issued * TimeUnit.SECONDS.toNanos(1) / throughput;
+        long wait = dueAt - System.nanoTime();
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        eventLoops.close();
+    }
+}
@@ -0,0 +1,191 @@
+package utils.aerospike.load;
+
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of the records a {@link MutationWorkload} changed: digest, mutation type and the client time
+ * window [start, end] in which the server applied it. Entries take 29 bytes and are stored in fixed size chunks,
+ * so millions of mutations cost tens of megabytes and no per-entry objects.
+ * <p>
+ * {@link #expect} turns the log into the exact content of an incremental backup, without scanning the cluster.
+ */
+public class ChangeLog {
+
+    public enum Type {INSERT, UPDATE, TOUCH, DELETE}
+
+    public record Entry(Key key, Type type, long startMillis, long endMillis) {
+    }
+
+    /**
+     * @param written   records whose last change falls inside the window, they must be in the backup
+     * @param deleted   records deleted inside the window (and not written again), they must not be in the backup
+     * @param uncertain records changed so close to a window edge, again while the backup was scanning, or by
+     *                  two overlapping changes, that either outcome is correct
+     */
+    public record Expectation(Set<Key> written, Set<Key> deleted, Set<Key> uncertain) {
+        private static final int READ_BATCH_SIZE = 5_000;
+
+        /**
+         * Written keys that have no record, e.g. after restoring the backup into an empty namespace.
+         */
+        public List<Key> findMissingKeys(IAerospikeClient client) {
+            List<Key> keys = List.copyOf(written);
+            return exists(client, keys, false);
+        }
+
+        /**
+         * Deleted keys that have a record. Only meaningful when nothing older brought them back: incremental
+         * backups do not carry deletes, so a record deleted after the full backup comes back with it.
+         */
+        public List<Key> findResurrectedKeys(IAerospikeClient client) {
+            List<Key> keys = List.copyOf(deleted);
+            return exists(client, keys, true);
+        }
+
+        private static List<Key> exists(IAerospikeClient client, List<Key> keys, boolean exists) {
+            List<Key> found = new ArrayList<>();
+            for (int from = 0; from < keys.size(); from += READ_BATCH_SIZE) {
+                Key[] batch = keys.subList(from, Math.min(keys.size(), from + READ_BATCH_SIZE)).toArray(new Key[0]);
+                boolean[] existing = client.exists(null, batch);
+                for (int i = 0; i < batch.length; i++) {
+                    if (existing[i] == exists) {
+                        found.add(batch[i]);
+                    }
+                }
+            }
+            return found;
+        }
+
+        @Override
+        public String toString() {
+            return "written=%d deleted=%d uncertain=%d".formatted(written.size(), deleted.size(), uncertain.size());
+        }
+    }
+
+    private static final int DIGEST_SIZE = 20;
+    private static final int ENTRY_SIZE = DIGEST_SIZE + 1 + 2 * Integer.BYTES;
+    private static final int CHUNK_ENTRIES = 1 << 16;
+    private static final Type[] TYPES = Type.values();
+
+    private final String namespace;
+    private final String set;
+    private final long epochMillis = System.currentTimeMillis();
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private int size;
+
+    public ChangeLog(String namespace, String set) {
+        this.namespace = namespace;
+        this.set = set;
+    }
+
+    public synchronized void append(byte[] digest, Type type, long startMillis, long endMillis) {
+        int position = size % CHUNK_ENTRIES;
+        if (position == 0) {
+            chunks.add(ByteBuffer.allocate(CHUNK_ENTRIES * ENTRY_SIZE));
+        }
+        chunks.get(chunks.size() - 1)
+                .put(position * ENTRY_SIZE, digest, 0, DIGEST_SIZE)
+                .put(position * ENTRY_SIZE + DIGEST_SIZE, (byte) type.ordinal())
+                .putInt(position * ENTRY_SIZE + DIGEST_SIZE + 1, offset(startMillis))
+                .putInt(position * ENTRY_SIZE + DIGEST_SIZE + 1 + Integer.BYTES, offset(endMillis));
+        size++;
+    }
+
+    // times are stored as int millisecond offsets from the log creation (24 days), an unknown end saturates
+    private int offset(long millis) {
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, millis - epochMillis));
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public void forEach(Consumer<Entry> consumer) {
+        List<ByteBuffer> snapshot;
+        int entries;
+        synchronized (this) {
+            snapshot = List.copyOf(chunks);
+            entries = size;
+        }
+        for (int i = 0; i < entries; i++) {
+            ByteBuffer chunk = snapshot.get(i / CHUNK_ENTRIES);
+            int offset = (i % CHUNK_ENTRIES) * ENTRY_SIZE;
+            byte[] digest = new byte[DIGEST_SIZE];
+            chunk.get(offset, digest);
+            consumer.accept(new Entry(new Key(namespace, digest, set, null), TYPES[chunk.get(offset + DIGEST_SIZE)],
+                    epochMillis + chunk.getInt(offset + DIGEST_SIZE + 1),
+                    epochMillis + chunk.getInt(offset + DIGEST_SIZE + 1 + Integer.BYTES)));
+        }
+    }
+
+    /**
+     * Expected content of an incremental backup of records modified in [fromMillis, toMillis), whose scan
+     * finished at {@code scanEndMillis}. Changes made after the scan finished are ignored.
+     */
+    public Expectation expect(long fromMillis, long toMillis, long scanEndMillis) {
+        Map<Key, Latest> latest = new HashMap<>();
+        Set<Key> uncertain = new HashSet<>();
+        forEach(entry -> {
+            if (entry.startMillis() > scanEndMillis) {
+                return;
+            }
+            if (straddles(entry, fromMillis) || straddles(entry, toMillis) || entry.endMillis() >= toMillis) {
+                // applied on an edge, or after the cutoff while the backup may or may not have read the record yet
+                uncertain.add(entry.key());
+            }
+            latest.merge(entry.key(), new Latest(entry, Long.MIN_VALUE), Latest::merge);
+        });
+
+        Set<Key> written = new HashSet<>();
+        Set<Key> deleted = new HashSet<>();
+        latest.forEach((key, state) -> {
+            Entry entry = state.entry();
+            if (state.earlierEndMillis() >= entry.startMillis()) {
+                // sent concurrently by two workers, the server may have applied them in either order
+                uncertain.add(key);
+            }
+            if (uncertain.contains(key) || entry.endMillis() < fromMillis) {
+                return;
+            }
+            if (entry.type() == Type.DELETE) {
+                deleted.add(key);
+            } else {
+                written.add(key);
+            }
+        });
+        return new Expectation(written, deleted, uncertain);
+    }
+
+    /**
+     * Same as {@link #expect(long, long, long)} when the workload was stopped before the backup started.
+     */
+    public Expectation expect(long fromMillis, long toMillis) {
+        return expect(fromMillis, toMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * Latest started change of a key, and the latest end of the changes started before it.
+     */
+    private record Latest(Entry entry, long earlierEndMillis) {
+        Latest merge(Latest other) {
+            Entry next = other.entry();
+            return next.startMillis() >= entry.startMillis()
+                    ? new Latest(next, Math.max(earlierEndMillis, entry.endMillis()))
+                    : new Latest(entry, Math.max(earlierEndMillis, next.endMillis()));
+        }
+    }
+
+    private static boolean straddles(Entry entry, long millis) {
+        return entry.startMillis() <= millis && entry.endMillis() >= millis;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeLog(%s.%s, %d entries)".formatted(namespace, set, size());
+    }
+}
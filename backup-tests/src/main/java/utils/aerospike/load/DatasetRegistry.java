@@ -0,0 +1,187 @@
+package utils.aerospike.load;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import com.aerospike.client.policy.BatchPolicy;
+import com.aerospike.client.policy.WritePolicy;
+import lombok.experimental.UtilityClass;
+import utils.AerospikeLogger;
+import utils.aerospike.AerospikeCountUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Remembers which generated datasets were loaded, so multi-million record fixtures can skip truncate and reload
+ * when the cluster still holds exactly that dataset.
+ * <p>
+ * A dataset is identified by its generation {@link Spec}. After a complete load its {@link Fingerprint} (object
+ * count of every set in the namespace and a hash of a fixed sample of records) is saved in a marker record of the
+ * {@value #REGISTRY_SET} set of the same namespace, so it lives as long as the data, on fresh test runners too:
+ * a truncate of the namespace drops it, and a backup of the namespace restores it along with the data. A later
+ * run recomputes the fingerprint from the cluster and reuses the data only if both match, so a set truncated or
+ * reloaded by hand, a partial load or leftovers of another test in the namespace all force a reload.
+ */
+@UtilityClass
+public class DatasetRegistry {
+
+    public static final int SAMPLE_SIZE = 1024;
+    /**
+     * Set of the marker records, one per registered dataset of the namespace.
+     */
+    public static final String REGISTRY_SET = "datasetRegistry";
+    private static final String SPEC_BIN = "spec";
+    private static final String REGISTERED_BIN = "registered";
+    private static final String SAMPLE_HASH_BIN = "sampleHash";
+    private static final String SETS_BIN = "sets";
+    private static final long MISSING = 0x6D697373696E6721L;
+
+    /**
+     * Keys {@code [startKey, startKey + keys)} of {@code set}, written by the in-process loader with
+     * {@code recordType} (an object spec or an {@link utils.constants.AsDataTypes} profile) and {@code seed}.
+     */
+    public record Spec(String namespace, String set, long startKey, long keys, String recordType, long seed) {
+        String id() {
+            try {
+                MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                byte[] hash = sha.digest(toString().getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(hash, 0, 8);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * @param setObjects object count of each non-empty set of the namespace, the marker records left out
+     * @param sampleHash order-independent hash of the bins of {@link #SAMPLE_SIZE} keys spread over the key range
+     */
+    public record Fingerprint(Map<String, Long> setObjects, long sampleHash) {
+        @Override
+        public String toString() {
+            return "sets=%s sampleHash=%016x".formatted(setObjects, sampleHash);
+        }
+    }
+
+    /**
+     * True when {@code spec} was {@link #register registered} and the cluster still holds that exact dataset.
+     */
+    public static boolean isLoaded(IAerospikeClient client, Spec spec) {
+        Optional<Fingerprint> registered = registered(client, spec);
+        if (registered.isEmpty()) {
+            AerospikeLogger.info("Dataset %s is not registered on the cluster".formatted(spec));
+            return false;
+        }
+        Map<String, Long> setObjects = setObjects(client, spec);
+        if (!setObjects.equals(registered.get().setObjects())) {
+            AerospikeLogger.info("Dataset %s changed: registered sets %s, found %s"
+                    .formatted(spec, registered.get().setObjects(), setObjects));
+            return false;
+        }
+        long sampleHash = sampleHash(client, spec);
+        if (sampleHash != registered.get().sampleHash()) {
+            AerospikeLogger.info("Dataset %s changed: sampled records do not match the registered hash".formatted(spec));
+            return false;
+        }
+        AerospikeLogger.info("Dataset %s is already loaded (%s)".formatted(spec, registered.get()));
+        return true;
+    }
+
+    /**
+     * Fingerprints the dataset as it is now on the cluster and saves it, call it once the load is complete.
+     */
+    public static Fingerprint register(IAerospikeClient client, Spec spec) {
+        Fingerprint fingerprint = new Fingerprint(setObjects(client, spec), sampleHash(client, spec));
+        WritePolicy policy = client.copyWritePolicyDefault();
+        // the marker lives as long as the data, not the default TTL of the namespace
+        policy.expiration = -1;
+        client.put(policy, marker(spec),
+                new Bin(SPEC_BIN, spec.toString()),
+                new Bin(REGISTERED_BIN, Instant.now().toString()),
+                new Bin(SAMPLE_HASH_BIN, fingerprint.sampleHash()),
+                new Bin(SETS_BIN, fingerprint.setObjects()));
+        AerospikeLogger.info("Registered dataset %s: %s".formatted(spec, fingerprint));
+        return fingerprint;
+    }
+
+    public static Optional<Fingerprint> registered(IAerospikeClient client, Spec spec) {
+        Record record = client.get(null, marker(spec));
+        if (record == null || !spec.toString().equals(record.getString(SPEC_BIN))) {
+            return Optional.empty();
+        }
+        Map<String, Long> setObjects = new TreeMap<>();
+        record.getMap(SETS_BIN).forEach((set, objects) ->
+                setObjects.put((String) set, ((Number) objects).longValue()));
+        return Optional.of(new Fingerprint(setObjects, record.getLong(SAMPLE_HASH_BIN)));
+    }
+
+    /**
+     * Drops the registration, e.g. before a test modifies the dataset in place.
+     */
+    public static void forget(IAerospikeClient client, Spec spec) {
+        client.delete(null, marker(spec));
+    }
+
+    private static Key marker(Spec spec) {
+        return new Key(spec.namespace(), REGISTRY_SET, spec.id());
+    }
+
+    private static Map<String, Long> setObjects(IAerospikeClient client, Spec spec) {
+        Map<String, Long> setObjects = new TreeMap<>(AerospikeCountUtils.getSetObjectCounts(client, spec.namespace()));
+        setObjects.remove(REGISTRY_SET);
+        return setObjects;
+    }
+
+    private static long sampleHash(IAerospikeClient client, Spec spec) {
+        int samples = (int) Math.min(SAMPLE_SIZE, spec.keys());
+        long[] keyIndexes = new long[samples];
+        Key[] keys = new Key[samples];
+        for (int i = 0; i < samples; i++) {
+            keyIndexes[i] = spec.startKey() + i * spec.keys() / samples;
+            keys[i] = new Key(spec.namespace(), spec.set(), keyIndexes[i]);
+        }
+        BatchPolicy batchPolicy = client.copyBatchPolicyDefault();
+        batchPolicy.maxConcurrentThreads = 0;
+        Record[] records = client.get(batchPolicy, keys);
+
+        long hash = 0;
+        for (int i = 0; i < samples; i++) {
+            hash = mix(hash ^ keyIndexes[i]);
+            hash = records[i] == null ? mix(hash ^ MISSING) : hash(hash, records[i].bins);
+        }
+        return hash;
+    }
+
+    // maps are hashed independently of their iteration order, the server does not preserve it for unordered maps
+    private static long hash(long hash, Object value) {
+        if (value instanceof byte[] bytes) {
+            return mix(hash ^ Arrays.hashCode(bytes) ^ (long) bytes.length << 32);
+        }
+        if (value instanceof List<?> list) {
+            hash = mix(hash ^ list.size());
+            for (Object element : list) {
+                hash = hash(hash, element);
+            }
+            return hash;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long entries = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                entries += hash(hash(0, entry.getKey()), entry.getValue());
+            }
+            return mix(hash ^ entries ^ map.size());
+        }
+        return mix(hash ^ Objects.hashCode(value));
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,97 @@
+package utils.aerospike.load;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks the key index of the next operation of a workload. Implementations are thread safe.
+ */
+public interface KeyDistribution {
+
+    long next(RandomGenerator random);
+
+    /**
+     * Walks the keys in order, wrapping around after the last one.
+     */
+    static KeyDistribution sequential(long startKey, long keys) {
+        Preconditions.checkArgument(keys > 0, "keys must be positive");
+        AtomicLong counter = new AtomicLong();
+        return random -> startKey + Math.floorMod(counter.getAndIncrement(), keys);
+    }
+
+    static KeyDistribution uniform(long startKey, long keys) {
+        Preconditions.checkArgument(keys > 0, "keys must be positive");
+        return random -> startKey + random.nextLong(keys);
+    }
+
+    /**
+     * Zipfian skew over the keys, {@code startKey} being the hottest one. A theta of 0.99 is the usual YCSB skew.
+     */
+    static KeyDistribution zipfian(long startKey, long keys, double theta) {
+        return new Zipfian(startKey, keys, theta);
+    }
+
+    /**
+     * Zipfian generator from Gray et al., "Quickly Generating Billion-Record Synthetic Databases".
+     */
+    final class Zipfian implements KeyDistribution {
+        private static final int EXACT_ZETA_TERMS = 1_000_000;
+
+        private final long startKey;
+        private final long keys;
+        private final double theta;
+        private final double alpha;
+        private final double zetaN;
+        private final double eta;
+        private final double halfPowTheta;
+
+        private Zipfian(long startKey, long keys, double theta) {
+            Preconditions.checkArgument(keys > 0, "keys must be positive");
+            Preconditions.checkArgument(theta > 0 && theta < 1, "theta must be in (0, 1), got %s", theta);
+            this.startKey = startKey;
+            this.keys = keys;
+            this.theta = theta;
+            this.alpha = 1 / (1 - theta);
+            this.zetaN = zeta(keys, theta);
+            this.halfPowTheta = Math.pow(0.5, theta);
+            double zeta2 = 1 + halfPowTheta;
+            this.eta = (1 - Math.pow(2.0 / keys, 1 - theta)) / (1 - zeta2 / zetaN);
+        }
+
+        @Override
+        public long next(RandomGenerator random) {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            if (uz < 1) {
+                return startKey;
+            }
+            if (uz < 1 + halfPowTheta) {
+                return startKey + Math.min(1, keys - 1);
+            }
+            long rank = (long) (keys * Math.pow(eta * u - eta + 1, alpha));
+            return startKey + Math.min(rank, keys - 1);
+        }
+
+        // exact for the first terms, Euler-Maclaurin tail beyond that, so huge key spaces don't take seconds to set up
+        private static double zeta(long n, double theta) {
+            long exactTerms = Math.min(n, EXACT_ZETA_TERMS);
+            double sum = 0;
+            for (long i = 1; i <= exactTerms; i++) {
+                sum += Math.pow(i, -theta);
+            }
+            if (n > exactTerms) {
+                double m = exactTerms;
+                sum += (Math.pow(n, 1 - theta) - Math.pow(m, 1 - theta)) / (1 - theta)
+                        + (Math.pow(n, -theta) - Math.pow(m, -theta)) / 2;
+            }
+            return sum;
+        }
+
+        @Override
+        public String toString() {
+            return "zipfian(theta=%s, keys=%d)".formatted(theta, keys);
+        }
+    }
+}
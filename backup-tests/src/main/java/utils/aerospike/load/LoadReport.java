@@ -0,0 +1,27 @@
+package utils.aerospike.load;
+
+import utils.metrics.LatencyHistogram;
+import utils.metrics.RecordShapeHistogram;
+
+public record LoadReport(long requested,
+                         long written,
+                         long errors,
+                         long timeouts,
+                         long durationMillis,
+                         LatencyHistogram batchLatency,
+                         RecordShapeHistogram shapes) {
+
+    public double recordsPerSecond() {
+        return durationMillis == 0 ? written : written * 1000.0 / durationMillis;
+    }
+
+    public boolean isComplete() {
+        return written == requested && errors == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "requested=%d written=%d errors=%d timeouts=%d duration=%dms rate=%.0f rec/s batch latency: %s written records: %s".formatted(
+                requested, written, errors, timeouts, durationMillis, recordsPerSecond(), batchLatency, shapes);
+    }
+}
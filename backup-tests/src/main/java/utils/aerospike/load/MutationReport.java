@@ -0,0 +1,27 @@
+package utils.aerospike.load;
+
+import utils.metrics.LatencyHistogram;
+
+/**
+ * @param misses deletes and touches that found no record, they changed nothing and are not in the change log
+ */
+public record MutationReport(long updates,
+                             long deletes,
+                             long touches,
+                             long inserts,
+                             long misses,
+                             long errors,
+                             long durationMillis,
+                             LatencyHistogram latency,
+                             ChangeLog changeLog) {
+
+    public long mutations() {
+        return updates + deletes + touches + inserts;
+    }
+
+    @Override
+    public String toString() {
+        return "updates=%d deletes=%d touches=%d inserts=%d misses=%d errors=%d duration=%dms latency: %s".formatted(
+                updates, deletes, touches, inserts, misses, errors, durationMillis, latency);
+    }
+}
@@ -0,0 +1,253 @@
+package utils.aerospike.load;
+
+import com.aerospike.client.*;
+import com.aerospike.client.policy.WritePolicy;
+import com.google.common.base.Preconditions;
+import utils.AerospikeLogger;
+import utils.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background churn for incremental backup tests: a weighted mix of updates, deletes, TTL touches and inserts
+ * at a target rate. Every change that reached the server is appended to a {@link ChangeLog}.
+ * <pre>
+ * MutationWorkload workload = MutationWorkload.on(client, namespace, set)
+ *         .mix(70, 10, 10, 10)
+ *         .keyDistribution(KeyDistribution.zipfian(1, 100_000, 0.99))
+ *         .rate(2_000)
+ *         .duration(Duration.ofMinutes(2));
+ * CompletableFuture&lt;MutationReport&gt; churn = workload.start();
+ * </pre>
+ * Updates, deletes and touches pick existing keys from the key distribution, inserts use new keys counting up
+ * from {@link #insertStartKey(long)}.
+ */
+public class MutationWorkload {
+
+    private final IAerospikeClient client;
+    private final String namespace;
+    private final String set;
+    private final int[] weights = new int[ChangeLog.Type.values().length];
+    private KeyDistribution keyDistribution = KeyDistribution.uniform(1, 1_000_000);
+    private RecordGenerator generator = ObjectSpec.parse("I4");
+    private long insertStartKey = 1_000_000_000L;
+    private int touchTtlSeconds = 86_400;
+    private boolean durableDelete;
+    private int concurrency = 4;
+    private long rate;
+    private Duration duration;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    private MutationWorkload(IAerospikeClient client, String namespace, String set) {
+        this.client = client;
+        this.namespace = namespace;
+        this.set = set;
+        mix(70, 10, 10, 10);
+    }
+
+    public static MutationWorkload on(IAerospikeClient client, String namespace, String set) {
+        return new MutationWorkload(client, namespace, set);
+    }
+
+    /**
+     * Relative weights of each mutation type.
+     */
+    public MutationWorkload mix(int updates, int deletes, int touches, int inserts) {
+        Preconditions.checkArgument(updates >= 0 && deletes >= 0 && touches >= 0 && inserts >= 0
+                && updates + deletes + touches + inserts > 0, "weights must be non negative and not all 0");
+        weights[ChangeLog.Type.UPDATE.ordinal()] = updates;
+        weights[ChangeLog.Type.DELETE.ordinal()] = deletes;
+        weights[ChangeLog.Type.TOUCH.ordinal()] = touches;
+        weights[ChangeLog.Type.INSERT.ordinal()] = inserts;
+        return this;
+    }
+
+    public MutationWorkload keyDistribution(KeyDistribution keyDistribution) {
+        this.keyDistribution = keyDistribution;
+        return this;
+    }
+
+    public MutationWorkload generator(RecordGenerator generator) {
+        this.generator = generator;
+        return this;
+    }
+
+    public MutationWorkload insertStartKey(long insertStartKey) {
+        this.insertStartKey = insertStartKey;
+        return this;
+    }
+
+    public MutationWorkload touchTtl(int touchTtlSeconds) {
+        this.touchTtlSeconds = touchTtlSeconds;
+        return this;
+    }
+
+    public MutationWorkload durableDelete(boolean durableDelete) {
+        this.durableDelete = durableDelete;
+        return this;
+    }
+
+    public MutationWorkload concurrency(int concurrency) {
+        Preconditions.checkArgument(concurrency > 0, "concurrency must be positive");
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * Target mutations per second across all workers, 0 means as fast as possible.
+     */
+    public MutationWorkload rate(long rate) {
+        this.rate = rate;
+        return this;
+    }
+
+    public MutationWorkload duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    public void stop() {
+        stopped.set(true);
+    }
+
+    public MutationReport run() {
+        return start().join();
+    }
+
+    /**
+     * Runs the workload in the background until the duration elapsed or {@link #stop()} is called.
+     */
+    public CompletableFuture<MutationReport> start() {
+        return CompletableFuture.supplyAsync(this::execute, task -> new Thread(task, "mutation-workload").start());
+    }
+
+    private MutationReport execute() {
+        AerospikeLogger.info("Starting mutation workload on %s.%s (update/delete/touch/insert=%d/%d/%d/%d, keys=%s, rate=%d, duration=%s)"
+                .formatted(namespace, set, weights[ChangeLog.Type.UPDATE.ordinal()], weights[ChangeLog.Type.DELETE.ordinal()],
+                        weights[ChangeLog.Type.TOUCH.ordinal()], weights[ChangeLog.Type.INSERT.ordinal()],
+                        keyDistribution, rate, duration));
+        ChangeLog changeLog = new ChangeLog(namespace, set);
+        AtomicLongArray counts = new AtomicLongArray(ChangeLog.Type.values().length);
+        AtomicLong misses = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        AtomicLong issued = new AtomicLong();
+        AtomicLong nextInsertKey = new AtomicLong(insertStartKey);
+        LatencyHistogram latency = new LatencyHistogram();
+
+        long start = System.nanoTime();
+        long deadline = duration == null ? Long.MAX_VALUE : start + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(workers.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (!stopped.get() && System.nanoTime() < deadline) {
+                        throttle(start, issued.getAndIncrement());
+                        ChangeLog.Type type = pick(random);
+                        long keyIndex = type == ChangeLog.Type.INSERT
+                                ? nextInsertKey.getAndIncrement()
+                                : keyDistribution.next(random);
+                        Key key = new Key(namespace, set, keyIndex);
+                        long sentAt = System.currentTimeMillis();
+                        long sentNanos = System.nanoTime();
+                        try {
+                            if (mutate(type, key, keyIndex, random)) {
+                                changeLog.append(key.digest, type, sentAt, System.currentTimeMillis());
+                                counts.incrementAndGet(type.ordinal());
+                            } else {
+                                misses.incrementAndGet();
+                            }
+                        } catch (AerospikeException e) {
+                            // the change may or may not have been applied, log it so it is treated as uncertain
+                            if (e.getInDoubt()) {
+                                changeLog.append(key.digest, type, sentAt, Long.MAX_VALUE);
+                            }
+                            errors.incrementAndGet();
+                        }
+                        latency.recordNanos(System.nanoTime() - sentNanos);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Mutation workload interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Mutation workload failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        MutationReport report = new MutationReport(counts.get(ChangeLog.Type.UPDATE.ordinal()),
+                counts.get(ChangeLog.Type.DELETE.ordinal()), counts.get(ChangeLog.Type.TOUCH.ordinal()),
+                counts.get(ChangeLog.Type.INSERT.ordinal()), misses.get(), errors.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), latency, changeLog);
+        AerospikeLogger.info("Finished mutation workload on %s.%s: %s".formatted(namespace, set, report));
+        return report;
+    }
+
+    /**
+     * @return false when the operation did not change anything (delete or touch of a missing record)
+     */
+    private boolean mutate(ChangeLog.Type type, Key key, long keyIndex, ThreadLocalRandom random) {
+        WritePolicy policy = client.copyWritePolicyDefault();
+        switch (type) {
+            case INSERT, UPDATE -> {
+                client.put(policy, key, generator.bins(keyIndex + random.nextLong(Integer.MAX_VALUE)));
+                return true;
+            }
+            case DELETE -> {
+                policy.durableDelete = durableDelete;
+                return client.delete(policy, key);
+            }
+            case TOUCH -> {
+                policy.expiration = touchTtlSeconds;
+                try {
+                    client.touch(policy, key);
+                    return true;
+                } catch (AerospikeException e) {
+                    if (e.getResultCode() == ResultCode.KEY_NOT_FOUND_ERROR) {
+                        return false;
+                    }
+                    throw e;
+                }
+            }
+            default -> throw new IllegalStateException("Unexpected mutation type " + type);
+        }
+    }
+
+    private ChangeLog.Type pick(ThreadLocalRandom random) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int value = random.nextInt(total);
+        for (ChangeLog.Type type : ChangeLog.Type.values()) {
+            value -= weights[type.ordinal()];
+            if (value < 0) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("weights changed while running");
+    }
+
+    private void throttle(long start, long issued) {
+        if (rate <= 0) {
+            return;
+        }
+        long wait = start + issued * TimeUnit.SECONDS.toNanos(1) / rate - System.nanoTime();
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package utils.aerospike.load;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.Record;
+import com.aerospike.client.Value;
+
+import java.util.*;
+
+/**
+ * Parses an asbench object spec (e.g. {@code B1024}, {@code I8,S1024}, {@code [256*S2]}, {@code {70*S10:I4}})
+ * and generates the bins of one record for a given key index. Each comma separated top level entry becomes a bin,
+ * named like asbench does: {@code testbin}, {@code testbin_2}, ...
+ * <p>
+ * Generation is deterministic for a (seed, key index) pair and allocation-light: blobs are zero-copy segments of
+ * a shared random pool, strings are cut from a shared pool string and lists/maps are picked from a small set of
+ * CDT templates built once at parse time. All shared state is immutable, so one instance can be used from any
+ * number of threads.
+ */
+public class ObjectSpec implements RecordGenerator {
+
+    public static final String DEFAULT_BIN_NAME = "testbin";
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final int POOL_SIZE = 1 << 16;
+    private static final int TEMPLATE_VARIANTS = 32;
+
+    private final String spec;
+    private final long seed;
+    private final Node[] bins;
+    private final String[] binNames;
+
+    private ObjectSpec(String spec, long seed, Node[] bins) {
+        this.spec = spec;
+        this.seed = seed;
+        this.bins = bins;
+        this.binNames = new String[bins.length];
+        for (int i = 0; i < binNames.length; i++) {
+            binNames[i] = i == 0 ? DEFAULT_BIN_NAME : DEFAULT_BIN_NAME + "_" + (i + 1);
+        }
+    }
+
+    public static ObjectSpec parse(String spec) {
+        return parse(spec, 0);
+    }
+
+    public static ObjectSpec parse(String spec, long seed) {
+        Parser parser = new Parser(spec.replace(" ", ""), new Pools(seed));
+        List<Node> bins = new ArrayList<>();
+        do {
+            bins.add(parser.parseNode());
+        } while (parser.consume(','));
+        parser.expectEnd();
+        return new ObjectSpec(spec, seed, bins.toArray(new Node[0]));
+    }
+
+    @Override
+    public Bin[] bins(long keyIndex) {
+        Bin[] result = new Bin[bins.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new Bin(binNames[i], bins[i].value(hash(keyIndex, i)));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean matches(long keyIndex, Record record) {
+        if (record == null || record.bins == null || record.bins.size() != bins.length) {
+            return false;
+        }
+        for (int i = 0; i < bins.length; i++) {
+            if (!bins[i].matches(hash(keyIndex, i), record.bins.get(binNames[i]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long hash(long keyIndex, int binIndex) {
+        return mix(seed ^ mix(keyIndex * 0x9E3779B97F4A7C15L + binIndex));
+    }
+
+    // SplitMix64 finalizer
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // pools hold POOL_SIZE + the longest leaf, so any offset in [0, POOL_SIZE] leaves room for a full value
+    private static int offset(long hash) {
+        return (int) ((hash >>> 1) % (POOL_SIZE + 1));
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private interface Node {
+        Value value(long hash);
+
+        boolean matches(long hash, Object actual);
+
+        /**
+         * Builds a plain Java value, used when pre-building list and map templates.
+         */
+        Object materialize(long hash);
+    }
+
+    private record IntNode(int bytes) implements Node {
+        @Override
+        public Value value(long hash) {
+            return Value.get(longValue(hash));
+        }
+
+        @Override
+        public boolean matches(long hash, Object actual) {
+            return actual instanceof Number number && number.longValue() == longValue(hash);
+        }
+
+        @Override
+        public Object materialize(long hash) {
+            return longValue(hash);
+        }
+
+        private long longValue(long hash) {
+            return bytes >= 8 ? hash : hash & ((1L << (bytes * 8 - 1)) - 1);
+        }
+    }
+
+    private record DoubleNode() implements Node {
+        @Override
+        public Value value(long hash) {
+            return Value.get(doubleValue(hash));
+        }
+
+        @Override
+        public boolean matches(long hash, Object actual) {
+            return actual instanceof Double value && value == doubleValue(hash);
+        }
+
+        @Override
+        public Object materialize(long hash) {
+            return doubleValue(hash);
+        }
+
+        private double doubleValue(long hash) {
+            return (hash >>> 11) * 0x1.0p-53;
+        }
+    }
+
+    private record StringNode(int length, String pool) implements Node {
+        @Override
+        public Value value(long hash) {
+            return Value.get(stringValue(hash));
+        }
+
+        @Override
+        public boolean matches(long hash, Object actual) {
+            return actual instanceof String value && value.length() == length
+                    && pool.regionMatches(offset(hash), value, 0, length);
+        }
+
+        @Override
+        public Object materialize(long hash) {
+            return stringValue(hash);
+        }
+
+        private String stringValue(long hash) {
+            int from = offset(hash);
+            return pool.substring(from, from + length);
+        }
+    }
+
+    private record BytesNode(int length, byte[] pool) implements Node {
+        @Override
+        public Value value(long hash) {
+            return Value.get(pool, offset(hash), length);
+        }
+
+        @Override
+        public boolean matches(long hash, Object actual) {
+            int from = offset(hash);
+            return actual instanceof byte[] value && Arrays.equals(pool, from, from + length, value, 0, value.length);
+        }
+
+        @Override
+        public Object materialize(long hash) {
+            int from = offset(hash);
+            return Arrays.copyOfRange(pool, from, from + length);
+        }
+    }
+
+    /**
+     * List and map bins: a handful of variants are materialized once and shared (read-only) by all records.
+     */
+    private record TemplateNode(Object[] templates) implements Node {
+        @Override
+        public Value value(long hash) {
+            return Value.get(template(hash));
+        }
+
+        @Override
+        public boolean matches(long hash, Object actual) {
+            return deepEquals(template(hash), actual);
+        }
+
+        @Override
+        public Object materialize(long hash) {
+            return template(hash);
+        }
+
+        private Object template(long hash) {
+            return templates[(int) ((hash >>> 33) % templates.length)];
+        }
+    }
+
+    private static Object[] listTemplates(long seed, List<Node> elements) {
+        Object[] templates = new Object[TEMPLATE_VARIANTS];
+        for (int variant = 0; variant < TEMPLATE_VARIANTS; variant++) {
+            List<Object> list = new ArrayList<>(elements.size());
+            for (int i = 0; i < elements.size(); i++) {
+                list.add(elements.get(i).materialize(mix(seed ^ mix(variant * 31L + i))));
+            }
+            templates[variant] = Collections.unmodifiableList(list);
+        }
+        return templates;
+    }
+
+    private static Object[] mapTemplates(long seed, int entries, Node key, Node value) {
+        Object[] templates = new Object[TEMPLATE_VARIANTS];
+        for (int variant = 0; variant < TEMPLATE_VARIANTS; variant++) {
+            Map<Object, Object> map = new HashMap<>();
+            for (int i = 0; i < entries; i++) {
+                long hash = mix(seed ^ mix(variant * 0x100000001L + i));
+                map.put(key.materialize(hash), value.materialize(mix(hash)));
+            }
+            templates[variant] = Collections.unmodifiableMap(map);
+        }
+        return templates;
+    }
+
+    static boolean deepEquals(Object expected, Object actual) {
+        if (expected instanceof List<?> expectedList) {
+            if (!(actual instanceof List<?> actualList) || expectedList.size() != actualList.size()) {
+                return false;
+            }
+            for (int i = 0; i < expectedList.size(); i++) {
+                if (!deepEquals(expectedList.get(i), actualList.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (expected instanceof Map<?, ?> expectedMap) {
+            if (!(actual instanceof Map<?, ?> actualMap) || expectedMap.size() != actualMap.size()) {
+                return false;
+            }
+            for (Map.Entry<?, ?> entry : expectedMap.entrySet()) {
+                if (!deepEquals(entry.getValue(), actualMap.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Objects.deepEquals(expected, actual);
+    }
+
+    /**
+     * Random pools shared by all leaves of one spec, sized on demand for the longest string/blob.
+     */
+    private static class Pools {
+        private final long seed;
+        private byte[] bytes = new byte[0];
+        private String chars = "";
+
+        Pools(long seed) {
+            this.seed = seed;
+        }
+
+        byte[] bytes(int length) {
+            if (bytes.length < POOL_SIZE + length) {
+                bytes = new byte[POOL_SIZE + length];
+                new SplittableRandom(seed).nextBytes(bytes);
+            }
+            return bytes;
+        }
+
+        String chars(int length) {
+            if (chars.length() < POOL_SIZE + length) {
+                SplittableRandom random = new SplittableRandom(seed);
+                char[] buffer = new char[POOL_SIZE + length];
+                for (int i = 0; i < buffer.length; i++) {
+                    buffer[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+                }
+                chars = new String(buffer);
+            }
+            return chars;
+        }
+    }
+
+    private static class Parser {
+        private final String spec;
+        private final Pools pools;
+        private int pos;
+
+        Parser(String spec, Pools pools) {
+            this.spec = spec;
+            this.pools = pools;
+        }
+
+        Node parseNode() {
+            if (pos >= spec.length()) {
+                throw error("unexpected end");
+            }
+            char type = spec.charAt(pos++);
+            return switch (type) {
+                case 'I' -> new IntNode(hasDigit() ? parseInt() : 4);
+                case 'D' -> new DoubleNode();
+                case 'S' -> {
+                    int length = parseInt();
+                    yield new StringNode(length, pools.chars(length));
+                }
+                case 'B' -> {
+                    int length = parseInt();
+                    yield new BytesNode(length, pools.bytes(length));
+                }
+                case '[' -> parseList();
+                case '{' -> parseMap();
+                default -> throw error("unknown type '" + type + "'");
+            };
+        }
+
+        private Node parseList() {
+            List<Node> elements = new ArrayList<>();
+            do {
+                int repeat = parseRepeat();
+                Node element = parseNode();
+                for (int i = 0; i < repeat; i++) {
+                    elements.add(element);
+                }
+            } while (consume(','));
+            expect(']');
+            return new TemplateNode(listTemplates(pools.seed, elements));
+        }
+
+        private Node parseMap() {
+            int entries = parseRepeat();
+            Node key = parseNode();
+            expect(':');
+            Node value = parseNode();
+            expect('}');
+            return new TemplateNode(mapTemplates(pools.seed, entries, key, value));
+        }
+
+        private int parseRepeat() {
+            int start = pos;
+            if (hasDigit()) {
+                int repeat = parseInt();
+                if (consume('*')) {
+                    return repeat;
+                }
+                pos = start;
+            }
+            return 1;
+        }
+
+        private int parseInt() {
+            int start = pos;
+            while (hasDigit()) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("expected a number");
+            }
+            return Integer.parseInt(spec.substring(start, pos));
+        }
+
+        private boolean hasDigit() {
+            return pos < spec.length() && Character.isDigit(spec.charAt(pos));
+        }
+
+        boolean consume(char c) {
+            if (pos < spec.length() && spec.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        void expectEnd() {
+            if (pos != spec.length()) {
+                throw error("unexpected trailing characters");
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid object spec '%s' at %d: %s".formatted(spec, pos, message));
+        }
+    }
+}
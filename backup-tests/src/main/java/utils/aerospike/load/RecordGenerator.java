@@ -0,0 +1,54 @@
+package utils.aerospike.load;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.Record;
+import utils.constants.AsDataTypes;
+
+import java.util.List;
+
+/**
+ * Deterministic source of record contents: the same key index always yields the same bins, so a verifier can
+ * regenerate the expected record instead of keeping the originals in memory.
+ */
+public interface RecordGenerator {
+
+    Bin[] bins(long keyIndex);
+
+    boolean matches(long keyIndex, Record record);
+
+    /**
+     * Generator for one of the {@link AsDataTypes} profiles. Records rotate over the profile's object specs by key
+     * index, the same mix the performance data is created with. Names of {@link WorkloadProfile named workload
+     * profiles} are accepted too.
+     */
+    static RecordGenerator forProfile(String dataType, long seed) {
+        if (WorkloadProfile.isNamed(dataType)) {
+            return WorkloadProfile.named(dataType).generator(seed);
+        }
+        List<String> objectSpecs = AsDataTypes.objectSpecs(dataType);
+        ObjectSpec[] specs = objectSpecs.stream()
+                .map(spec -> ObjectSpec.parse(spec, seed))
+                .toArray(ObjectSpec[]::new);
+
+        return new RecordGenerator() {
+            @Override
+            public Bin[] bins(long keyIndex) {
+                return specFor(keyIndex).bins(keyIndex);
+            }
+
+            @Override
+            public boolean matches(long keyIndex, Record record) {
+                return specFor(keyIndex).matches(keyIndex, record);
+            }
+
+            private ObjectSpec specFor(long keyIndex) {
+                return specs[(int) Math.floorMod(keyIndex, (long) specs.length)];
+            }
+
+            @Override
+            public String toString() {
+                return dataType + objectSpecs;
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package utils.aerospike.load;
+
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Record;
+import utils.metrics.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Outcome of a {@link TransactionWorkload} run.
+ * Every write stores a unique, increasing sequence number in {@code binName}, which makes the expected
+ * content of each touched key known exactly.
+ *
+ * @param committedKeys   key -> sequence number of the last committed write to it
+ * @param abortedKeys     keys only ever written by aborted transactions
+ * @param inDoubtKeys     keys written by transactions whose commit outcome is unknown
+ * @param abortedWrites   sequence numbers of writes that were rolled back
+ */
+public record TransactionReport(long transactions,
+                                long committed,
+                                long aborted,
+                                long failed,
+                                long inDoubt,
+                                long durationMillis,
+                                LatencyHistogram commitLatency,
+                                LatencyHistogram transactionLatency,
+                                String binName,
+                                Map<Key, Long> committedKeys,
+                                Set<Key> abortedKeys,
+                                Set<Key> inDoubtKeys,
+                                Set<Long> abortedWrites) {
+
+    private static final int READ_BATCH_SIZE = 5_000;
+
+    /**
+     * Compares the cluster to the final outcome of the workload: committed keys must hold their last committed
+     * write and keys only written by aborted transactions must not exist. Keys with an in doubt commit are skipped.
+     */
+    public List<Key> findMismatchedKeys(IAerospikeClient client) {
+        List<Key> mismatched = new ArrayList<>();
+        List<Key> committed = committedKeys.keySet().stream()
+                .filter(key -> !inDoubtKeys.contains(key))
+                .toList();
+        read(client, committed, (key, record) -> {
+            if (record == null || !committedKeys.get(key).equals(sequence(record))) {
+                mismatched.add(key);
+            }
+        });
+        read(client, List.copyOf(abortedKeys), (key, record) -> {
+            if (record != null) {
+                mismatched.add(key);
+            }
+        });
+        return mismatched;
+    }
+
+    /**
+     * Finds keys holding a write that was rolled back. Unlike {@link #findMismatchedKeys} this holds for any
+     * consistent snapshot taken while the workload was running, e.g. the restore of a backup made under load.
+     */
+    public List<Key> findAbortedWrites(IAerospikeClient client) {
+        List<Key> keys = new ArrayList<>(committedKeys.keySet());
+        keys.addAll(abortedKeys);
+        keys.addAll(inDoubtKeys);
+        List<Key> leaked = new ArrayList<>();
+        read(client, keys.stream().distinct().toList(), (key, record) -> {
+            Long sequence = record == null ? null : sequence(record);
+            if (sequence != null && abortedWrites.contains(sequence)) {
+                leaked.add(key);
+            }
+        });
+        return leaked;
+    }
+
+    private Long sequence(Record record) {
+        Object value = record.bins == null ? null : record.bins.get(binName);
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static void read(IAerospikeClient client, List<Key> keys, BiConsumer<Key, Record> consumer) {
+        for (int from = 0; from < keys.size(); from += READ_BATCH_SIZE) {
+            Key[] batch = keys.subList(from, Math.min(keys.size(), from + READ_BATCH_SIZE)).toArray(new Key[0]);
+            Record[] records = client.get(null, batch);
+            for (int i = 0; i < batch.length; i++) {
+                consumer.accept(batch[i], records[i]);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return ("transactions=%d committed=%d aborted=%d failed=%d inDoubt=%d duration=%dms keys(committed=%d aborted=%d inDoubt=%d)"
+                + " commit latency: %s transaction latency: %s").formatted(
+                transactions, committed, aborted, failed, inDoubt, durationMillis, committedKeys.size(),
+                abortedKeys.size(), inDoubtKeys.size(), commitLatency, transactionLatency);
+    }
+}
@@ -0,0 +1,285 @@
+package utils.aerospike.load;
+
+import com.aerospike.client.*;
+import com.aerospike.client.policy.WritePolicy;
+import com.google.common.base.Preconditions;
+import utils.AerospikeLogger;
+import utils.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs many multi-record transactions (MRT) concurrently against one set and records the exact outcome.
+ * <pre>
+ * TransactionReport report = TransactionWorkload.on(client, namespace, set)
+ *         .concurrency(8)
+ *         .operationsPerTransaction(5)
+ *         .commitRatio(0.8)
+ *         .keyDistribution(KeyDistribution.zipfian(0, 10_000, 0.99))
+ *         .duration(Duration.ofSeconds(30))
+ *         .run();
+ * </pre>
+ * Transactions that hit another transaction's lock (or any other error) are aborted and counted as failed.
+ */
+public class TransactionWorkload {
+
+    public static final String DEFAULT_BIN_NAME = "txn_seq";
+    private static final int KEY_LOCK_STRIPES = 1024;
+
+    private final IAerospikeClient client;
+    private final String namespace;
+    private final String set;
+    private String binName = DEFAULT_BIN_NAME;
+    private int concurrency = 4;
+    private int operationsPerTransaction = 3;
+    private double commitRatio = 1.0;
+    private KeyDistribution keyDistribution = KeyDistribution.uniform(0, 10_000);
+    private Duration duration;
+    private long transactions = -1;
+    private final AtomicBoolean stopped = new AtomicBoolean();
+
+    private TransactionWorkload(IAerospikeClient client, String namespace, String set) {
+        this.client = client;
+        this.namespace = namespace;
+        this.set = set;
+    }
+
+    public static TransactionWorkload on(IAerospikeClient client, String namespace, String set) {
+        return new TransactionWorkload(client, namespace, set);
+    }
+
+    public TransactionWorkload binName(String binName) {
+        this.binName = binName;
+        return this;
+    }
+
+    /**
+     * Number of transactions open at the same time.
+     */
+    public TransactionWorkload concurrency(int concurrency) {
+        Preconditions.checkArgument(concurrency > 0, "concurrency must be positive");
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    public TransactionWorkload operationsPerTransaction(int operationsPerTransaction) {
+        Preconditions.checkArgument(operationsPerTransaction > 0, "operationsPerTransaction must be positive");
+        this.operationsPerTransaction = operationsPerTransaction;
+        return this;
+    }
+
+    /**
+     * Share of transactions that are committed, the rest are aborted on purpose.
+     */
+    public TransactionWorkload commitRatio(double commitRatio) {
+        Preconditions.checkArgument(commitRatio >= 0 && commitRatio <= 1, "commitRatio must be in [0, 1]");
+        this.commitRatio = commitRatio;
+        return this;
+    }
+
+    public TransactionWorkload keyDistribution(KeyDistribution keyDistribution) {
+        this.keyDistribution = keyDistribution;
+        return this;
+    }
+
+    public TransactionWorkload duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * Total number of transactions to run, across all workers.
+     */
+    public TransactionWorkload transactions(long transactions) {
+        this.transactions = transactions;
+        return this;
+    }
+
+    /**
+     * Lets a workload started with {@link #start()} finish its open transactions and return.
+     */
+    public void stop() {
+        stopped.set(true);
+    }
+
+    public TransactionReport run() {
+        return start().join();
+    }
+
+    /**
+     * Runs the workload in the background, e.g. while a backup is running.
+     */
+    public CompletableFuture<TransactionReport> start() {
+        Preconditions.checkState(duration != null || transactions > 0, "Either duration or transactions must be set");
+        return CompletableFuture.supplyAsync(this::execute, task -> new Thread(task, "transaction-workload").start());
+    }
+
+    private TransactionReport execute() {
+        AerospikeLogger.info("Starting transaction workload on %s.%s (concurrency=%d, ops=%d, commitRatio=%s, keys=%s, duration=%s, transactions=%d)"
+                .formatted(namespace, set, concurrency, operationsPerTransaction, commitRatio, keyDistribution,
+                        duration, transactions));
+        State state = new State();
+        long start = System.nanoTime();
+        long deadline = duration == null ? Long.MAX_VALUE : start + duration.toNanos();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(workers.submit(() -> {
+                    while (!stopped.get() && System.nanoTime() < deadline && state.claim(transactions)) {
+                        runTransaction(state);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Transaction workload interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Transaction workload failed", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        TransactionReport report = state.report(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        AerospikeLogger.info("Finished transaction workload on %s.%s: %s".formatted(namespace, set, report));
+        return report;
+    }
+
+    private void runTransaction(State state) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long startedAt = System.nanoTime();
+        Txn txn = new Txn();
+        WritePolicy writePolicy = client.copyWritePolicyDefault();
+        writePolicy.txn = txn;
+
+        List<Key> keys = new ArrayList<>(operationsPerTransaction);
+        List<Long> writes = new ArrayList<>(operationsPerTransaction);
+        try {
+            for (int i = 0; i < operationsPerTransaction; i++) {
+                Key key = new Key(namespace, set, keyDistribution.next(random));
+                keys.add(key);
+                // numbering and sending the write under a per key lock keeps sequence order equal to server write order
+                synchronized (state.keyLock(key)) {
+                    long sequence = state.sequence.incrementAndGet();
+                    writes.add(sequence);
+                    client.operate(writePolicy, key, Operation.put(new Bin(binName, sequence)));
+                }
+            }
+        } catch (AerospikeException e) {
+            abort(txn);
+            state.failed(keys, writes);
+            return;
+        }
+
+        if (random.nextDouble() >= commitRatio) {
+            abort(txn);
+            state.aborted(keys, writes);
+        } else {
+            commit(txn, state, keys, writes);
+        }
+        state.transactionLatency.recordNanos(System.nanoTime() - startedAt);
+    }
+
+    private void commit(Txn txn, State state, List<Key> keys, List<Long> writes) {
+        long commitStart = System.nanoTime();
+        try {
+            client.commit(txn);
+            state.commitLatency.recordNanos(System.nanoTime() - commitStart);
+            state.committed(keys, writes);
+        } catch (AerospikeException.Commit e) {
+            if (e.error == CommitError.MARK_ROLL_FORWARD_ABANDONED) {
+                state.inDoubt(keys);
+            } else {
+                // verify failed, the client already aborted the transaction
+                state.failed(keys, writes);
+            }
+        } catch (AerospikeException e) {
+            state.inDoubt(keys);
+        }
+    }
+
+    private void abort(Txn txn) {
+        try {
+            client.abort(txn);
+        } catch (AerospikeException e) {
+            // not committed, the server rolls the transaction back once it times out
+            AerospikeLogger.info("Failed to abort transaction %d: %s".formatted(txn.getId(), e.getMessage()));
+        }
+    }
+
+    private class State {
+        final Object[] keyLocks = new Object[KEY_LOCK_STRIPES];
+        final AtomicLong started = new AtomicLong();
+        final AtomicLong sequence = new AtomicLong();
+        final AtomicLong committed = new AtomicLong();
+        final AtomicLong aborted = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong inDoubt = new AtomicLong();
+        final LatencyHistogram commitLatency = new LatencyHistogram();
+        final LatencyHistogram transactionLatency = new LatencyHistogram();
+        final Map<Key, Long> committedKeys = new ConcurrentHashMap<>();
+        final Set<Key> abortedKeys = ConcurrentHashMap.newKeySet();
+        final Set<Key> inDoubtKeys = ConcurrentHashMap.newKeySet();
+        final Set<Long> abortedWrites = ConcurrentHashMap.newKeySet();
+
+        State() {
+            Arrays.setAll(keyLocks, i -> new Object());
+        }
+
+        Object keyLock(Key key) {
+            return keyLocks[Math.floorMod(Arrays.hashCode(key.digest), KEY_LOCK_STRIPES)];
+        }
+
+        boolean claim(long limit) {
+            return limit < 0 || started.incrementAndGet() <= limit;
+        }
+
+        void committed(List<Key> keys, List<Long> writes) {
+            committed.incrementAndGet();
+            // the record lock serializes transactions on a key, so the highest committed sequence is the last write
+            for (int i = 0; i < keys.size(); i++) {
+                committedKeys.merge(keys.get(i), writes.get(i), Math::max);
+            }
+        }
+
+        void aborted(List<Key> keys, List<Long> writes) {
+            aborted.incrementAndGet();
+            abortedKeys.addAll(keys);
+            abortedWrites.addAll(writes);
+        }
+
+        void failed(List<Key> keys, List<Long> writes) {
+            failed.incrementAndGet();
+            abortedKeys.addAll(keys);
+            abortedWrites.addAll(writes);
+        }
+
+        void inDoubt(List<Key> keys) {
+            inDoubt.incrementAndGet();
+            inDoubtKeys.addAll(keys);
+        }
+
+        TransactionReport report(long durationMillis) {
+            Set<Key> onlyAborted = ConcurrentHashMap.newKeySet();
+            onlyAborted.addAll(abortedKeys);
+            onlyAborted.removeAll(committedKeys.keySet());
+            onlyAborted.removeAll(inDoubtKeys);
+            return new TransactionReport(committed.get() + aborted.get() + failed.get() + inDoubt.get(),
+                    committed.get(), aborted.get(), failed.get(), inDoubt.get(), durationMillis,
+                    commitLatency, transactionLatency, binName,
+                    Map.copyOf(committedKeys), Set.copyOf(onlyAborted), Set.copyOf(inDoubtKeys), Set.copyOf(abortedWrites));
+        }
+    }
+}
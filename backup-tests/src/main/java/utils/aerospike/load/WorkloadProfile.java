@@ -0,0 +1,324 @@
+package utils.aerospike.load;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.Record;
+import com.aerospike.client.Value;
+import com.google.common.base.Preconditions;
+
+import java.util.*;
+
+/**
+ * Shape of production-like data, as opposed to the fixed size records of an object spec: log-normal record sizes,
+ * a variable number of bins, a weighted mix of blob, string, integer and nested list/map bins, and the hot-key
+ * skew of updates.
+ * <pre>
+ * WorkloadProfile profile = WorkloadProfile.named(WorkloadProfile.USER_PROFILE);
+ * LoadReport report = ASBench.on(namespace, set).keys(1_000_000).workloadProfile(profile).load();
+ * AerospikeLogger.info("Written: " + report.shapes());
+ * </pre>
+ * The named profiles can also be used wherever a data type name is accepted ({@link utils.ASBench#dataType},
+ * DATA_TYPE of the performance tests).
+ */
+public class WorkloadProfile {
+
+    public static final String SESSION_STORE = "SESSION_STORE";
+    public static final String USER_PROFILE = "USER_PROFILE";
+    public static final String EVENT_LOG = "EVENT_LOG";
+    public static final String MEDIA_METADATA = "MEDIA_METADATA";
+
+    private static final int MAX_BINS = 256;
+    private static final int MAX_DEPTH = 8;
+    private static final int MAX_RECORD_BYTES = 8 << 20;
+    private static final int POOL_SIZE = 1 << 16;
+    private static final int MIN_LEAF_BYTES = 8;
+    private static final String[] MAP_KEYS = {"k0", "k1", "k2", "k3", "k4", "k5", "k6", "k7"};
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    private final String name;
+    private int medianBytes = 1024;
+    private double sizeSigma = 0.5;
+    private int minBytes = 16;
+    private int maxBytes = 256 * 1024;
+    private int minBins = 1;
+    private int maxBins = 8;
+    private int maxDepth = 2;
+    private int blobWeight = 25;
+    private int stringWeight = 25;
+    private int integerWeight = 25;
+    private int cdtWeight = 25;
+    private double hotKeyTheta;
+
+    private WorkloadProfile(String name) {
+        this.name = name;
+    }
+
+    /**
+     * A custom profile, starting from 1 KB median records with 1 to 8 mixed bins.
+     */
+    public static WorkloadProfile of(String name) {
+        return new WorkloadProfile(name);
+    }
+
+    public static WorkloadProfile named(String name) {
+        return switch (name) {
+            case SESSION_STORE -> of(name).recordSize(512, 0.5).bins(3, 6).maxDepth(1)
+                    .mix(10, 50, 30, 10).hotKeys(0.99);
+            case USER_PROFILE -> of(name).recordSize(2048, 0.9).recordSizeBounds(64, 128 * 1024).bins(5, 30)
+                    .maxDepth(3).mix(5, 40, 25, 30).hotKeys(0.9);
+            case EVENT_LOG -> of(name).recordSize(300, 0.4).recordSizeBounds(32, 4096).bins(4, 10).maxDepth(1)
+                    .mix(0, 45, 50, 5);
+            case MEDIA_METADATA -> of(name).recordSize(16 * 1024, 1.2).recordSizeBounds(256, 1024 * 1024).bins(2, 12)
+                    .maxDepth(2).mix(60, 20, 10, 10).hotKeys(0.8);
+            default -> throw new IllegalArgumentException("Unknown workload profile: " + name);
+        };
+    }
+
+    public static boolean isNamed(String name) {
+        return List.of(SESSION_STORE, USER_PROFILE, EVENT_LOG, MEDIA_METADATA).contains(name);
+    }
+
+    /**
+     * Log-normal record size: half of the records are smaller than {@code medianBytes}, {@code sigma} is the
+     * standard deviation of the log of the size (0 gives a fixed size, 1 a long tail).
+     */
+    public WorkloadProfile recordSize(int medianBytes, double sigma) {
+        Preconditions.checkArgument(medianBytes > 0 && sigma >= 0, "median must be positive and sigma non negative");
+        this.medianBytes = medianBytes;
+        this.sizeSigma = sigma;
+        return this;
+    }
+
+    public WorkloadProfile recordSizeBounds(int minBytes, int maxBytes) {
+        Preconditions.checkArgument(minBytes > 0 && minBytes <= maxBytes && maxBytes <= MAX_RECORD_BYTES,
+                "record size bounds must satisfy 0 < min <= max <= %s", MAX_RECORD_BYTES);
+        this.minBytes = minBytes;
+        this.maxBytes = maxBytes;
+        return this;
+    }
+
+    public WorkloadProfile bins(int minBins, int maxBins) {
+        Preconditions.checkArgument(minBins > 0 && minBins <= maxBins && maxBins <= MAX_BINS,
+                "bin counts must satisfy 0 < min <= max <= %s", MAX_BINS);
+        this.minBins = minBins;
+        this.maxBins = maxBins;
+        return this;
+    }
+
+    /**
+     * Deepest nesting of list/map bins, each list/map bin gets a random depth in [1, maxDepth].
+     */
+    public WorkloadProfile maxDepth(int maxDepth) {
+        Preconditions.checkArgument(maxDepth >= 0 && maxDepth <= MAX_DEPTH, "maxDepth must be in [0, %s]", MAX_DEPTH);
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * Relative weights of the bin types, list/map bins hold a mix of the other three types.
+     */
+    public WorkloadProfile mix(int blobs, int strings, int integers, int cdts) {
+        Preconditions.checkArgument(blobs >= 0 && strings >= 0 && integers >= 0 && cdts >= 0
+                && blobs + strings + integers > 0, "weights must be non negative and not only lists/maps");
+        this.blobWeight = blobs;
+        this.stringWeight = strings;
+        this.integerWeight = integers;
+        this.cdtWeight = cdts;
+        return this;
+    }
+
+    /**
+     * Zipfian skew of the keys picked by update workloads, 0 for uniform access.
+     */
+    public WorkloadProfile hotKeys(double theta) {
+        Preconditions.checkArgument(theta >= 0 && theta < 1, "theta must be in [0, 1), got %s", theta);
+        this.hotKeyTheta = theta;
+        return this;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public KeyDistribution keyDistribution(long startKey, long keys) {
+        return hotKeyTheta == 0
+                ? KeyDistribution.uniform(startKey, keys)
+                : KeyDistribution.zipfian(startKey, keys, hotKeyTheta);
+    }
+
+    /**
+     * Deterministic generator of records with this profile, later changes to the profile do not affect it.
+     */
+    public RecordGenerator generator(long seed) {
+        Preconditions.checkArgument(cdtWeight == 0 || maxDepth > 0, "list/map bins need maxDepth > 0");
+        return new Generator(this, seed);
+    }
+
+    @Override
+    public String toString() {
+        return "%s(size median=%dB sigma=%.2f [%d, %d], bins=[%d, %d], depth<=%d, blob/string/int/cdt=%d/%d/%d/%d, hotKeys=%.2f)"
+                .formatted(name, medianBytes, sizeSigma, minBytes, maxBytes, minBins, maxBins, maxDepth,
+                        blobWeight, stringWeight, integerWeight, cdtWeight, hotKeyTheta);
+    }
+
+    private enum Kind {BLOB, STRING, INTEGER, CDT}
+
+    /**
+     * A top level blob bin, sent as a zero-copy segment of the blob pool.
+     */
+    private record Segment(int offset, int length) {
+    }
+
+    private static final class Generator implements RecordGenerator {
+        private final String description;
+        private final long seed;
+        private final double logMedian;
+        private final double sizeSigma;
+        private final int minBytes;
+        private final int maxBytes;
+        private final int minBins;
+        private final int maxBins;
+        private final int maxDepth;
+        private final int[] weights;
+        private final byte[] bytes;
+        private final String chars;
+        private final String[] binNames = new String[MAX_BINS];
+
+        Generator(WorkloadProfile profile, long seed) {
+            this.description = profile.toString();
+            this.seed = seed;
+            this.logMedian = Math.log(profile.medianBytes);
+            this.sizeSigma = profile.sizeSigma;
+            this.minBytes = profile.minBytes;
+            this.maxBytes = profile.maxBytes;
+            this.minBins = profile.minBins;
+            this.maxBins = profile.maxBins;
+            this.maxDepth = profile.maxDepth;
+            this.weights = new int[]{profile.blobWeight, profile.stringWeight, profile.integerWeight, profile.cdtWeight};
+
+            SplittableRandom random = new SplittableRandom(seed);
+            this.bytes = new byte[POOL_SIZE + maxBytes];
+            random.nextBytes(bytes);
+            char[] buffer = new char[POOL_SIZE + maxBytes];
+            for (int i = 0; i < buffer.length; i++) {
+                buffer[i] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            }
+            this.chars = new String(buffer);
+            for (int i = 0; i < binNames.length; i++) {
+                binNames[i] = i == 0 ? ObjectSpec.DEFAULT_BIN_NAME : ObjectSpec.DEFAULT_BIN_NAME + "_" + (i + 1);
+            }
+        }
+
+        @Override
+        public Bin[] bins(long keyIndex) {
+            Object[] values = values(keyIndex);
+            Bin[] bins = new Bin[values.length];
+            for (int i = 0; i < values.length; i++) {
+                bins[i] = new Bin(binNames[i], values[i] instanceof Segment segment
+                        ? Value.get(bytes, segment.offset(), segment.length())
+                        : Value.get(values[i]));
+            }
+            return bins;
+        }
+
+        @Override
+        public boolean matches(long keyIndex, Record record) {
+            Object[] values = values(keyIndex);
+            if (record == null || record.bins == null || record.bins.size() != values.length) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                Object actual = record.bins.get(binNames[i]);
+                boolean matches = values[i] instanceof Segment segment
+                        ? actual instanceof byte[] value && Arrays.equals(bytes, segment.offset(),
+                        segment.offset() + segment.length(), value, 0, value.length)
+                        : ObjectSpec.deepEquals(values[i], actual);
+                if (!matches) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Object[] values(long keyIndex) {
+            long hash = ObjectSpec.mix(seed ^ ObjectSpec.mix(keyIndex * 0x9E3779B97F4A7C15L));
+            int recordBytes = recordBytes(hash);
+            int binCount = minBins + (int) Long.remainderUnsigned(ObjectSpec.mix(hash + 1), maxBins - minBins + 1);
+            int budget = Math.max(1, recordBytes / binCount);
+            Object[] values = new Object[binCount];
+            for (int i = 0; i < binCount; i++) {
+                long binHash = ObjectSpec.mix(hash ^ ObjectSpec.mix(i + 2L));
+                Kind kind = pick(binHash, weights.length);
+                values[i] = switch (kind) {
+                    case BLOB -> new Segment(offset(binHash), budget);
+                    case CDT -> cdt(ObjectSpec.mix(binHash), budget, 1 + (int) ((binHash >>> 40) % maxDepth));
+                    default -> leaf(binHash, budget, kind);
+                };
+            }
+            return values;
+        }
+
+        private int recordBytes(long hash) {
+            // Box-Muller on two uniforms taken from the record hash
+            double u1 = ((hash >>> 11) + 1) * 0x1.0p-53;
+            double u2 = (ObjectSpec.mix(hash) >>> 11) * 0x1.0p-53;
+            double gaussian = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+            long size = Math.round(Math.exp(logMedian + sizeSigma * gaussian));
+            return (int) Math.max(minBytes, Math.min(maxBytes, size));
+        }
+
+        private Object cdt(long hash, int budget, int depth) {
+            // 2 to 8 entries, fewer when the budget is small so leaves do not shrink to a byte or two
+            int entries = (int) Math.min(2 + (hash >>> 50) % 7, Math.max(1, budget / MIN_LEAF_BYTES));
+            int entryBudget = Math.max(1, budget / entries);
+            boolean map = (hash & 1) == 0;
+            List<Object> list = map ? null : new ArrayList<>(entries);
+            Map<Object, Object> result = map ? new HashMap<>() : null;
+            for (int i = 0; i < entries; i++) {
+                long entryHash = ObjectSpec.mix(hash + i + 1);
+                Object value = depth > 1 && entryBudget >= 2 * MIN_LEAF_BYTES
+                        ? cdt(entryHash, entryBudget, depth - 1)
+                        : leaf(entryHash, entryBudget, pick(entryHash, Kind.CDT.ordinal()));
+                if (map) {
+                    result.put(MAP_KEYS[i], value);
+                } else {
+                    list.add(value);
+                }
+            }
+            return map ? result : list;
+        }
+
+        private Object leaf(long hash, int length, Kind kind) {
+            int from = offset(hash);
+            return switch (kind) {
+                case BLOB -> Arrays.copyOfRange(bytes, from, from + length);
+                case STRING -> chars.substring(from, from + length);
+                default -> hash;
+            };
+        }
+
+        // picks one of the first {@code kinds} kinds with the profile weights
+        private Kind pick(long hash, int kinds) {
+            int total = 0;
+            for (int i = 0; i < kinds; i++) {
+                total += weights[i];
+            }
+            int value = (int) ((hash >>> 20) % total);
+            for (int i = 0; i < kinds; i++) {
+                value -= weights[i];
+                if (value < 0) {
+                    return Kind.values()[i];
+                }
+            }
+            throw new IllegalStateException("weights must not be all 0");
+        }
+
+        private static int offset(long hash) {
+            return (int) ((hash >>> 1) % (POOL_SIZE + 1));
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+}
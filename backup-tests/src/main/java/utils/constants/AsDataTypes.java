@@ -1,5 +1,8 @@
 package utils.constants;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 public final class AsDataTypes {
     public static final String SCALAR_1KB = "SCALAR_1KB";
     public static final String COMPLEX_1KB = "COMPLEX_1KB";
@@ -13,6 +16,40 @@ public final class AsDataTypes {
     public static final String COMPLEX_100KB = "COMPLEX_100KB";
     public static final String MIXED_100KB = "MIXED_100KB";
 
+    private static final List<String> SCALAR_1KB_SPECS = List.of("I8", "S1024", "D");
+    private static final List<String> COMPLEX_1KB_SPECS = List.of("B1024", "[256*S2]", "{70*S10:I4}");
+    private static final List<String> SCALAR_3KB_SPECS = List.of("I8", "S3072", "D");
+    private static final List<String> COMPLEX_3KB_SPECS = List.of("B3072", "[768*S2]", "{210*S10:I4}");
+    private static final List<String> SCALAR_100KB_SPECS = List.of("I8", "S102400", "D");
+    private static final List<String> COMPLEX_100KB_SPECS = List.of("B102400", "[25600*S2]", "{7000*S10:I4}");
+
     private AsDataTypes() {
     }
+
+    /**
+     * asbench object specs that make up a data type; the data is split evenly between them.
+     */
+    public static List<String> objectSpecs(String dataType) {
+        return switch (dataType) {
+            case SCALAR_1KB -> SCALAR_1KB_SPECS;
+            case COMPLEX_1KB -> COMPLEX_1KB_SPECS;
+            case MIXED_1KB -> concat(SCALAR_1KB_SPECS, COMPLEX_1KB_SPECS);
+            case SCALAR_3KB -> SCALAR_3KB_SPECS;
+            case COMPLEX_3KB -> COMPLEX_3KB_SPECS;
+            case MIXED_3KB -> concat(SCALAR_3KB_SPECS, COMPLEX_3KB_SPECS);
+            case SCALAR_100KB -> SCALAR_100KB_SPECS;
+            case COMPLEX_100KB -> COMPLEX_100KB_SPECS;
+            case MIXED_100KB -> concat(SCALAR_100KB_SPECS, COMPLEX_100KB_SPECS);
+            default -> throw new IllegalArgumentException("Unsupported DATA_TYPE: " + dataType);
+        };
+    }
+
+    public static boolean isDataType(String value) {
+        return Stream.of(SCALAR_1KB, COMPLEX_1KB, MIXED_1KB, SCALAR_3KB, COMPLEX_3KB, MIXED_3KB,
+                SCALAR_100KB, COMPLEX_100KB, MIXED_100KB).anyMatch(dataType -> dataType.equals(value));
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        return Stream.concat(first.stream(), second.stream()).toList();
+    }
 }
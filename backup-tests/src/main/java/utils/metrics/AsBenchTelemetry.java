@@ -0,0 +1,173 @@
+package utils.metrics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Time series of the periodic lines asbench prints while it runs:
+ * <pre>
+ * 2024-05-01 10:00:01.123 INFO write(tps=36402 timeouts=0 errors=0) total(tps=36402 timeouts=0 errors=0)
+ * hdr: write 2024-05-01T10:00:01Z 1, 36402, 83, 12345, 200, 300, 400, 500, 600
+ * </pre>
+ * Samples are stamped with the time the line was received, so they can be compared with backup start/end
+ * timestamps taken in the test, or with {@link #mark(String) markers}.
+ */
+public class AsBenchTelemetry {
+
+    /**
+     * Percentiles requested from asbench with --percentiles, in the order they appear on hdr lines.
+     */
+    public static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    public static final String PERCENTILES_ARGUMENT = "50,90,99,99.9,99.99";
+
+    private static final Pattern WRITE = Pattern.compile(
+            "write\\(tps=(\\d+)(?: \\(hit=\\d+ miss=\\d+\\))? timeouts=(\\d+) errors=(\\d+)\\)");
+    private static final Pattern HDR = Pattern.compile("hdr: write \\S+ (\\d+(?:, \\d+)+)");
+
+    private final List<Sample> samples = new CopyOnWriteArrayList<>();
+    private final List<LatencySample> latencySamples = new CopyOnWriteArrayList<>();
+    private final List<Marker> markers = new CopyOnWriteArrayList<>();
+
+    public record Sample(Instant time, long tps, long timeouts, long errors) {
+    }
+
+    /**
+     * @param percentilesMicros latencies at {@link #PERCENTILES}, in microseconds
+     */
+    public record LatencySample(Instant time, long count, long minMicros, long maxMicros, long[] percentilesMicros) {
+        public long percentileMicros(double percentile) {
+            for (int i = 0; i < PERCENTILES.length && i < percentilesMicros.length; i++) {
+                if (PERCENTILES[i] == percentile) {
+                    return percentilesMicros[i];
+                }
+            }
+            throw new IllegalArgumentException("asbench does not report percentile " + percentile);
+        }
+    }
+
+    public record Marker(Instant time, String label) {
+    }
+
+    /**
+     * @param maxP99Micros highest p99 write latency seen in the window, 0 when latency was not enabled
+     */
+    public record Window(int samples, double meanTps, long minTps, long maxTps, long timeouts, long errors,
+                         long maxP99Micros) {
+        @Override
+        public String toString() {
+            return "samples=%d meanTps=%.0f minTps=%d maxTps=%d timeouts=%d errors=%d maxP99=%dus".formatted(
+                    samples, meanTps, minTps, maxTps, timeouts, errors, maxP99Micros);
+        }
+    }
+
+    public void accept(String line) {
+        accept(line, Instant.now());
+    }
+
+    void accept(String line, Instant time) {
+        Matcher write = WRITE.matcher(line);
+        if (write.find()) {
+            samples.add(new Sample(time, Long.parseLong(write.group(1)), Long.parseLong(write.group(2)),
+                    Long.parseLong(write.group(3))));
+            return;
+        }
+        Matcher hdr = HDR.matcher(line);
+        if (hdr.find()) {
+            // elapsed seconds, count, min, max, then one value per percentile
+            String[] values = hdr.group(1).split(", ");
+            if (values.length < 4) {
+                return;
+            }
+            long[] percentiles = new long[values.length - 4];
+            for (int i = 0; i < percentiles.length; i++) {
+                percentiles[i] = Long.parseLong(values[i + 4]);
+            }
+            latencySamples.add(new LatencySample(time, Long.parseLong(values[1]), Long.parseLong(values[2]),
+                    Long.parseLong(values[3]), percentiles));
+        }
+    }
+
+    /**
+     * Records an event (e.g. "backup started") on the same clock as the samples.
+     */
+    public Instant mark(String label) {
+        Marker marker = new Marker(Instant.now(), label);
+        markers.add(marker);
+        return marker.time();
+    }
+
+    public Optional<Instant> marker(String label) {
+        return markers.stream().filter(marker -> marker.label().equals(label)).map(Marker::time).findFirst();
+    }
+
+    public List<Sample> samples() {
+        return List.copyOf(samples);
+    }
+
+    public List<LatencySample> latencySamples() {
+        return List.copyOf(latencySamples);
+    }
+
+    public List<Marker> markers() {
+        return List.copyOf(markers);
+    }
+
+    public Window window(Instant from, Instant to) {
+        return summarize(time -> !time.isBefore(from) && !time.isAfter(to));
+    }
+
+    /**
+     * Everything outside [from, to], i.e. the baseline to compare a window with.
+     */
+    public Window outside(Instant from, Instant to) {
+        return summarize(time -> time.isBefore(from) || time.isAfter(to));
+    }
+
+    /**
+     * How much lower (in percent) the mean write tps in [from, to] is than outside of it.
+     */
+    public double throughputDropPercent(Instant from, Instant to) {
+        Window baseline = outside(from, to);
+        if (baseline.samples() == 0 || baseline.meanTps() == 0) {
+            return 0;
+        }
+        return 100 * (1 - window(from, to).meanTps() / baseline.meanTps());
+    }
+
+    private Window summarize(Predicate<Instant> inWindow) {
+        int count = 0;
+        long total = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        long timeouts = 0;
+        long errors = 0;
+        for (Sample sample : samples) {
+            if (inWindow.test(sample.time())) {
+                count++;
+                total += sample.tps();
+                min = Math.min(min, sample.tps());
+                max = Math.max(max, sample.tps());
+                timeouts += sample.timeouts();
+                errors += sample.errors();
+            }
+        }
+        long maxP99 = 0;
+        for (LatencySample sample : latencySamples) {
+            if (inWindow.test(sample.time()) && sample.percentilesMicros().length > 2) {
+                maxP99 = Math.max(maxP99, sample.percentileMicros(99));
+            }
+        }
+        return new Window(count, count == 0 ? 0 : (double) total / count, count == 0 ? 0 : min, max, timeouts, errors,
+                maxP99);
+    }
+
+    @Override
+    public String toString() {
+        return summarize(time -> true).toString();
+    }
+}
@@ -0,0 +1,206 @@
+package utils.metrics;
+
+import com.aerospike.client.Bin;
+import com.aerospike.client.Value;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of the shape of written records: approximate serialized size (power-of-two buckets, like
+ * {@link LatencyHistogram}), bin count, deepest list/map nesting and the type of every bin.
+ * Sizes are estimated from the bins (bin names plus msgpack-like particle sizes), not read back from the server.
+ */
+public class RecordShapeHistogram {
+
+    public enum BinType {INTEGER, DOUBLE, STRING, BLOB, LIST, MAP, OTHER}
+
+    private static final int SIZE_BUCKETS = 32;
+    private static final int MAX_BINS = 256;
+    private static final int MAX_DEPTH = 16;
+
+    private final AtomicLongArray sizeBuckets = new AtomicLongArray(SIZE_BUCKETS);
+    private final AtomicLongArray binCounts = new AtomicLongArray(MAX_BINS + 1);
+    private final AtomicLongArray depths = new AtomicLongArray(MAX_DEPTH + 1);
+    private final AtomicLongArray binTypes = new AtomicLongArray(BinType.values().length);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final AtomicLong maxBytes = new AtomicLong();
+
+    /**
+     * Shape of one record, computed once when the record is generated and recorded once it was written.
+     *
+     * @param binTypes number of bins of each {@link BinType}, indexed by ordinal
+     */
+    public record Shape(long bytes, int bins, int depth, int[] binTypes) {
+
+        public static Shape of(Bin[] bins) {
+            long bytes = 0;
+            int depth = 0;
+            int[] binTypes = new int[BinType.values().length];
+            for (Bin bin : bins) {
+                Object value = bin.value.getObject();
+                binTypes[typeOf(value).ordinal()]++;
+                bytes += bin.name.length() + size(value);
+                depth = Math.max(depth, depth(value));
+            }
+            return new Shape(bytes, bins.length, depth, binTypes);
+        }
+
+        private static BinType typeOf(Object value) {
+            if (value instanceof Long || value instanceof Integer || value instanceof Boolean) {
+                return BinType.INTEGER;
+            }
+            if (value instanceof Double || value instanceof Float) {
+                return BinType.DOUBLE;
+            }
+            if (value instanceof String) {
+                return BinType.STRING;
+            }
+            if (value instanceof byte[] || value instanceof Value.ByteSegmentValue) {
+                return BinType.BLOB;
+            }
+            if (value instanceof List<?>) {
+                return BinType.LIST;
+            }
+            if (value instanceof Map<?, ?>) {
+                return BinType.MAP;
+            }
+            return BinType.OTHER;
+        }
+
+        private static long size(Object value) {
+            if (value instanceof String string) {
+                return 1 + string.length();
+            }
+            if (value instanceof byte[] bytes) {
+                return 1 + bytes.length;
+            }
+            if (value instanceof Value.ByteSegmentValue segment) {
+                return 1 + segment.getLength();
+            }
+            if (value instanceof List<?> list) {
+                long size = 5;
+                for (Object element : list) {
+                    size += size(element);
+                }
+                return size;
+            }
+            if (value instanceof Map<?, ?> map) {
+                long size = 5;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    size += size(entry.getKey()) + size(entry.getValue());
+                }
+                return size;
+            }
+            return value == null ? 1 : value instanceof Number || value instanceof Boolean ? 9 : 1 + value.toString().length();
+        }
+
+        private static int depth(Object value) {
+            int depth = 0;
+            if (value instanceof List<?> list) {
+                for (Object element : list) {
+                    depth = Math.max(depth, depth(element));
+                }
+                return depth + 1;
+            }
+            if (value instanceof Map<?, ?> map) {
+                for (Object element : map.values()) {
+                    depth = Math.max(depth, depth(element));
+                }
+                return depth + 1;
+            }
+            return 0;
+        }
+    }
+
+    public void record(Shape shape) {
+        sizeBuckets.incrementAndGet(Math.min(SIZE_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(shape.bytes())));
+        binCounts.incrementAndGet(Math.min(MAX_BINS, shape.bins()));
+        depths.incrementAndGet(Math.min(MAX_DEPTH, shape.depth()));
+        for (int i = 0; i < shape.binTypes().length; i++) {
+            if (shape.binTypes()[i] > 0) {
+                binTypes.addAndGet(i, shape.binTypes()[i]);
+            }
+        }
+        count.incrementAndGet();
+        totalBytes.addAndGet(shape.bytes());
+        maxBytes.accumulateAndGet(shape.bytes(), Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    public double getMeanBytes() {
+        long records = count.get();
+        return records == 0 ? 0 : (double) totalBytes.get() / records;
+    }
+
+    /**
+     * Upper bound of the size bucket that contains the given percentile (0-100).
+     */
+    public long sizePercentile(double percentile) {
+        return Math.min(1L << percentileBucket(sizeBuckets, percentile), maxBytes.get());
+    }
+
+    public int binCountPercentile(double percentile) {
+        return percentileBucket(binCounts, percentile);
+    }
+
+    public int maxDepth() {
+        for (int depth = MAX_DEPTH; depth > 0; depth--) {
+            if (depths.get(depth) > 0) {
+                return depth;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Number of records whose deepest list/map nesting is the given depth (0 means no list or map bin).
+     */
+    public long recordsWithDepth(int depth) {
+        return depths.get(Math.min(MAX_DEPTH, depth));
+    }
+
+    public Map<BinType, Long> binTypes() {
+        Map<BinType, Long> result = new EnumMap<>(BinType.class);
+        for (BinType type : BinType.values()) {
+            if (binTypes.get(type.ordinal()) > 0) {
+                result.put(type, binTypes.get(type.ordinal()));
+            }
+        }
+        return result;
+    }
+
+    private int percentileBucket(AtomicLongArray buckets, double percentile) {
+        long records = count.get();
+        if (records == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(records * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return buckets.length() - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "records=%d bytes=%d mean=%.0fB p50=%dB p90=%dB p99=%dB max=%dB bins p50=%d p99=%d maxDepth=%d types=%s".formatted(
+                getCount(), getTotalBytes(), getMeanBytes(), sizePercentile(50), sizePercentile(90), sizePercentile(99),
+                maxBytes.get(), binCountPercentile(50), binCountPercentile(99), maxDepth(), binTypes());
+    }
+}
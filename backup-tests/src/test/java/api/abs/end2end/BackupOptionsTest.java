@@ -24,6 +24,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -241,9 +242,11 @@ class BackupOptionsTest extends AbsRunner {
         AerospikeLogger.info("addr2= " + addr2);
 
         // Step 3: Get record count per node using only IP for reliable internal matching
-        int countNode1 = AerospikeCountUtils.getObjectCountForNode(srcClient, SOURCE_NAMESPACE, addr1);
+        Map<String, Integer> nodeCounts = AerospikeCountUtils.getObjectCountsForNodes(srcClient, SOURCE_NAMESPACE,
+                List.of(addr1, addr2));
+        int countNode1 = nodeCounts.get(addr1);
         AerospikeLogger.info("countNode1=" + countNode1);
-        int countNode2 = AerospikeCountUtils.getObjectCountForNode(srcClient, SOURCE_NAMESPACE, addr2);
+        int countNode2 = nodeCounts.get(addr2);
         AerospikeLogger.info("countNode2=" + countNode2);
 
         int expectedRecordCount = countNode1 + countNode2;
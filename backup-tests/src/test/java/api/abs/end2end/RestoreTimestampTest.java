@@ -17,7 +17,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import utils.AutoUtils;
 import utils.abs.AbsRunner;
+import utils.aerospike.BatchWriter;
 import utils.aerospike.abs.AerospikeDataUtils;
+import utils.aerospike.load.ChangeLog;
+import utils.aerospike.load.KeyDistribution;
+import utils.aerospike.load.MutationReport;
+import utils.aerospike.load.MutationWorkload;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 import static api.abs.AbsRestoreApi.defaultPolicy;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -33,6 +41,7 @@ class RestoreTimestampTest extends AbsRunner {
     private static final String STRING_BIN = "TimestampBin";
     private static final String ROUTINE_NAME = "timestamp";
     private static final String SET = "set";
+    private static final String CHURN_SET = "churn";
 
     private static DtoAerospikeCluster SOURCE_CLUSTER;
 
@@ -46,9 +55,11 @@ class RestoreTimestampTest extends AbsRunner {
         KEY3 = new Key(SOURCE_NAMESPACE, SET, "key3");
         SOURCE_CLUSTER = AbsClusterApi.getCluster(routine.getSourceCluster());
 
+        BatchWriter payloadWriter = AerospikeDataUtils.batchWriter();
         for (int i = 0; i < 20; i++) {
-            AerospikeDataUtils.put(new Key(SOURCE_NAMESPACE, "payload", i), STRING_BIN, "some data");
+            payloadWriter.add(new Key(SOURCE_NAMESPACE, "payload", i), new Bin(STRING_BIN, "some data"));
         }
+        payloadWriter.verifyAll().write().throwIfFailed();
     }
 
     @Test
@@ -130,10 +141,12 @@ class RestoreTimestampTest extends AbsRunner {
         long[] expectedData = new long[KEYS];
 
         // fill all with zeros
+        BatchWriter zeroWriter = AerospikeDataUtils.batchWriter();
         for (int i = 0; i < KEYS; i++) {
             Key key = new Key(SOURCE_NAMESPACE, "set", i);
-            AerospikeDataUtils.putNoLogs(key, new Bin("bin", 0));
+            zeroWriter.add(key, new Bin("bin", 0));
         }
+        zeroWriter.write().throwIfFailed();
 
         AbsBackupApi.startFullBackupSync(ROUTINE_NAME);
 
@@ -143,11 +156,13 @@ class RestoreTimestampTest extends AbsRunner {
         Bin payload = createComplexRecord(700);
         DtoBackupDetails dtoBackupDetails = null;
         for (int iteration = 1; iteration <= ITERATIONS; iteration++) {
+            BatchWriter iterationWriter = AerospikeDataUtils.batchWriter();
             for (int i = 0; i < KEYS; i += iteration) {
                 Key key = new Key(SOURCE_NAMESPACE, "set", i);
-                AerospikeDataUtils.putNoLogs(key, new Bin("bin", iteration), payload);
+                iterationWriter.add(key, new Bin("bin", iteration), payload);
                 expectedData[i] = iteration;
             }
+            iterationWriter.write().throwIfFailed();
             dtoBackupDetails = AbsBackupApi.waitForIncrementalBackup(ROUTINE_NAME);
         }
 
@@ -173,6 +188,44 @@ class RestoreTimestampTest extends AbsRunner {
         assertRestoredData(KEYS, expectedData);
     }
 
+    @Test
+    void restoreTimestampUnderChurn() {
+        final var KEYS = 10_000;
+        BatchWriter initialWriter = AerospikeDataUtils.batchWriter();
+        for (int i = 0; i < KEYS; i++) {
+            initialWriter.add(new Key(SOURCE_NAMESPACE, CHURN_SET, i), new Bin("bin", 0));
+        }
+        initialWriter.write().throwIfFailed();
+        DtoBackupDetails fullBackup = AbsBackupApi.startFullBackupSync(ROUTINE_NAME);
+
+        MutationWorkload workload = AerospikeDataUtils.mutationWorkload(SOURCE_NAMESPACE, CHURN_SET)
+                .mix(70, 10, 10, 10)
+                .keyDistribution(KeyDistribution.zipfian(0, KEYS, 0.99))
+                .rate(500)
+                .duration(Duration.ofMinutes(2));
+        CompletableFuture<MutationReport> churn = workload.start();
+
+        // the churn runs across several incremental backups
+        AbsBackupApi.waitForIncrementalBackup(ROUTINE_NAME, System.currentTimeMillis());
+        DtoBackupDetails lastBackup = AbsBackupApi.waitForIncrementalBackup(ROUTINE_NAME, System.currentTimeMillis());
+        workload.stop();
+        MutationReport report = churn.join();
+
+        ChangeLog.Expectation expected = report.changeLog()
+                .expect(AbsBackupApi.getCreated(fullBackup), AbsBackupApi.getCreated(lastBackup));
+        AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
+        AbsRestoreApi.restoreTimestampSync(new DtoRestoreTimestampRequest()
+                .destination(SOURCE_CLUSTER)
+                .routine(ROUTINE_NAME)
+                .policy(defaultPolicy().setList(Lists.list(CHURN_SET)))
+                .time(AbsBackupApi.getCreated(lastBackup)));
+
+        assertThat(expected.written()).isNotEmpty();
+        // deleted keys are not checked: incremental backups do not carry deletes, the full backup brings them back
+        assertThat(expected.findMissingKeys(srcClient))
+                .as("Keys written up to the restore time but not restored, churn: %s, expected: %s", report, expected)
+                .isEmpty();
+    }
 
     private static void assertRestoredData(int KEYS, long[] expectedData) {
         for (int i = 0; i < KEYS; i++) {
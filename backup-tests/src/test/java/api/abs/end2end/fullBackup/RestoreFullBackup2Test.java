@@ -24,10 +24,10 @@ import utils.ASBench;
 import utils.AerospikeLogger;
 import utils.abs.AbsRunner;
 import utils.aerospike.AerospikeCountUtils;
+import utils.aerospike.RecordDiff;
 import utils.aerospike.abs.AerospikeDataUtils;
 
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
@@ -258,49 +258,50 @@ class RestoreFullBackup2Test extends AbsRunner {
 
         int countBefore = AerospikeCountUtils.getSetObjectCount(srcClient, set, SOURCE_NAMESPACE);
         assertThat(countBefore).isGreaterThan(300_000);
-        Map<String, Map<String, Object>> allRecordsBefore = AerospikeDataUtils.getAllRecords(SOURCE_NAMESPACE, set);
-
-        // Step 2: Backup
-        DtoBackupDetails backup = AbsBackupApi.startFullBackupSync(ROUTINE_NAME);
-        String backupKey = backup.getKey();
-
-        // Step 3: Truncate DB
-        AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
-        assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, set, SOURCE_NAMESPACE)).isZero();
-
-        // Step 4: Restore twice in parallel (noGeneration true)
-        DtoRestorePolicy overwritePolicy = new DtoRestorePolicy().noGeneration(true);
-        CompletableFuture<Void> restore1 = CompletableFuture.runAsync(() ->
-                AbsRestoreApi.restoreFullSync(backupKey, ROUTINE_NAME, overwritePolicy));
-        CompletableFuture<Void> restore2 = CompletableFuture.runAsync(() ->
-                AbsRestoreApi.restoreFullSync(backupKey, ROUTINE_NAME, overwritePolicy));
-        restore1.get();
-        restore2.get();
-
-        int countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, set, SOURCE_NAMESPACE);
-        assertThat(countAfter).isEqualTo(countBefore);
-
-        Map<String, Map<String, Object>> recordsAfterRestore = AerospikeDataUtils.getAllRecords(SOURCE_NAMESPACE, set);
-        assertThat(recordsAfterRestore)
-                .as("After noGeneration=true restore")
-                .isEqualTo(allRecordsBefore);
-
-        // Step 5: Restore twice in parallel (noGeneration false)
-        DtoRestorePolicy skipPolicy = new DtoRestorePolicy().noGeneration(false);
-        restore1 = CompletableFuture.runAsync(() ->
-                AbsRestoreApi.restoreFullSync(backupKey, ROUTINE_NAME, skipPolicy));
-        restore2 = CompletableFuture.runAsync(() ->
-                AbsRestoreApi.restoreFullSync(backupKey, ROUTINE_NAME, skipPolicy));
-        restore1.get();
-        restore2.get();
-
-        countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, set, SOURCE_NAMESPACE);
-        assertThat(countAfter).isEqualTo(countBefore);
-
-        recordsAfterRestore = AerospikeDataUtils.getAllRecords(SOURCE_NAMESPACE, set);
-        assertThat(recordsAfterRestore)
-                .as("After noGeneration=false restore")
-                .isEqualTo(allRecordsBefore);
+        try (RecordDiff.Snapshot allRecordsBefore = RecordDiff.snapshot(srcClient, SOURCE_NAMESPACE, set)) {
+
+            // Step 2: Backup
+            DtoBackupDetails backup = AbsBackupApi.startFullBackupSync(ROUTINE_NAME);
+            String backupKey = backup.getKey();
+
+            // Step 3: Truncate DB
+            AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
+            assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, set, SOURCE_NAMESPACE)).isZero();
+
+            // Step 4: Restore twice in parallel (noGeneration true)
+            DtoRestorePolicy overwritePolicy = new DtoRestorePolicy().noGeneration(true);
+            CompletableFuture<Void> restore1 = CompletableFuture.runAsync(() ->
+                    AbsRestoreApi.restoreFullSync(backupKey, ROUTINE_NAME, overwritePolicy));
+            CompletableFuture<Void> restore2 = CompletableFuture.runAsync(() ->
+                    AbsRestoreApi.restoreFullSync(backupKey, ROUTINE_NAME, overwritePolicy));
+            restore1.get();
+            restore2.get();
+
+            int countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, set, SOURCE_NAMESPACE);
+            assertThat(countAfter).isEqualTo(countBefore);
+
+            RecordDiff.Result recordsAfterRestore = RecordDiff.compare(allRecordsBefore, srcClient);
+            assertThat(recordsAfterRestore.isEmpty())
+                    .as("After noGeneration=true restore: %s", recordsAfterRestore)
+                    .isTrue();
+
+            // Step 5: Restore twice in parallel (noGeneration false)
+            DtoRestorePolicy skipPolicy = new DtoRestorePolicy().noGeneration(false);
+            restore1 = CompletableFuture.runAsync(() ->
+                    AbsRestoreApi.restoreFullSync(backupKey, ROUTINE_NAME, skipPolicy));
+            restore2 = CompletableFuture.runAsync(() ->
+                    AbsRestoreApi.restoreFullSync(backupKey, ROUTINE_NAME, skipPolicy));
+            restore1.get();
+            restore2.get();
+
+            countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, set, SOURCE_NAMESPACE);
+            assertThat(countAfter).isEqualTo(countBefore);
+
+            recordsAfterRestore = RecordDiff.compare(allRecordsBefore, srcClient);
+            assertThat(recordsAfterRestore.isEmpty())
+                    .as("After noGeneration=false restore: %s", recordsAfterRestore)
+                    .isTrue();
+        }
     }
 
     @Test
@@ -17,12 +17,18 @@ import utils.AutoUtils;
 import utils.abs.AbsRunner;
 import utils.aerospike.AerospikeScanner;
 import utils.aerospike.abs.AerospikeDataUtils;
+import utils.aerospike.load.ChangeLog;
+import utils.aerospike.load.KeyDistribution;
+import utils.aerospike.load.MutationReport;
+import utils.aerospike.load.MutationWorkload;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -35,6 +41,7 @@ class RestoreIncrementalBackup1Test extends AbsRunner {
     private static final String SET1 = "SetIncrementalTest1";
     private static final String SET2 = "SetIncrementalTest2";
     private static final String SET3 = "SetIncrementalTest3";
+    private static final String CHURN_SET = "SetIncrementalChurn";
     private static final String ROUTINE_NAME = "localStorageIncremental3";
     private static Key KEY1;
     private static Key KEY2;
@@ -170,4 +177,34 @@ class RestoreIncrementalBackup1Test extends AbsRunner {
         scanner.scanKeys(srcClient, SOURCE_NAMESPACE, SET1);
         assertThat(scanner.getAllKeys().size()).isEqualTo(1);
     }
+
+    @Test
+    void restoreIncrementalBackupUnderChurn() {
+        MutationWorkload workload = AerospikeDataUtils.mutationWorkload(SOURCE_NAMESPACE, CHURN_SET)
+                .mix(70, 10, 10, 10)
+                .keyDistribution(KeyDistribution.zipfian(1, 10_000, 0.99))
+                .rate(500)
+                .duration(Duration.ofMinutes(2));
+        CompletableFuture<MutationReport> churn = workload.start();
+
+        AutoUtils.sleep(5000);
+        var backup = waitForIncrementalBackup(ROUTINE_NAME, System.currentTimeMillis());
+        workload.stop();
+        MutationReport report = churn.join();
+
+        // the workload ran on while the backup was scanning, changes after its start are left uncertain
+        ChangeLog.Expectation expected = report.changeLog().expect(getFrom(backup), getCreated(backup));
+        AerospikeLogger.info("Churn: %s, expected in backup: %s".formatted(report, expected));
+        assertThat(expected.written()).isNotEmpty();
+        assertThat(backup.getRecordCount())
+                .as("Backed up records")
+                .isBetween((long) expected.written().size(),
+                        (long) expected.written().size() + expected.uncertain().size());
+
+        AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
+        AbsRestoreApi.restoreIncrementalSync(backup.getKey(), ROUTINE_NAME);
+
+        assertThat(expected.findMissingKeys(srcClient)).as("Written keys not restored").isEmpty();
+        assertThat(expected.findResurrectedKeys(srcClient)).as("Deleted keys restored").isEmpty();
+    }
 }
\ No newline at end of file
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.Test;
 import utils.AerospikeLogger;
 import utils.AutoUtils;
 import utils.abs.AbsRunner;
+import utils.aerospike.BatchWriter;
 import utils.aerospike.abs.AerospikeDataUtils;
 
 import static api.abs.AbsRestoreApi.defaultPolicy;
@@ -44,9 +45,11 @@ class RestoreXDRTest extends AbsRunner {
         KEY3 = new Key(SOURCE_NAMESPACE, "set", "key3");
         SOURCE_CLUSTER = AbsClusterApi.getCluster(routine.getSourceCluster());
 
+        BatchWriter payloadWriter = AerospikeDataUtils.batchWriter();
         for (int i = 0; i < PAYLOAD; i++) {
-            AerospikeDataUtils.put(new Key(SOURCE_NAMESPACE, "payload", i), STRING_BIN, "some data");
+            payloadWriter.add(new Key(SOURCE_NAMESPACE, "payload", i), new Bin(STRING_BIN, "some data"));
         }
+        payloadWriter.verifyAll().write().throwIfFailed();
     }
 
     @Test
@@ -99,10 +102,12 @@ class RestoreXDRTest extends AbsRunner {
         long[] expectedData = new long[KEYS];
 
         // fill all with zeros
+        BatchWriter zeroWriter = AerospikeDataUtils.batchWriter();
         for (int i = 0; i < KEYS; i++) {
             Key key = new Key(SOURCE_NAMESPACE, "set", i);
-            AerospikeDataUtils.putNoLogs(key, new Bin("bin", 0));
+            zeroWriter.add(key, new Bin("bin", 0));
         }
+        zeroWriter.write().throwIfFailed();
 
         AutoUtils.sleep(100_00);
         AbsBackupApi.startFullBackupSync(ROUTINE_NAME);
@@ -111,11 +116,13 @@ class RestoreXDRTest extends AbsRunner {
         Bin payload = createComplexRecord(700);
         DtoBackupDetails dtoBackupDetails = null;
         for (int iteration = 1; iteration <= ITERATIONS; iteration++) {
+            BatchWriter iterationWriter = AerospikeDataUtils.batchWriter();
             for (int i = 0; i < KEYS; i += iteration) {
                 Key key = new Key(SOURCE_NAMESPACE, "set", i);
-                AerospikeDataUtils.putNoLogs(key, new Bin("bin", iteration), payload);
+                iterationWriter.add(key, new Bin("bin", iteration), payload);
                 expectedData[i] = iteration;
             }
+            iterationWriter.write().throwIfFailed();
             dtoBackupDetails = AbsBackupApi.waitForIncrementalBackup(ROUTINE_NAME);
         }
 
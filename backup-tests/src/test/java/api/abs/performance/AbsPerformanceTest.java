@@ -4,6 +4,8 @@ import api.abs.AbsBackupApi;
 import api.abs.AbsPolicyApi;
 import api.abs.AbsRestoreApi;
 import api.abs.AbsRoutineApi;
+import api.abs.RestoreJobTracker;
+import api.abs.TrackedBackup;
 import api.abs.generated.ApiResponse;
 import api.abs.generated.model.DtoBackupDetails;
 import api.abs.generated.model.DtoBackupPolicy;
@@ -14,7 +16,9 @@ import utils.AerospikeLogger;
 import utils.ConfigParametersHandler;
 import utils.abs.AbsRunner;
 import utils.aerospike.AerospikeCountUtils;
+import utils.aerospike.ContentChecksum;
 import utils.aerospike.abs.AerospikeDataUtils;
+import utils.aerospike.load.WorkloadProfile;
 import utils.constants.AsDataTypes;
 
 import java.time.Duration;
@@ -32,6 +36,7 @@ class AbsPerformanceTest extends AbsRunner {
     private static final String ROUTINE_NAME = "performanceTest";
     private static final String SOURCE_NAMESPACE = AbsRoutineApi.getAnyNamespaceForRoutine(ROUTINE_NAME);
     private static long dataSizeBeforeTruncate;
+    private static ContentChecksum contentBeforeTruncate;
     private static boolean createData;
     private static int numberOfRecordsInMillions;
     private static String dataType;
@@ -85,18 +90,18 @@ class AbsPerformanceTest extends AbsRunner {
         restoreSocketTimeout = Integer.parseInt(ConfigParametersHandler.getParameter("RESTORE_SOCKET_TIMEOUT"));
         restoreTotalTimeout = Integer.parseInt(ConfigParametersHandler.getParameter("RESTORE_TOTAL_TIMEOUT"));
 
-        if (truncateData) {
-            AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
-        }
-
+        // an existing copy of the same dataset is reused, ensureBigData truncates before reloading otherwise
         if (createData) {
             createPerformanceTestData();
+        } else if (truncateData) {
+            AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
         }
 
         numberOfRecordsBeforeTruncate = AerospikeCountUtils.getNamespaceObjectCount(srcClient, SOURCE_NAMESPACE);
         dataSizeBeforeTruncate = AerospikeDataUtils.getDataTotalBytes(SOURCE_NAMESPACE);
         AerospikeLogger.info("Data size before truncate: " + dataSizeBeforeTruncate);
         AerospikeLogger.info("Records in DB: " + numberOfRecordsBeforeTruncate);
+        contentBeforeTruncate = ContentChecksum.compute(srcClient, SOURCE_NAMESPACE, null);
     }
 
     @Test
@@ -105,7 +110,11 @@ class AbsPerformanceTest extends AbsRunner {
         updateBackupPolicy();
 
         Instant startTime = Instant.now();
-        backup = AbsBackupApi.startFullBackupSync(ROUTINE_NAME, Duration.ofMinutes(500));
+        TrackedBackup trackedBackup = AbsBackupApi.startFullBackupTracked(ROUTINE_NAME, Duration.ofMinutes(500),
+                Duration.ofMinutes(15), 0);
+        backup = trackedBackup.backup();
+        AerospikeLogger.info("Backup progress: " + trackedBackup.timeline());
+        AerospikeLogger.info("Backup rate per segment (%/min): " + trackedBackup.timeline().segmentRates());
         Duration backupDuration = Duration.between(startTime, Instant.now());
         long durationInSeconds = backupDuration.toSeconds();
 
@@ -144,7 +153,10 @@ class AbsPerformanceTest extends AbsRunner {
                 .totalTimeout(restoreTotalTimeout);
 
         Instant startTime = Instant.now();
-        AbsRestoreApi.restoreFullSync(backup.getKey(), ROUTINE_NAME, restorePolicy, Duration.ofHours(10));
+        RestoreJobTracker.RestoreRun restoreRun = AbsRestoreApi.restoreFullTracked(backup.getKey(), ROUTINE_NAME,
+                restorePolicy, Duration.ofHours(10));
+        AerospikeLogger.info("Restore throughput: " + restoreRun);
+        AerospikeLogger.info("Restore records/s per poll: " + restoreRun.recordsPerSecond());
         Duration restoreDuration = Duration.between(startTime, Instant.now());
         long durationInSeconds = restoreDuration.toSeconds();
 
@@ -164,6 +176,10 @@ class AbsPerformanceTest extends AbsRunner {
         assertThat(dataSizeAfterRestore)
                 .as("Data size after restore should be equal to the size before taking a backup")
                 .isEqualTo(dataSizeBeforeTruncate);
+        ContentChecksum contentAfterRestore = ContentChecksum.compute(srcClient, SOURCE_NAMESPACE, null);
+        assertThat(contentAfterRestore.mismatchedPartitions(contentBeforeTruncate))
+                .as("Restored records should have the same contents as before taking a backup")
+                .isEmpty();
 
         AerospikeLogger.info("Max restore duration: " + maxRestoreDuration + "s, actual: " + durationInSeconds + "s (" + (maxRestoreDuration - durationInSeconds) + "s under)");
 
@@ -201,146 +217,8 @@ class AbsPerformanceTest extends AbsRunner {
             maxRestoreDuration = Long.MAX_VALUE;
         }
 
-        double recordsPerType;
-
-        switch (dataType) {
-            case AsDataTypes.SCALAR_1KB:
-                recordsPerType = numberOfRecordsInMillions / 3.0;
-                AerospikeLogger.info("Creating records for " + dataType + " with type: I8");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "I8");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: S1024");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "S1024");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: D");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "D");
-                break;
-
-            case AsDataTypes.COMPLEX_1KB:
-                recordsPerType = numberOfRecordsInMillions / 3.0;
-                AerospikeLogger.info("Creating records for " + dataType + " with type: B1024");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "B1024");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: [256*S2]");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "[256*S2]");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: {70*S10:I4}");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "{70*S10:I4}");
-                break;
-
-            case AsDataTypes.MIXED_1KB:
-                recordsPerType = numberOfRecordsInMillions / 6.0;
-                AerospikeLogger.info("Creating records for " + dataType + " with type: I8");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "I8");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: S1024");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "S1024");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: D");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "D");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: B1024");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "B1024");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: [256*S2]");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "[256*S2]");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: {70*S10:I4}");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "{70*S10:I4}");
-                break;
-
-            case AsDataTypes.SCALAR_3KB:
-                recordsPerType = numberOfRecordsInMillions / 3.0;
-                AerospikeLogger.info("Creating records for " + dataType + " with type: I8");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "I8");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: S3072");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "S3072");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: D");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "D");
-                break;
-
-            case AsDataTypes.COMPLEX_3KB:
-                recordsPerType = numberOfRecordsInMillions / 3.0;
-                AerospikeLogger.info("Creating records for " + dataType + " with type: B3072");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "B3072");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: [768*S2]");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "[768*S2]");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: {210*S10:I4}");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "{210*S10:I4}");
-                break;
-
-            case AsDataTypes.MIXED_3KB:
-                recordsPerType = numberOfRecordsInMillions / 6.0;
-                AerospikeLogger.info("Creating records for " + dataType + " with type: I8");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "I8");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: S3072");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "S3072");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: D");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "D");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: B3072");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "B3072");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: [768*S2]");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "[768*S2]");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: {210*S10:I4}");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "{210*S10:I4}");
-                break;
-
-            case AsDataTypes.SCALAR_100KB:
-                recordsPerType = numberOfRecordsInMillions / 3.0;
-                AerospikeLogger.info("Creating records for " + dataType + " with type: I8");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "I8");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: S102400");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "S102400");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: D");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "D");
-                break;
-
-            case AsDataTypes.COMPLEX_100KB:
-                recordsPerType = numberOfRecordsInMillions / 3.0;
-                AerospikeLogger.info("Creating records for " + dataType + " with type: B102400");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "B102400");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: [25600*S2]");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "[25600*S2]");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: {7000*S10:I4}");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "{7000*S10:I4}");
-                break;
-
-            case AsDataTypes.MIXED_100KB:
-                recordsPerType = numberOfRecordsInMillions / 6.0;
-                AerospikeLogger.info("Creating records for " + dataType + " with type: I8");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "I8");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: S102400");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "S102400");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: D");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "D");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: B102400");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "B102400");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: [25600*S2]");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "[25600*S2]");
-
-                AerospikeLogger.info("Creating records for " + dataType + " with type: {7000*S10:I4}");
-                AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, dataType, recordsPerType, "{7000*S10:I4}");
-                break;
-
-            default:
-                throw new IllegalArgumentException("Unsupported DATA_TYPE: " + dataType);
-        }
+        AerospikeLogger.info("Creating records for " + dataType + " with types: " + (WorkloadProfile.isNamed(dataType)
+                ? WorkloadProfile.named(dataType) : AsDataTypes.objectSpecs(dataType)));
+        AerospikeDataUtils.ensureBigData(SOURCE_NAMESPACE, dataType, numberOfRecordsInMillions, dataType);
     }
 }
\ No newline at end of file
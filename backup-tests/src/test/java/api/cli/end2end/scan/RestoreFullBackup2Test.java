@@ -7,14 +7,22 @@ import api.cli.RestoreResult;
 import com.aerospike.client.Bin;
 import com.aerospike.client.Key;
 import com.aerospike.client.Record;
+import com.aerospike.client.cluster.Node;
 import com.aerospike.client.policy.WritePolicy;
 import org.junit.jupiter.api.*;
 import utils.ASBench;
 import utils.AerospikeLogger;
+import utils.AutoUtils;
 import utils.aerospike.AerospikeCountUtils;
+import utils.aerospike.BatchWriter;
+import utils.aerospike.PartitionOwnership;
+import utils.aerospike.RecordDiff;
 import utils.aerospike.abs.AerospikeDataUtils;
+import utils.aerospike.load.KeyDistribution;
+import utils.aerospike.load.TransactionReport;
 import utils.cliBackup.CliBackupRunner;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -407,9 +415,11 @@ class RestoreFullBackup2Test extends CliBackupRunner {
         String addr2 = nodeAddresses.get(1);
 
         // Step 3: Get record count for each selected node
-        int countNode1 = AerospikeCountUtils.getObjectCountForNode(srcClient, SOURCE_NAMESPACE, addr1);
+        Map<String, Integer> nodeCounts = AerospikeCountUtils.getObjectCountsForNodes(srcClient, SOURCE_NAMESPACE,
+                List.of(addr1, addr2));
+        int countNode1 = nodeCounts.get(addr1);
         AerospikeLogger.info("countNode1=" + countNode1);
-        int countNode2 = AerospikeCountUtils.getObjectCountForNode(srcClient, SOURCE_NAMESPACE, addr2);
+        int countNode2 = nodeCounts.get(addr2);
         AerospikeLogger.info("countNode2=" + countNode2);
 
 
@@ -436,6 +446,39 @@ class RestoreFullBackup2Test extends CliBackupRunner {
         assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE)).isEqualTo(expectedRecordCount);
     }
 
+    @Test
+    void nodeListWithSkewedData() {
+        PartitionOwnership ownership = PartitionOwnership.fetch(srcClient, SOURCE_NAMESPACE);
+        List<Node> nodes = List.copyOf(ownership.masterPartitionCounts().keySet());
+        assertThat(nodes.size()).isGreaterThanOrEqualTo(2);
+        Node loadedNode = nodes.get(0);
+        String loadedAddress = loadedNode.getHost().name + ":" + loadedNode.getHost().port;
+
+        // 50 records mastered by every node, and 500 more by the first one
+        BatchWriter writer = AerospikeDataUtils.batchWriter();
+        ownership.balancedKeys(SET1, "balanced", 50).forEach(key -> writer.add(key, new Bin("bin", 1)));
+        ownership.keysOwnedBy(loadedNode, SET1, "skewed", 500).forEach(key -> writer.add(key, new Bin("bin", 2)));
+        writer.write().throwIfFailed();
+
+        Map<String, Integer> nodeCounts = AerospikeCountUtils.getObjectCountsForNodes(srcClient, SOURCE_NAMESPACE,
+                AerospikeCountUtils.getNodeAddresses(srcClient));
+        assertThat(nodeCounts.get(loadedAddress)).isEqualTo(550);
+        nodeCounts.forEach((address, count) -> {
+            if (!address.equals(loadedAddress)) {
+                assertThat(count).as("Records mastered by " + address).isEqualTo(50);
+            }
+        });
+
+        BackupResult backupResult = CliBackup.on(SOURCE_NAMESPACE, "nodeListSkewedBackupDir")
+                .setNodeList(loadedAddress)
+                .run();
+
+        AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
+        CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).run();
+
+        assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE)).isEqualTo(550);
+    }
+
     @Test
     void twoRestoresInParallel() throws Exception {
         // Step 1: Generate many records
@@ -447,50 +490,80 @@ class RestoreFullBackup2Test extends CliBackupRunner {
 
         int countBefore = AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE);
         assertThat(countBefore).isGreaterThan(300_000);
-        Map<String, Map<String, Object>> allRecordsBefore = AerospikeDataUtils.getAllRecords(SOURCE_NAMESPACE, SET1);
+        try (RecordDiff.Snapshot allRecordsBefore = RecordDiff.snapshot(srcClient, SOURCE_NAMESPACE, SET1)) {
 
-        // backup
-        BackupResult backupResult = CliBackup.on(SOURCE_NAMESPACE, "twoRestoresInParallel")
-                .run();
+            // backup
+            BackupResult backupResult = CliBackup.on(SOURCE_NAMESPACE, "twoRestoresInParallel")
+                    .run();
 
-        // Step 3: Truncate DB
-        AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
-        assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE)).isZero();
+            // Step 3: Truncate DB
+            AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
+            assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE)).isZero();
+
+            // Step 4: Restore twice in parallel (noGeneration true)
+            CompletableFuture<Void> restore1 = CompletableFuture.runAsync(() ->
+                    CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).setNoGeneration().run());
+            CompletableFuture<Void> restore2 = CompletableFuture.runAsync(() ->
+                    CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).setNoGeneration().run());
+            restore1.get();
+            restore2.get();
+
+            int countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE);
+            assertThat(countAfter).isEqualTo(countBefore);
 
-        // Step 4: Restore twice in parallel (noGeneration true)
-        CompletableFuture<Void> restore1 = CompletableFuture.runAsync(() ->
-                CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).setNoGeneration().run());
-        CompletableFuture<Void> restore2 = CompletableFuture.runAsync(() ->
-                CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).setNoGeneration().run());
-        restore1.get();
-        restore2.get();
+            RecordDiff.Result recordsAfterRestore = RecordDiff.compare(allRecordsBefore, srcClient);
+            assertThat(recordsAfterRestore.isEmpty())
+                    .as("After noGeneration=true restore: %s", recordsAfterRestore)
+                    .isTrue();
 
-        int countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE);
-        assertThat(countAfter).isEqualTo(countBefore);
+            // Step 3: Truncate DB
+            AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
+            assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE)).isZero();
+
+            // Step 4: Restore twice in parallel (noGeneration false)
+            restore1 = CompletableFuture.runAsync(() ->
+                    CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).run());
+            restore2 = CompletableFuture.runAsync(() ->
+                    CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).run());
+            restore1.get();
+            restore2.get();
+
+            countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE);
+            assertThat(countAfter).isEqualTo(countBefore);
+
+            recordsAfterRestore = RecordDiff.compare(allRecordsBefore, srcClient);
+            assertThat(recordsAfterRestore.isEmpty())
+                    .as("After noGeneration=false restore: %s", recordsAfterRestore)
+                    .isTrue();
+        }
+    }
 
-        Map<String, Map<String, Object>> recordsAfterRestore = AerospikeDataUtils.getAllRecords(SOURCE_NAMESPACE, SET1);
-        assertThat(recordsAfterRestore)
-                .as("After noGeneration=true restore")
-                .isEqualTo(allRecordsBefore);
+    @Test
+    void backupUnderTransactionalLoad() {
+        String set = "SetTransactionalLoad";
+        CompletableFuture<TransactionReport> workload = AerospikeDataUtils.transactionWorkload(SOURCE_NAMESPACE, set)
+                .concurrency(8)
+                .operationsPerTransaction(5)
+                .commitRatio(0.7)
+                .keyDistribution(KeyDistribution.zipfian(0, 10_000, 0.99))
+                .duration(Duration.ofSeconds(10))
+                .start();
+
+        AutoUtils.sleep(3000);
+        BackupResult underLoad = CliBackup.on(SOURCE_NAMESPACE, "backupUnderTransactionalLoad").run();
+        TransactionReport report = workload.join();
+
+        assertThat(report.committed()).isGreaterThan(0);
+        assertThat(report.findMismatchedKeys(srcClient)).isEmpty();
+        BackupResult afterLoad = CliBackup.on(SOURCE_NAMESPACE, "backupAfterTransactionalLoad").run();
+
+        // a backup taken under load holds a state in between: no rolled back write, but not the last commits
+        AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
+        CliRestore.on(SOURCE_NAMESPACE, underLoad.getBackupDir()).run();
+        assertThat(report.findAbortedWrites(srcClient)).isEmpty();
 
-        // Step 3: Truncate DB
         AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
-        assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE)).isZero();
-
-        // Step 4: Restore twice in parallel (noGeneration false)
-        restore1 = CompletableFuture.runAsync(() ->
-                CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).run());
-        restore2 = CompletableFuture.runAsync(() ->
-                CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).run());
-        restore1.get();
-        restore2.get();
-
-        countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE);
-        assertThat(countAfter).isEqualTo(countBefore);
-
-        recordsAfterRestore = AerospikeDataUtils.getAllRecords(SOURCE_NAMESPACE, SET1);
-        assertThat(recordsAfterRestore)
-                .as("After noGeneration=false restore")
-                .isEqualTo(allRecordsBefore);
+        CliRestore.on(SOURCE_NAMESPACE, afterLoad.getBackupDir()).run();
+        assertThat(report.findMismatchedKeys(srcClient)).isEmpty();
     }
 }
\ No newline at end of file
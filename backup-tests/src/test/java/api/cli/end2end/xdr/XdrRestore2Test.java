@@ -11,6 +11,7 @@ import com.aerospike.client.policy.WritePolicy;
 import org.junit.jupiter.api.*;
 import utils.ASBench;
 import utils.aerospike.AerospikeCountUtils;
+import utils.aerospike.RecordDiff;
 import utils.aerospike.abs.AerospikeDataUtils;
 import utils.cliBackup.CliBackupRunner;
 
@@ -365,49 +366,50 @@ class XdrRestore2Test extends CliBackupRunner {
 
         int countBefore = AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE);
         assertThat(countBefore).isGreaterThan(300_000);
-        Map<String, Map<String, Object>> allRecordsBefore = AerospikeDataUtils.getAllRecords(SOURCE_NAMESPACE, SET1);
-
-        // backup
-        BackupResult backupResult = CliBackup.onWithXdr(SOURCE_NAMESPACE, "twoRestoresInParallel", DC, LOCAL_PORT).run();
-
-        // Step 3: Truncate DB
-        AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
-        assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE)).isZero();
-
-        // Step 4: Restore twice in parallel (noGeneration true)
-        CompletableFuture<Void> restore1 = CompletableFuture.runAsync(() ->
-                CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).setNoGeneration().run());
-        CompletableFuture<Void> restore2 = CompletableFuture.runAsync(() ->
-                CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).setNoGeneration().run());
-        restore1.get();
-        restore2.get();
-
-        int countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE);
-        assertThat(countAfter).isEqualTo(countBefore);
-
-        Map<String, Map<String, Object>> recordsAfterRestore = AerospikeDataUtils.getAllRecords(SOURCE_NAMESPACE, SET1);
-        assertThat(recordsAfterRestore)
-                .as("After noGeneration=true restore")
-                .isEqualTo(allRecordsBefore);
-
-        // Step 3: Truncate DB
-        AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
-        assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE)).isZero();
-
-        // Step 4: Restore twice in parallel (noGeneration false)
-        restore1 = CompletableFuture.runAsync(() ->
-                CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).run());
-        restore2 = CompletableFuture.runAsync(() ->
-                CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).run());
-        restore1.get();
-        restore2.get();
-
-        countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE);
-        assertThat(countAfter).isEqualTo(countBefore);
-
-        recordsAfterRestore = AerospikeDataUtils.getAllRecords(SOURCE_NAMESPACE, SET1);
-        assertThat(recordsAfterRestore)
-                .as("After noGeneration=false restore")
-                .isEqualTo(allRecordsBefore);
+        try (RecordDiff.Snapshot allRecordsBefore = RecordDiff.snapshot(srcClient, SOURCE_NAMESPACE, SET1)) {
+
+            // backup
+            BackupResult backupResult = CliBackup.onWithXdr(SOURCE_NAMESPACE, "twoRestoresInParallel", DC, LOCAL_PORT).run();
+
+            // Step 3: Truncate DB
+            AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
+            assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE)).isZero();
+
+            // Step 4: Restore twice in parallel (noGeneration true)
+            CompletableFuture<Void> restore1 = CompletableFuture.runAsync(() ->
+                    CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).setNoGeneration().run());
+            CompletableFuture<Void> restore2 = CompletableFuture.runAsync(() ->
+                    CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).setNoGeneration().run());
+            restore1.get();
+            restore2.get();
+
+            int countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE);
+            assertThat(countAfter).isEqualTo(countBefore);
+
+            RecordDiff.Result recordsAfterRestore = RecordDiff.compare(allRecordsBefore, srcClient);
+            assertThat(recordsAfterRestore.isEmpty())
+                    .as("After noGeneration=true restore: %s", recordsAfterRestore)
+                    .isTrue();
+
+            // Step 3: Truncate DB
+            AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
+            assertThat(AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE)).isZero();
+
+            // Step 4: Restore twice in parallel (noGeneration false)
+            restore1 = CompletableFuture.runAsync(() ->
+                    CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).run());
+            restore2 = CompletableFuture.runAsync(() ->
+                    CliRestore.on(SOURCE_NAMESPACE, backupResult.getBackupDir()).run());
+            restore1.get();
+            restore2.get();
+
+            countAfter = AerospikeCountUtils.getSetObjectCount(srcClient, SET1, SOURCE_NAMESPACE);
+            assertThat(countAfter).isEqualTo(countBefore);
+
+            recordsAfterRestore = RecordDiff.compare(allRecordsBefore, srcClient);
+            assertThat(recordsAfterRestore.isEmpty())
+                    .as("After noGeneration=false restore: %s", recordsAfterRestore)
+                    .isTrue();
+        }
     }
 }
\ No newline at end of file
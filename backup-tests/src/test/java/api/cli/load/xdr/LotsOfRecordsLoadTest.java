@@ -23,8 +23,7 @@ class LotsOfRecordsLoadTest extends CliBackupRunner {
 
     @BeforeAll
     static void setUp() {
-        AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
-        AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, SET1, 10);
+        AerospikeDataUtils.ensureBigData(SOURCE_NAMESPACE, SET1, 10, "B1024");
         AutoUtils.sleep(10_000);
     }
 
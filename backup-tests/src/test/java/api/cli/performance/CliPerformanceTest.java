@@ -7,6 +7,7 @@ import org.junit.jupiter.api.*;
 import utils.AerospikeLogger;
 import utils.ConfigParametersHandler;
 import utils.aerospike.AerospikeCountUtils;
+import utils.aerospike.ContentChecksum;
 import utils.aerospike.abs.AerospikeDataUtils;
 import utils.cliBackup.CliBackupRunner;
 
@@ -23,6 +24,7 @@ class CliPerformanceTest extends CliBackupRunner {
     private static final String SET = "SetPerformanceTest";
     private static final String SOURCE_NAMESPACE = "source-ns1";
     private static long dataSizeBeforeTruncate;
+    private static ContentChecksum contentBeforeTruncate;
     private static boolean createData;
     private static int numberOfRecordsInMillions;
     private static String recordType;
@@ -61,18 +63,18 @@ class CliPerformanceTest extends CliBackupRunner {
         restoreSocketTimeout = Integer.parseInt(ConfigParametersHandler.getParameter("RESTORE_SOCKET_TIMEOUT"));
         restoreTotalTimeout = Integer.parseInt(ConfigParametersHandler.getParameter("RESTORE_TOTAL_TIMEOUT"));
 
-        if (truncateData) {
-            AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
-        }
-
+        // an existing copy of the same dataset is reused, ensureBigData truncates before reloading otherwise
         if (createData) {
-            AerospikeDataUtils.createBigData(SOURCE_NAMESPACE, SET, numberOfRecordsInMillions, "B1024");
+            AerospikeDataUtils.ensureBigData(SOURCE_NAMESPACE, SET, numberOfRecordsInMillions, "B1024");
+        } else if (truncateData) {
+            AerospikeDataUtils.truncateSourceNamespace(SOURCE_NAMESPACE);
         }
 
         numberOfRecordsBeforeTruncate = AerospikeCountUtils.getNamespaceObjectCount(srcClient, SOURCE_NAMESPACE);
         dataSizeBeforeTruncate = AerospikeDataUtils.getDataTotalBytes(SOURCE_NAMESPACE);
         AerospikeLogger.info("Data size before truncate: " + dataSizeBeforeTruncate);
         AerospikeLogger.info("Records in DB: " + numberOfRecordsBeforeTruncate);
+        contentBeforeTruncate = ContentChecksum.compute(srcClient, SOURCE_NAMESPACE, null);
     }
 
     @Test
@@ -139,6 +141,10 @@ class CliPerformanceTest extends CliBackupRunner {
         assertThat(dataSizeAfterRestore)
                 .as("Data size after restore should be equal to the size before taking a backup")
                 .isEqualTo(dataSizeBeforeTruncate);
+        ContentChecksum contentAfterRestore = ContentChecksum.compute(srcClient, SOURCE_NAMESPACE, null);
+        assertThat(contentAfterRestore.mismatchedPartitions(contentBeforeTruncate))
+                .as("Restored records should have the same contents as before taking a backup")
+                .isEmpty();
 
         assertThat(AerospikeCountUtils.getNamespaceObjectCount(srcClient, SOURCE_NAMESPACE)).isEqualTo(numberOfRecordsBeforeTruncate);
     }
@@ -0,0 +1,231 @@
+package utils.info;
+
+/**
+ * Cursor over an info response of records (separated by ';' for most commands) made of {@code key=value} fields
+ * (separated by ':'), read in a single pass over the {@link CharSequence} without copying it: keys and values are
+ * only compared or parsed in place, substrings are created only when a text value is asked for.
+ * <pre>
+ * InfoTokenizer tokenizer = InfoTokenizer.records(response);
+ * while (tokenizer.nextRecord()) {
+ *     while (tokenizer.nextField()) {
+ *         if (tokenizer.keyEquals("objects")) ...
+ *     }
+ * }
+ * </pre>
+ * Empty records and fields are skipped, a field without '=' has an empty value. The value ends at the next
+ * separator, so it may hold further '=' (base64 padding, for example).
+ */
+public final class InfoTokenizer {
+    private final CharSequence response;
+    private final char recordSeparator;
+    private final char fieldSeparator;
+    private final int length;
+    private int position;
+    private boolean inRecord;
+    private boolean recordDone;
+    private int keyStart;
+    private int keyEnd;
+    private int valueStart;
+    private int valueEnd;
+
+    private InfoTokenizer(CharSequence response, char recordSeparator, char fieldSeparator) {
+        this.response = response == null ? "" : response;
+        this.recordSeparator = recordSeparator;
+        this.fieldSeparator = fieldSeparator;
+        this.length = this.response.length();
+    }
+
+    /**
+     * Records separated by ';' with fields separated by ':', as returned by "sets", "sindex-list" or "query-show".
+     */
+    public static InfoTokenizer records(CharSequence response) {
+        return new InfoTokenizer(response, ';', ':');
+    }
+
+    public static InfoTokenizer records(CharSequence response, char recordSeparator, char fieldSeparator) {
+        return new InfoTokenizer(response, recordSeparator, fieldSeparator);
+    }
+
+    /**
+     * A single record of fields separated by ';', as returned by "namespace/&lt;ns&gt;" or "get-config".
+     */
+    public static InfoTokenizer fields(CharSequence response) {
+        return new InfoTokenizer(response, ';', ';');
+    }
+
+    /**
+     * Moves to the next non-empty record, skipping what is left of the current one.
+     */
+    public boolean nextRecord() {
+        if (inRecord && !recordDone) {
+            position = indexOf(recordSeparator, position) + 1;
+        }
+        while (position < length && response.charAt(position) == recordSeparator) {
+            position++;
+        }
+        inRecord = position < length;
+        recordDone = !inRecord;
+        return inRecord;
+    }
+
+    /**
+     * Moves to the next non-empty field of the current record, false at the end of the record.
+     */
+    public boolean nextField() {
+        while (!recordDone) {
+            int start = position;
+            int equals = -1;
+            int end = -1;
+            while (position < length) {
+                char c = response.charAt(position);
+                if (c == fieldSeparator) {
+                    end = position++;
+                    break;
+                }
+                if (c == recordSeparator) {
+                    end = position++;
+                    recordDone = true;
+                    break;
+                }
+                if (c == '=' && equals < 0) {
+                    equals = position;
+                }
+                position++;
+            }
+            if (end < 0) {
+                end = length;
+                recordDone = true;
+            }
+            if (end > start) {
+                keyStart = start;
+                keyEnd = equals < 0 ? end : equals;
+                valueStart = equals < 0 ? end : equals + 1;
+                valueEnd = end;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean keyEquals(String key) {
+        return regionEquals(keyStart, keyEnd, key);
+    }
+
+    public boolean valueEquals(String value) {
+        return regionEquals(valueStart, valueEnd, value);
+    }
+
+    public String key() {
+        return response.subSequence(keyStart, keyEnd).toString();
+    }
+
+    /**
+     * Text of the whole current field, for fields that are not {@code key=value} pairs, e.g. the base64 bitmaps
+     * of "replicas" whose padding would be taken for a '='.
+     */
+    public String field() {
+        return response.subSequence(keyStart, valueEnd).toString();
+    }
+
+    public String value() {
+        return response.subSequence(valueStart, valueEnd).toString();
+    }
+
+    /**
+     * Text value, null for the "NULL" the server uses for absent names (e.g. the set of a namespace-wide index).
+     */
+    public String nullableValue() {
+        return valueEquals("NULL") ? null : value();
+    }
+
+    public long longValue() {
+        if (valueStart == valueEnd) {
+            throw new NumberFormatException("Empty value for " + key());
+        }
+        boolean negative = response.charAt(valueStart) == '-';
+        int i = negative || response.charAt(valueStart) == '+' ? valueStart + 1 : valueStart;
+        if (i == valueEnd) {
+            throw new NumberFormatException("Not a number: " + key() + "=" + value());
+        }
+        long result = 0;
+        for (; i < valueEnd; i++) {
+            int digit = response.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || result < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("Not a number: " + key() + "=" + value());
+            }
+            // accumulated negatively so that Long.MIN_VALUE parses too
+            result = result * 10 - digit;
+        }
+        if (!negative && result == Long.MIN_VALUE) {
+            throw new NumberFormatException("Not a number: " + key() + "=" + value());
+        }
+        return negative ? result : -result;
+    }
+
+    public int intValue() {
+        return Math.toIntExact(longValue());
+    }
+
+    public double doubleValue() {
+        return Double.parseDouble(value());
+    }
+
+    public boolean booleanValue() {
+        return valueEquals("true");
+    }
+
+    /**
+     * Value of a numeric {@code name=value} field of a ';'-separated response, {@code defaultValue} when absent.
+     */
+    public static long longValue(CharSequence response, String key, long defaultValue) {
+        InfoTokenizer tokenizer = fields(response);
+        tokenizer.nextRecord();
+        while (tokenizer.nextField()) {
+            if (tokenizer.keyEquals(key)) {
+                return tokenizer.longValue();
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Whether the server answered with an error such as "ERROR::DC not found" or "ERROR:4:bad parameter".
+     */
+    public static boolean isError(CharSequence response) {
+        String prefix = "error:";
+        if (response == null || response.length() < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(response.charAt(i)) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(char c, int from) {
+        // String.indexOf is vectorized, worth it for the records skipped whole
+        if (response instanceof String string) {
+            int index = string.indexOf(c, from);
+            return index < 0 ? length : index;
+        }
+        int index = from;
+        while (index < length && response.charAt(index) != c) {
+            index++;
+        }
+        return index;
+    }
+
+    private boolean regionEquals(int start, int end, String expected) {
+        if (end - start != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (response.charAt(start + i) != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package utils.info;
+
+/**
+ * Statistics of one namespace on one node, from the response to "namespace/&lt;ns&gt;".
+ */
+public record NamespaceStats(long objects, long masterObjects, long tombstones, long dataUsedBytes,
+                             long migrateTxPartitionsRemaining, long migrateRxPartitionsRemaining,
+                             int replicationFactor, int effectiveReplicationFactor, boolean stopWrites) {
+
+    public static NamespaceStats parse(CharSequence response) {
+        long objects = 0;
+        long masterObjects = 0;
+        long tombstones = 0;
+        long dataUsedBytes = 0;
+        long migrateTx = 0;
+        long migrateRx = 0;
+        int replicationFactor = 1;
+        int effectiveReplicationFactor = 0;
+        boolean stopWrites = false;
+        InfoTokenizer tokenizer = InfoTokenizer.fields(response);
+        tokenizer.nextRecord();
+        while (tokenizer.nextField()) {
+            if (tokenizer.keyEquals("objects")) {
+                objects = tokenizer.longValue();
+            } else if (tokenizer.keyEquals("master_objects")) {
+                masterObjects = tokenizer.longValue();
+            } else if (tokenizer.keyEquals("tombstones")) {
+                tombstones = tokenizer.longValue();
+            } else if (tokenizer.keyEquals("data_used_bytes")) {
+                dataUsedBytes = tokenizer.longValue();
+            } else if (tokenizer.keyEquals("migrate_tx_partitions_remaining")) {
+                migrateTx = tokenizer.longValue();
+            } else if (tokenizer.keyEquals("migrate_rx_partitions_remaining")) {
+                migrateRx = tokenizer.longValue();
+            } else if (tokenizer.keyEquals("replication-factor")) {
+                replicationFactor = tokenizer.intValue();
+            } else if (tokenizer.keyEquals("effective_replication_factor")) {
+                effectiveReplicationFactor = tokenizer.intValue();
+            } else if (tokenizer.keyEquals("stop_writes")) {
+                stopWrites = tokenizer.booleanValue();
+            }
+        }
+        return new NamespaceStats(objects, masterObjects, tombstones, dataUsedBytes, migrateTx, migrateRx,
+                replicationFactor, effectiveReplicationFactor, stopWrites);
+    }
+
+    public boolean isMigrating() {
+        return migrateTxPartitionsRemaining > 0 || migrateRxPartitionsRemaining > 0;
+    }
+}
@@ -0,0 +1,51 @@
+package utils.info;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One query or scan job, from the response to "query-show" (or "scan-show" on older servers).
+ *
+ * @param trid unsigned 64-bit transaction id, compare with {@link Long#compareUnsigned} and print with
+ *             {@link Long#toUnsignedString}
+ */
+public record QueryJob(long trid, String namespace, String set, String status, String udfFunction,
+                       long recordsSucceeded, double progressPct) {
+
+    public static List<QueryJob> parseAll(CharSequence response) {
+        List<QueryJob> jobs = new ArrayList<>();
+        InfoTokenizer tokenizer = InfoTokenizer.records(response);
+        while (tokenizer.nextRecord()) {
+            long trid = 0;
+            String namespace = null;
+            String set = null;
+            String status = null;
+            String udfFunction = null;
+            long recordsSucceeded = 0;
+            double progressPct = 0;
+            while (tokenizer.nextField()) {
+                if (tokenizer.keyEquals("trid")) {
+                    trid = Long.parseUnsignedLong(tokenizer.value());
+                } else if (tokenizer.keyEquals("ns")) {
+                    namespace = tokenizer.value();
+                } else if (tokenizer.keyEquals("set")) {
+                    set = tokenizer.value();
+                } else if (tokenizer.keyEquals("status")) {
+                    status = tokenizer.value();
+                } else if (tokenizer.keyEquals("udf-function")) {
+                    udfFunction = tokenizer.value();
+                } else if (tokenizer.keyEquals("recs-succeeded")) {
+                    recordsSucceeded = tokenizer.longValue();
+                } else if (tokenizer.keyEquals("job-progress")) {
+                    progressPct = tokenizer.doubleValue();
+                }
+            }
+            jobs.add(new QueryJob(trid, namespace, set, status, udfFunction, recordsSucceeded, progressPct));
+        }
+        return jobs;
+    }
+
+    public boolean isDone() {
+        return status != null && status.startsWith("done");
+    }
+}
@@ -0,0 +1,55 @@
+package utils.info;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One secondary index, from the response to "sindex-list" or "sindex-list:ns=&lt;ns&gt;".
+ * The set is null for an index over the whole namespace.
+ */
+public record SIndexInfo(String namespace, String name, String set, String bin, String type, String indexType,
+                         String context, String state) {
+
+    public static List<SIndexInfo> parseAll(CharSequence response) {
+        List<SIndexInfo> indexes = new ArrayList<>();
+        InfoTokenizer tokenizer = InfoTokenizer.records(response);
+        while (tokenizer.nextRecord()) {
+            String namespace = null;
+            String name = null;
+            String set = null;
+            String bin = null;
+            String type = null;
+            String indexType = null;
+            String context = null;
+            String state = null;
+            while (tokenizer.nextField()) {
+                if (tokenizer.keyEquals("ns")) {
+                    namespace = tokenizer.value();
+                } else if (tokenizer.keyEquals("indexname")) {
+                    name = tokenizer.value();
+                } else if (tokenizer.keyEquals("set")) {
+                    set = tokenizer.nullableValue();
+                } else if (tokenizer.keyEquals("bin") || tokenizer.keyEquals("bins")) {
+                    bin = tokenizer.nullableValue();
+                } else if (tokenizer.keyEquals("type")) {
+                    type = tokenizer.value();
+                } else if (tokenizer.keyEquals("indextype")) {
+                    indexType = tokenizer.value();
+                } else if (tokenizer.keyEquals("context")) {
+                    context = tokenizer.nullableValue();
+                } else if (tokenizer.keyEquals("state")) {
+                    state = tokenizer.value();
+                }
+            }
+            indexes.add(new SIndexInfo(namespace, name, set, bin, type, indexType, context, state));
+        }
+        return indexes;
+    }
+
+    /**
+     * Built and usable by queries ("RW"), as opposed to still being populated ("WO").
+     */
+    public boolean isReady() {
+        return "RW".equals(state);
+    }
+}
@@ -0,0 +1,56 @@
+package utils.info;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistics of one set on one node, from the response to "sets" or "sets/&lt;ns&gt;".
+ */
+public record SetStats(String namespace, String set, long objects, long tombstones, long dataUsedBytes,
+                       long truncateLut) {
+
+    public static List<SetStats> parseAll(CharSequence response) {
+        return parse(response, null);
+    }
+
+    /**
+     * Sets of one namespace only, the "sets" response lists the sets of all namespaces.
+     */
+    public static List<SetStats> parseAll(CharSequence response, String namespace) {
+        return parse(response, namespace);
+    }
+
+    private static List<SetStats> parse(CharSequence response, String onlyNamespace) {
+        List<SetStats> sets = new ArrayList<>();
+        InfoTokenizer tokenizer = InfoTokenizer.records(response);
+        records:
+        while (tokenizer.nextRecord()) {
+            String namespace = null;
+            String set = null;
+            long objects = 0;
+            long tombstones = 0;
+            long dataUsedBytes = 0;
+            long truncateLut = 0;
+            while (tokenizer.nextField()) {
+                if (tokenizer.keyEquals("ns")) {
+                    if (onlyNamespace != null && !tokenizer.valueEquals(onlyNamespace)) {
+                        continue records;
+                    }
+                    namespace = onlyNamespace != null ? onlyNamespace : tokenizer.value();
+                } else if (tokenizer.keyEquals("set")) {
+                    set = tokenizer.value();
+                } else if (tokenizer.keyEquals("objects")) {
+                    objects = tokenizer.longValue();
+                } else if (tokenizer.keyEquals("tombstones")) {
+                    tombstones = tokenizer.longValue();
+                } else if (tokenizer.keyEquals("data_used_bytes")) {
+                    dataUsedBytes = tokenizer.longValue();
+                } else if (tokenizer.keyEquals("truncate_lut")) {
+                    truncateLut = tokenizer.longValue();
+                }
+            }
+            sets.add(new SetStats(namespace, set, objects, tombstones, dataUsedBytes, truncateLut));
+        }
+        return sets;
+    }
+}
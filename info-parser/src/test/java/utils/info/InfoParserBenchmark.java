@@ -0,0 +1,114 @@
+package utils.info;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The tokenizer against the split / substringBetween parsing it replaced, on responses the size of a busy node's.
+ * Run {@link #main} from the IDE, or with the test classpath: {@code java -cp ... utils.info.InfoParserBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InfoParserBenchmark {
+    private static final String NAMESPACE = "source-ns5";
+
+    @Param({"10", "200"})
+    private int sets;
+
+    private String setsResponse;
+    private String namespaceResponse;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder();
+        for (int ns = 0; ns < 10; ns++) {
+            for (int set = 0; set < sets; set++) {
+                builder.append("ns=source-ns").append(ns).append(":set=set").append(set)
+                        .append(":objects=").append(1000L * set + ns)
+                        .append(":tombstones=0:data_used_bytes=").append(4096L * set)
+                        .append(":truncate_lut=0:sindexes=0:index_populating=false:truncating=false")
+                        .append(":default-read-touch-ttl-pct=0:default-ttl=0:disable-eviction=false")
+                        .append(":enable-index=false:stop-writes-count=0:stop-writes-size=0;");
+            }
+        }
+        setsResponse = builder.toString();
+        builder.setLength(0);
+        for (int i = 0; i < 300; i++) {
+            builder.append("statistic_").append(i).append('=').append(i * 31L).append(';');
+        }
+        builder.append("master_objects=123456789;replication-factor=2;data_used_bytes=987654321");
+        namespaceResponse = builder.toString();
+    }
+
+    @Benchmark
+    public long namespaceObjectsSplit() {
+        return Arrays.stream(setsResponse.split(";"))
+                .filter(it -> it.contains("ns=" + NAMESPACE + ":"))
+                .flatMap(it -> Arrays.stream(it.split(":")))
+                .filter(it -> it.startsWith("objects="))
+                .map(it -> it.replace("objects=", ""))
+                .mapToLong(Long::parseLong)
+                .sum();
+    }
+
+    @Benchmark
+    public long namespaceObjectsTokenizer() {
+        return SetStats.parseAll(setsResponse, NAMESPACE).stream()
+                .mapToLong(SetStats::objects)
+                .sum();
+    }
+
+    @Benchmark
+    public long setObjectsSubstringBetween() {
+        return Long.parseLong(StringUtils.substringBetween(setsResponse,
+                "ns=" + NAMESPACE + ":set=set" + (sets - 1) + ":objects=", ":"));
+    }
+
+    @Benchmark
+    public long setObjectsTokenizer() {
+        String setName = "set" + (sets - 1);
+        return SetStats.parseAll(setsResponse, NAMESPACE).stream()
+                .filter(set -> setName.equals(set.set()))
+                .mapToLong(SetStats::objects)
+                .sum();
+    }
+
+    @Benchmark
+    public long statisticSubstringBetween() {
+        return Long.parseLong(StringUtils.substringBetween(namespaceResponse + ";", "data_used_bytes=", ";"));
+    }
+
+    @Benchmark
+    public long statisticTokenizer() {
+        return InfoTokenizer.longValue(namespaceResponse, "data_used_bytes", 0);
+    }
+
+    @Benchmark
+    public NamespaceStats namespaceStats() {
+        return NamespaceStats.parse(namespaceResponse);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InfoParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
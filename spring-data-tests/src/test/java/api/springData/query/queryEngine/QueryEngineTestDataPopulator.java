@@ -2,8 +2,10 @@ package api.springData.query.queryEngine;
 
 import com.aerospike.client.Record;
 import com.aerospike.client.*;
+import com.aerospike.client.policy.BatchPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
+import utils.AerospikeLogger;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -31,7 +33,12 @@ public class QueryEngineTestDataPopulator {
     public static final String SPECIAL_CHAR_BIN = "scBin";
     public static final String keyPrefix = "querykey";
     public static final String USERS_SET = "users";
+    // Bump when the generated data changes, so namespaces populated by an older version are rewritten
+    public static final int DATA_VERSION = 1;
+    public static final String FINGERPRINT_SET = "query-engine-fingerprint";
     private static final int SAMPLE_DATA_COUNT = 5;
+    private static final int BATCH_SIZE = 500;
+    private static final int SPECIAL_CHARS_COUNT = 4;
     public final Map<Integer, Integer> ageCount = putZeroCountFor(AGES);
     public final Map<String, Integer> colourCounts = putZeroCountFor(COLOURS);
     public final Map<String, Integer> animalCounts = putZeroCountFor(ANIMALS);
@@ -52,14 +59,23 @@ public class QueryEngineTestDataPopulator {
     public void setupAllData() {
         if (dataPushed) return;
 
-        setupData();
-        setupGeoData();
-        setupSpecialCharsData();
-        setupUsers();
+        Map<String, Object> fingerprint = fingerprint();
+        if (isPopulated(fingerprint)) {
+            AerospikeLogger.info("Query engine test data %s already present in %s, skipping population"
+                .formatted(fingerprint, namespace));
+            countData();
+        } else {
+            setupData();
+            setupGeoData();
+            setupSpecialCharsData();
+            setupUsers();
+            writeFingerprint(fingerprint);
+        }
         dataPushed = true;
     }
 
     public void setupData() {
+        List<BatchRecord> records = new ArrayList<>(2 * RECORD_COUNT);
         int i = 0;
         for (int x = 1; x <= RECORD_COUNT; x++) {
             Map<Long, String> ageColorMap = new HashMap<>();
@@ -89,12 +105,25 @@ public class QueryEngineTestDataPopulator {
             Bin colorListBin = new Bin("colorList", colorList);
             Bin longListBin = new Bin("longList", longList);
 
-            Bin[] bins = new Bin[]{name, age, colour, animal, modTen, ageColorMapBin, colorAgeMapBin, colorListBin,
-                longListBin};
-            this.client.put(null, new Key(namespace, SET_NAME, "selector-test:" + x), bins);
-            this.client.put(null, new Key(namespace, INDEXED_SET_NAME, "selector-test:" + x), bins);
+            Operation[] operations = puts(name, age, colour, animal, modTen, ageColorMapBin, colorAgeMapBin,
+                colorListBin, longListBin);
+            records.add(new BatchWrite(new Key(namespace, SET_NAME, "selector-test:" + x), operations));
+            records.add(new BatchWrite(new Key(namespace, INDEXED_SET_NAME, "selector-test:" + x), operations));
+
+            i++;
+            if (i == SAMPLE_DATA_COUNT)
+                i = 0;
+        }
+        writeBatch(records);
+        countData();
+    }
 
-            // Add to our counts of records written for each bin value
+    /**
+     * Adds the records written by {@link #setupData()} to our counts of records written for each bin value.
+     */
+    private void countData() {
+        int i = 0;
+        for (int x = 1; x <= RECORD_COUNT; x++) {
             ageCount.put(AGES[i], ageCount.get(AGES[i]) + 1);
             colourCounts.put(COLOURS[i], colourCounts.get(COLOURS[i]) + 1);
             animalCounts.put(ANIMALS[i], animalCounts.get(ANIMALS[i]) + 1);
@@ -106,16 +135,101 @@ public class QueryEngineTestDataPopulator {
         }
     }
 
+    private Map<String, Object> fingerprint() {
+        Map<String, Object> fingerprint = new LinkedHashMap<>();
+        fingerprint.put("version", (long) DATA_VERSION);
+        fingerprint.put("selector", (long) RECORD_COUNT);
+        fingerprint.put("geo", (long) geoKeys(GEO_SET).size());
+        fingerprint.put("specialChars", (long) SPECIAL_CHARS_COUNT);
+        fingerprint.put("users", (long) RECORD_COUNT);
+        return fingerprint;
+    }
+
+    private Key fingerprintKey() {
+        return new Key(namespace, FINGERPRINT_SET, "fingerprint");
+    }
+
+    /**
+     * The marker record only counts if every record it describes is still there: tests or cleanups may have
+     * deleted some of them since.
+     */
+    private boolean isPopulated(Map<String, Object> fingerprint) {
+        Record marker = client.get(null, fingerprintKey());
+        if (marker == null || !fingerprint.equals(marker.bins)) {
+            return false;
+        }
+        List<Key> keys = new ArrayList<>();
+        for (int x = 1; x <= RECORD_COUNT; x++) {
+            keys.add(new Key(namespace, SET_NAME, "selector-test:" + x));
+            keys.add(new Key(namespace, INDEXED_SET_NAME, "selector-test:" + x));
+            keys.add(new Key(namespace, USERS_SET, "user" + x));
+        }
+        keys.addAll(geoKeys(GEO_SET));
+        keys.addAll(geoKeys(INDEXED_GEO_SET));
+        keys.addAll(specialCharKeys());
+
+        BatchPolicy batchPolicy = batchPolicy();
+        for (int from = 0; from < keys.size(); from += BATCH_SIZE) {
+            Key[] batch = keys.subList(from, Math.min(keys.size(), from + BATCH_SIZE)).toArray(new Key[0]);
+            for (boolean exists : client.exists(batchPolicy, batch)) {
+                if (!exists) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void writeFingerprint(Map<String, Object> fingerprint) {
+        client.put(null, fingerprintKey(), fingerprint.entrySet().stream()
+            .map(entry -> new Bin(entry.getKey(), entry.getValue()))
+            .toArray(Bin[]::new));
+    }
+
+    private BatchPolicy batchPolicy() {
+        BatchPolicy batchPolicy = new BatchPolicy(client.getBatchPolicyDefault());
+        batchPolicy.maxConcurrentThreads = 0;
+        return batchPolicy;
+    }
+
+    private void writeBatch(List<BatchRecord> records) {
+        BatchPolicy batchPolicy = batchPolicy();
+        for (int from = 0; from < records.size(); from += BATCH_SIZE) {
+            client.operate(batchPolicy, records.subList(from, Math.min(records.size(), from + BATCH_SIZE)));
+        }
+        for (BatchRecord record : records) {
+            if (record.resultCode != ResultCode.OK) {
+                throw new AerospikeException(record.resultCode, "Failed to write " + record.key);
+            }
+        }
+    }
+
+    private static Operation[] puts(Bin... bins) {
+        return Arrays.stream(bins).map(Operation::put).toArray(Operation[]::new);
+    }
+
     private void setupGeoData() {
+        List<BatchRecord> records = new ArrayList<>();
         for (int i = 0; i < RECORD_COUNT; i++) {
             double lng = -122 + (0.1 * i);
             double lat = 37.5 + (0.1 * i);
             if (isLatLngValidPair(lng, lat)) {
-                Bin bin = Bin.asGeoJSON(GEO_BIN_NAME, buildGeoValue(lng, lat));
-                client.put(null, new Key(namespace, GEO_SET, keyPrefix + i), bin);
-                client.put(null, new Key(namespace, INDEXED_GEO_SET, keyPrefix + i), bin);
+                Operation[] operations = puts(Bin.asGeoJSON(GEO_BIN_NAME, buildGeoValue(lng, lat)));
+                records.add(new BatchWrite(new Key(namespace, GEO_SET, keyPrefix + i), operations));
+                records.add(new BatchWrite(new Key(namespace, INDEXED_GEO_SET, keyPrefix + i), operations));
             }
         }
+        writeBatch(records);
+    }
+
+    private List<Key> geoKeys(String setName) {
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            if (isLatLngValidPair(-122 + (0.1 * i), 37.5 + (0.1 * i))) {
+                keys.add(new Key(namespace, setName, keyPrefix + i));
+            }
+        }
+        return keys;
     }
 
     private boolean isLatLngValidPair(double lng, double lat) {
@@ -124,21 +238,20 @@ public class QueryEngineTestDataPopulator {
     }
 
     private void setupSpecialCharsData() {
-        Key ewsKey = new Key(namespace, SPECIAL_CHAR_SET, "ends-with-star");
-        Bin ewsBin = new Bin(SPECIAL_CHAR_BIN, "abcd.*");
-        this.client.put(null, ewsKey, ewsBin);
-
-        Key swsKey = new Key(namespace, SPECIAL_CHAR_SET, "starts-with-star");
-        Bin swsBin = new Bin(SPECIAL_CHAR_BIN, ".*abcd");
-        this.client.put(null, swsKey, swsBin);
-
-        Key starKey = new Key(namespace, SPECIAL_CHAR_SET, "mid-with-star");
-        Bin starBin = new Bin(SPECIAL_CHAR_BIN, "a.*b");
-        this.client.put(null, starKey, starBin);
+        List<Key> keys = specialCharKeys();
+        String[] values = {"abcd.*", ".*abcd", "a.*b", "a[$^\\ab"};
+        List<BatchRecord> records = new ArrayList<>();
+        for (int i = 0; i < SPECIAL_CHARS_COUNT; i++) {
+            records.add(new BatchWrite(keys.get(i), puts(new Bin(SPECIAL_CHAR_BIN, values[i]))));
+        }
+        writeBatch(records);
+    }
 
-        Key specialCharKey = new Key(namespace, SPECIAL_CHAR_SET, "special-chars");
-        Bin specialCharsBin = new Bin(SPECIAL_CHAR_BIN, "a[$^\\ab");
-        this.client.put(null, specialCharKey, specialCharsBin);
+    private List<Key> specialCharKeys() {
+        return List.of(new Key(namespace, SPECIAL_CHAR_SET, "ends-with-star"),
+            new Key(namespace, SPECIAL_CHAR_SET, "starts-with-star"),
+            new Key(namespace, SPECIAL_CHAR_SET, "mid-with-star"),
+            new Key(namespace, SPECIAL_CHAR_SET, "special-chars"));
     }
 
     @SneakyThrows
@@ -161,7 +274,7 @@ public class QueryEngineTestDataPopulator {
             Random rnd2 = new Random();
             Random rnd3 = new Random();
 
-
+            List<BatchRecord> records = new ArrayList<>(RECORD_COUNT);
             for (int j = start; j <= RECORD_COUNT; j++) {
                 // Write user record
                 username = "user" + j;
@@ -180,8 +293,9 @@ public class QueryEngineTestDataPopulator {
                 }
                 Bin bin7 = new Bin("interests", userInterests);
 
-                client.put(null, key, bin1, bin2, bin3, bin4, bin5, bin6, bin7);
+                records.add(new BatchWrite(key, puts(bin1, bin2, bin3, bin4, bin5, bin6, bin7)));
             }
+            writeBatch(records);
             createTweets();
         }
     }
@@ -211,42 +325,49 @@ public class QueryEngineTestDataPopulator {
         Random rnd1 = new Random();
         Random rnd2 = new Random();
         Random rnd3 = new Random();
-        Key userKey;
-        Record userRecord;
         int totalUsers = 10000;
         int maxTweets = 20;
-        String username;
-        long ts = 0;
-
 
+        // a user drawn more than once keeps the last draw, as when the tweets were written one by one
+        Map<String, Integer> tweetsPerUser = new LinkedHashMap<>();
         for (int j = 0; j < totalUsers; j++) {
-            // Check if user record exists
-            username = "user" + rnd3.nextInt(100000);
-            userKey = new Key(namespace, USERS_SET, username);
-            userRecord = client.get(null, userKey);
-            if (userRecord != null) {
-                // create up to maxTweets random tweets for this user
-                int totalTweets = rnd1.nextInt(maxTweets);
-                for (int k = 1; k <= totalTweets; k++) {
-                    // Create timestamp to store along with the tweet, so we can
-                    // query, index and report on it
-                    ts = getTimeStamp();
-                    Key tweetKey = new Key(namespace, "tweets", username + ":" + k);
-                    Bin bin1 = new Bin("tweet",
-                        randomTweets[rnd2.nextInt(randomTweets.length)]);
-                    Bin bin2 = new Bin("ts", ts);
-                    Bin bin3 = new Bin("username", username);
-
-                    client.put(null, tweetKey, bin1, bin2, bin3);
-                }
-                if (totalTweets > 0) {
-                    // Update tweet count and last tweet'd timestamp in the user
-                    // record
-                    client.put(null, userKey, new Bin("tweetcount", totalTweets), new Bin("lasttweeted", ts));
-                    //console.printf("\nINFO: The tweet count now is: " + totalTweets);
-                }
+            tweetsPerUser.put("user" + rnd3.nextInt(100000), rnd1.nextInt(maxTweets));
+        }
+        Key[] userKeys = tweetsPerUser.keySet().stream()
+            .map(username -> new Key(namespace, USERS_SET, username))
+            .toArray(Key[]::new);
+        boolean[] userExists = new boolean[userKeys.length];
+        for (int from = 0; from < userKeys.length; from += BATCH_SIZE) {
+            Key[] batch = Arrays.copyOfRange(userKeys, from, Math.min(userKeys.length, from + BATCH_SIZE));
+            System.arraycopy(client.exists(batchPolicy(), batch), 0, userExists, from, batch.length);
+        }
+
+        List<BatchRecord> records = new ArrayList<>();
+        for (int j = 0; j < userKeys.length; j++) {
+            String username = (String) userKeys[j].userKey.getObject();
+            int totalTweets = tweetsPerUser.get(username);
+            if (!userExists[j] || totalTweets == 0) {
+                continue;
+            }
+            // create up to maxTweets random tweets for this user
+            long ts = 0;
+            for (int k = 1; k <= totalTweets; k++) {
+                // Create timestamp to store along with the tweet, so we can
+                // query, index and report on it
+                ts = getTimeStamp();
+                Key tweetKey = new Key(namespace, "tweets", username + ":" + k);
+                Bin bin1 = new Bin("tweet",
+                    randomTweets[rnd2.nextInt(randomTweets.length)]);
+                Bin bin2 = new Bin("ts", ts);
+                Bin bin3 = new Bin("username", username);
+
+                records.add(new BatchWrite(tweetKey, puts(bin1, bin2, bin3)));
             }
+            // Update tweet count and last tweet'd timestamp in the user record
+            records.add(new BatchWrite(userKeys[j],
+                puts(new Bin("tweetcount", totalTweets), new Bin("lasttweeted", ts))));
         }
+        writeBatch(records);
     }
 
     private long getTimeStamp() {
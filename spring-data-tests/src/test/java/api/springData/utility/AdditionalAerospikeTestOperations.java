@@ -34,6 +34,7 @@ import org.testcontainers.containers.Container;
 import org.testcontainers.containers.GenericContainer;
 import utils.AerospikeLogger;
 import utils.AutoUtils;
+import utils.info.QueryJob;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
@@ -93,11 +94,13 @@ public abstract class AdditionalAerospikeTestOperations {
             return Collections.emptyList();
         }
         String response = stdout.replaceAll("\n", "");
-        return ResponseUtils.parseResponse(response, pairsMap -> ScanJob.builder()
-                .set(pairsMap.get("set"))
-                .udfFunction(pairsMap.get("udf-function"))
-                .status(pairsMap.get("status"))
-                .build());
+        return QueryJob.parseAll(response).stream()
+                .map(job -> ScanJob.builder()
+                        .set(job.set())
+                        .udfFunction(job.udfFunction())
+                        .status(job.status())
+                        .build())
+                .collect(Collectors.toList());
     }
 
     @SneakyThrows